@@ -0,0 +1,108 @@
+package com.hngy.cvs.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hngy.cvs.entity.enums.SignActionType;
+import com.hngy.cvs.service.impl.CheckTokenServiceImpl;
+import com.hngy.cvs.service.model.CheckToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二维码token校验基准测试
+ * <p>
+ * signedToken 为 {@link CheckTokenServiceImpl} 默认的签名token校验：一次本地HMAC计算，不访问Redis；
+ * redisToken 为切换前的校验方式：每次扫码从Redis读取并反序列化token。
+ * redisToken 需要可访问的Redis，地址通过 bench.redis.host / bench.redis.port 指定，例如：
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="CheckTokenBenchmark -t 8 -jvmArgs -Dbench.redis.host=127.0.0.1"}
+ * 只测签名token时可用 {@code -Djmh.args="CheckTokenBenchmark.signedToken"}。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CheckTokenBenchmark {
+
+    private static final long ACTIVITY_ID = 10001L;
+    private static final long TTL_MINUTES = 60L;
+
+    @State(Scope.Benchmark)
+    public static class SignedState {
+
+        private CheckTokenServiceImpl service;
+        private String token;
+
+        @Setup
+        public void setUp() {
+            // 签名模式且未开启吊销校验时不访问Redis
+            service = newService("signed", null);
+            token = service.createToken(ACTIVITY_ID, SignActionType.SIGN_IN, TTL_MINUTES).getToken();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RedisState {
+
+        private LettuceConnectionFactory connectionFactory;
+        private CheckTokenServiceImpl service;
+        private String token;
+
+        @Setup
+        public void setUp() {
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                    System.getProperty("bench.redis.host", "localhost"),
+                    Integer.getInteger("bench.redis.port", 6379));
+            connectionFactory = new LettuceConnectionFactory(configuration);
+            connectionFactory.afterPropertiesSet();
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+
+            service = newService("redis", redisTemplate);
+            token = service.createToken(ACTIVITY_ID, SignActionType.SIGN_IN, TTL_MINUTES).getToken();
+        }
+
+        @TearDown
+        public void tearDown() {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Benchmark
+    public CheckToken signedToken(SignedState state) {
+        return state.service.consumeToken(state.token, SignActionType.SIGN_IN);
+    }
+
+    @Benchmark
+    public CheckToken redisToken(RedisState state) {
+        return state.service.consumeToken(state.token, SignActionType.SIGN_IN);
+    }
+
+    private static CheckTokenServiceImpl newService(String mode, StringRedisTemplate redisTemplate) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        // 活动Mapper只用于动态签到码，token校验基准不涉及
+        CheckTokenServiceImpl service = new CheckTokenServiceImpl(redisTemplate, objectMapper, null);
+        ReflectionTestUtils.setField(service, "mode", mode);
+        ReflectionTestUtils.setField(service, "secret", "");
+        ReflectionTestUtils.setField(service, "jwtSecret", "benchmark-jwt-secret");
+        ReflectionTestUtils.setField(service, "revocationCheck", false);
+        ReflectionTestUtils.setField(service, "stepSeconds", 15);
+        ReflectionTestUtils.setField(service, "digits", 8);
+        service.init();
+        return service;
+    }
+}
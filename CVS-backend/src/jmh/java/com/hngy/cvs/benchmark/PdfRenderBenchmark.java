@@ -0,0 +1,132 @@
+package com.hngy.cvs.benchmark;
+
+import com.hngy.cvs.service.impl.PdfServiceImpl;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 证书PDF渲染基准测试
+ * <p>
+ * legacyFullFont 为预处理之前的渲染方式：每次渲染设置 NeedAppearances 和字段 DA，重新解析整份中文字体并完整嵌入；
+ * pooledSubsetFont 为 {@link PdfServiceImpl} 当前的渲染方式：预处理模板、从字体池取已解析字体、子集嵌入。
+ * 需要 classpath 中存在 fonts/SimHei.ttf。多线程对比可加 -t 参数，例如：
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="PdfRenderBenchmark -t 4"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfRenderBenchmark {
+
+    private static final Map<String, String> FIELD_NAMES = Map.of(
+            "name", "text_12iepk",
+            "username", "text_14sfkf",
+            "serial", "text_15uyeh",
+            "issueDate", "text_17devf"
+    );
+
+    private final Map<String, String> data = Map.of(
+            "name", "张三",
+            "username", "2021000001",
+            "serial", "CVS-20240101-000001",
+            "issueDate", "2024年01月01日"
+    );
+
+    private PdfServiceImpl pdfService;
+    private byte[] rawTemplate;
+    private byte[] fontBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        pdfService = new PdfServiceImpl();
+        ReflectionTestUtils.setField(pdfService, "templatePath", "assets/cert_template.pdf");
+        pdfService.init();
+
+        rawTemplate = readResource("assets/cert_template.pdf");
+        fontBytes = readResource("fonts/SimHei.ttf");
+    }
+
+    @Benchmark
+    public byte[] pooledSubsetFont() {
+        return pdfService.generateCertificatePdf(data);
+    }
+
+    @Benchmark
+    public byte[] legacyFullFont() throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             PDDocument document = Loader.loadPDF(rawTemplate)) {
+            PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+            acroForm.setNeedAppearances(true);
+
+            PDType0Font font;
+            try (InputStream fontStream = new ByteArrayInputStream(fontBytes)) {
+                font = PDType0Font.load(document, fontStream, false);
+            }
+
+            PDResources dr = acroForm.getDefaultResources();
+            if (dr == null) {
+                dr = new PDResources();
+            }
+            COSName fontKey = dr.add(font);
+            dr.put(COSName.getPDFName("Helv"), font);
+            acroForm.setDefaultResources(dr);
+
+            for (PDPage page : document.getPages()) {
+                PDResources pr = page.getResources();
+                if (pr == null) {
+                    pr = new PDResources();
+                }
+                pr.put(fontKey, font);
+                pr.put(COSName.getPDFName("Helv"), font);
+                page.setResources(pr);
+            }
+
+            String da = String.format("/%s 15 Tf 0 g", fontKey.getName());
+            for (Map.Entry<String, String> entry : FIELD_NAMES.entrySet()) {
+                PDField field = acroForm.getField(entry.getValue());
+                if (field instanceof PDTextField tf) {
+                    tf.getCOSObject().setString(COSName.DA, da);
+                    tf.setValue(data.get(entry.getKey()));
+                }
+            }
+
+            acroForm.flatten();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    private static byte[] readResource(String path) throws IOException {
+        try (InputStream is = new ClassPathResource(path).getInputStream()) {
+            return is.readAllBytes();
+        }
+    }
+}
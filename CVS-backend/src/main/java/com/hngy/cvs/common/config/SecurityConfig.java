@@ -3,6 +3,7 @@ package com.hngy.cvs.common.config;
 import com.hngy.cvs.common.security.JwtAccessDeniedHandler;
 import com.hngy.cvs.common.security.JwtAuthenticationEntryPoint;
 import com.hngy.cvs.common.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,6 +40,8 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // 异步请求（SSE推送）结束时的分派已在初始请求中完成认证
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // 公开接口 - 无需认证即可访问
                 .requestMatchers("/api/auth/**", "/", "/health", "/swagger-ui/**", "/v3/api-docs/**", "/error", "/actuator/health", "/actuator/info").permitAll()
                 // 静态资源 - 上传的文件和图片允许匿名访问
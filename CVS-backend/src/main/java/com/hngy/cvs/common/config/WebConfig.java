@@ -3,6 +3,7 @@ package com.hngy.cvs.common.config;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -18,6 +19,18 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${file.upload.path:/uploads}")
     private String uploadPath;
 
+    /**
+     * 异步请求默认超时（毫秒）。流式导出（StreamingResponseBody）没有单独的超时，
+     * 未配置时沿用容器默认的30秒，大数据量导出会被中途断开；SSE连接自行设置超时，不受影响
+     */
+    @Value("${export.async-timeout-ms:600000}")
+    private long exportAsyncTimeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(exportAsyncTimeoutMs);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // 获取绝对路径并规范化
@@ -0,0 +1,78 @@
+package com.hngy.cvs.common.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * CSV导出写入器（UTF-8 带 BOM，便于 Excel 直接打开）
+ *
+ * @param <T> 行数据类型
+ */
+public class CsvExportWriter<T> implements ExportWriter<T> {
+
+    private final List<ExportColumn<T>> columns;
+    private final Writer writer;
+
+    public CsvExportWriter(List<ExportColumn<T>> columns, OutputStream outputStream) throws IOException {
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(columns.get(i).getHeader());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = columns.get(i).valueOf(row);
+            writeField(value instanceof Number ? value.toString() : escapeFormula(ExportValues.format(value)));
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        // 底层输出流由容器管理
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    /**
+     * 用户输入的文本以公式字符开头时加前缀，防止在表格软件中被当作公式执行
+     */
+    private static String escapeFormula(String value) {
+        if (!value.isEmpty()) {
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@') {
+                return "'" + value;
+            }
+        }
+        return value;
+    }
+}
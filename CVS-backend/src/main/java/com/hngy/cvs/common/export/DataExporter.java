@@ -0,0 +1,81 @@
+package com.hngy.cvs.common.export;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 流式导出工具类
+ * 数据源逐行回调写入器，写入器直接写到响应输出流，内存占用与导出行数无关
+ */
+public class DataExporter {
+
+    private DataExporter() {
+    }
+
+    /**
+     * 将数据源导出到输出流
+     *
+     * @param format       导出格式
+     * @param sheetName    工作表名称（仅 XLSX）
+     * @param columns      列描述
+     * @param source       数据源
+     * @param outputStream 输出流
+     * @param <T>          行数据类型
+     * @throws IOException 写入失败
+     */
+    public static <T> void export(ExportFormat format, String sheetName, List<ExportColumn<T>> columns,
+                                  ExportSource<T> source, OutputStream outputStream) throws IOException {
+        try (ExportWriter<T> writer = createWriter(format, sheetName, columns, outputStream)) {
+            source.fetch(context -> {
+                try {
+                    writer.write(context.getResultObject());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 构建下载响应，文件名为 "名称_日期.扩展名"，由异步线程写出响应体
+     * <p>
+     * 写出耗时受 export.async-timeout-ms 限制，期间一直持有数据源的数据库连接
+     *
+     * @param name   文件名称
+     * @param format 导出格式
+     * @param body   响应体
+     * @return 下载响应
+     */
+    public static ResponseEntity<StreamingResponseBody> response(String name, ExportFormat format, StreamingResponseBody body) {
+        String filename = name + "_" + LocalDate.now() + "." + format.getCode();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString())
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
+
+    private static <T> ExportWriter<T> createWriter(ExportFormat format, String sheetName,
+                                                    List<ExportColumn<T>> columns, OutputStream outputStream) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvExportWriter<>(columns, outputStream);
+            case XLSX:
+            default:
+                return new XlsxExportWriter<>(columns, sheetName, outputStream);
+        }
+    }
+}
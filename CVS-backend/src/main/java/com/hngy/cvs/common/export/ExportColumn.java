@@ -0,0 +1,43 @@
+package com.hngy.cvs.common.export;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * 导出列描述：表头、列宽及取值函数
+ *
+ * @param <T> 行数据类型
+ */
+@Getter
+public class ExportColumn<T> {
+
+    /**
+     * 表头
+     */
+    private final String header;
+
+    /**
+     * 列宽（字符数），流式写入无法按内容自动调整列宽
+     */
+    private final int width;
+
+    /**
+     * 取值函数
+     */
+    private final Function<T, ?> getter;
+
+    private ExportColumn(String header, int width, Function<T, ?> getter) {
+        this.header = header;
+        this.width = width;
+        this.getter = getter;
+    }
+
+    public static <T> ExportColumn<T> of(String header, int width, Function<T, ?> getter) {
+        return new ExportColumn<>(header, width, getter);
+    }
+
+    public Object valueOf(T row) {
+        return getter.apply(row);
+    }
+}
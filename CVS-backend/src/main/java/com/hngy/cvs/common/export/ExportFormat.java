@@ -0,0 +1,36 @@
+package com.hngy.cvs.common.export;
+
+import com.hngy.cvs.common.exception.BusinessException;
+import com.hngy.cvs.common.result.ResultCode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 导出文件格式
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    CSV("csv", "text/csv;charset=UTF-8"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    /**
+     * 格式代码，同时作为文件扩展名
+     */
+    private final String code;
+
+    private final String contentType;
+
+    public static ExportFormat fromCode(String code) {
+        if (code == null || code.isBlank()) {
+            return XLSX;
+        }
+        for (ExportFormat format : values()) {
+            if (format.getCode().equalsIgnoreCase(code.trim())) {
+                return format;
+            }
+        }
+        throw new BusinessException(ResultCode.BAD_REQUEST, "不支持的导出格式: " + code);
+    }
+}
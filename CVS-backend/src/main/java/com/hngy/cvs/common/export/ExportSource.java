@@ -0,0 +1,17 @@
+package com.hngy.cvs.common.export;
+
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+ * 导出数据源：以流式查询逐行回调，不在内存中保留结果集
+ * <p>
+ * 通常直接引用带 {@link ResultHandler} 参数的 Mapper 方法，对应语句需声明
+ * {@code resultSetType="FORWARD_ONLY" fetchSize="-2147483648"}，使 MySQL 驱动逐行读取。
+ *
+ * @param <T> 行数据类型
+ */
+@FunctionalInterface
+public interface ExportSource<T> {
+
+    void fetch(ResultHandler<T> handler);
+}
@@ -0,0 +1,22 @@
+package com.hngy.cvs.common.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 导出写入器，逐行写入输出流
+ *
+ * @param <T> 行数据类型
+ */
+public interface ExportWriter<T> extends Closeable {
+
+    /**
+     * 写入一行
+     */
+    void write(T row) throws IOException;
+
+    /**
+     * 写出剩余内容，不关闭底层输出流
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,96 @@
+package com.hngy.cvs.common.export;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * XLSX导出写入器
+ * <p>
+ * 基于 SXSSF，内存中只保留滑动窗口内的行，其余行写入压缩临时文件；超过单个工作表行数上限时续写到新工作表。
+ *
+ * @param <T> 行数据类型
+ */
+public class XlsxExportWriter<T> implements ExportWriter<T> {
+
+    /**
+     * 内存中保留的行数
+     */
+    private static final int ROW_WINDOW = 200;
+
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private final List<ExportColumn<T>> columns;
+    private final OutputStream outputStream;
+    private final String sheetName;
+    private final SXSSFWorkbook workbook;
+    private final CellStyle headerStyle;
+
+    private Sheet sheet;
+    private int rowIndex;
+
+    public XlsxExportWriter(List<ExportColumn<T>> columns, String sheetName, OutputStream outputStream) {
+        this.columns = columns;
+        this.sheetName = sheetName;
+        this.outputStream = outputStream;
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+
+        newSheet();
+    }
+
+    @Override
+    public void write(T row) {
+        if (rowIndex >= MAX_ROWS) {
+            newSheet();
+        }
+        Row excelRow = sheet.createRow(rowIndex++);
+        for (int i = 0; i < columns.size(); i++) {
+            Object value = columns.get(i).valueOf(row);
+            Cell cell = excelRow.createCell(i);
+            if (value instanceof Number) {
+                cell.setCellValue(((Number) value).doubleValue());
+            } else {
+                cell.setCellValue(ExportValues.format(value));
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(outputStream);
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void newSheet() {
+        int index = workbook.getNumberOfSheets();
+        sheet = workbook.createSheet(index == 0 ? sheetName : sheetName + "(" + (index + 1) + ")");
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columns.size(); i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columns.get(i).getHeader());
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, columns.get(i).getWidth() * 256);
+        }
+        rowIndex = 1;
+    }
+}
@@ -0,0 +1,134 @@
+package com.hngy.cvs.common.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 兑换凭证编号生成器
+ * <p>
+ * 格式为 {@code MALL + 19位ID + 1位校验码}。ID 采用 Snowflake 结构：41位毫秒时间（自2024-01-01起）、
+ * 10位节点号、12位毫秒内序号，同一节点内单调递增，不同节点互不重叠，无需查库也无需重试。
+ * 校验码为 Luhn 校验位，核销时可在查库前拦截输错的编号。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoucherCodeGenerator {
+
+    private static final String PREFIX = "MALL";
+    private static final long EPOCH = 1704067200000L; // 2024-01-01 00:00:00 UTC
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ID_DIGITS = 19;
+    private static final String NODE_SEQ_KEY = "cvs:voucher:node-seq";
+
+    /**
+     * 旧格式：MALL + yyyyMMddHHmmss + 4位随机数
+     */
+    private static final int LEGACY_LENGTH = PREFIX.length() + 14 + 4;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 节点号（0-1023），小于0时启动时从Redis分配
+     */
+    @Value("${voucher.node-id:-1}")
+    private long nodeId;
+
+    private long lastTimestamp = -1L;
+    private long sequence = 0L;
+
+    @PostConstruct
+    public void init() {
+        if (nodeId < 0) {
+            try {
+                Long seq = stringRedisTemplate.opsForValue().increment(NODE_SEQ_KEY);
+                nodeId = (seq != null ? seq : 0L) & MAX_NODE_ID;
+            } catch (Exception e) {
+                nodeId = ThreadLocalRandom.current().nextLong(MAX_NODE_ID + 1);
+                log.warn("从Redis分配凭证节点号失败，使用随机节点号: nodeId={}, error={}", nodeId, e.getMessage());
+            }
+        }
+        AssertUtils.isTrue(nodeId <= MAX_NODE_ID, "凭证节点号超出范围: " + nodeId);
+        log.info("兑换凭证编号生成器初始化完成: nodeId={}", nodeId);
+    }
+
+    /**
+     * 生成凭证编号
+     *
+     * @return 凭证编号
+     */
+    public String generate() {
+        String id = String.format("%0" + ID_DIGITS + "d", nextId());
+        return PREFIX + id + luhnDigit(id);
+    }
+
+    /**
+     * 校验凭证编号格式（新格式校验Luhn位，旧格式只校验长度和数字）
+     *
+     * @param voucherCode 凭证编号
+     * @return 格式是否有效
+     */
+    public boolean isWellFormed(String voucherCode) {
+        if (voucherCode == null || !voucherCode.startsWith(PREFIX)) {
+            return false;
+        }
+        String digits = voucherCode.substring(PREFIX.length());
+        if (digits.isEmpty() || !digits.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        if (voucherCode.length() == LEGACY_LENGTH) {
+            return true;
+        }
+        if (digits.length() != ID_DIGITS + 1) {
+            return false;
+        }
+        return luhnDigit(digits.substring(0, ID_DIGITS)) == digits.charAt(ID_DIGITS);
+    }
+
+    private synchronized long nextId() {
+        long timestamp = System.currentTimeMillis();
+        // 时钟回拨时沿用上次的时间继续递增序号，保证不重复
+        if (timestamp < lastTimestamp) {
+            timestamp = lastTimestamp;
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 本毫秒序号用尽，借用下一毫秒
+                timestamp = lastTimestamp + 1;
+            }
+        } else {
+            sequence = 0L;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    private static char luhnDigit(String digits) {
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (doubleIt) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubleIt = !doubleIt;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
@@ -2,14 +2,21 @@ package com.hngy.cvs.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.result.Result;
 import com.hngy.cvs.common.util.PageUtil;
 import com.hngy.cvs.common.security.UserPrincipal;
 import com.hngy.cvs.dto.request.CertificateApprovalDTO;
+import com.hngy.cvs.dto.request.CertificateBatchJobDTO;
 import com.hngy.cvs.dto.request.CertificateCreateDTO;
+import com.hngy.cvs.dto.response.CertificateBatchJobVO;
 import com.hngy.cvs.dto.response.CertificateVO;
+import com.hngy.cvs.entity.enums.CertificateStatus;
 import com.hngy.cvs.entity.enums.UserRole;
+import com.hngy.cvs.service.CertificateBatchService;
 import com.hngy.cvs.service.CertificateService;
+import com.hngy.cvs.service.model.CertificatePdf;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -17,14 +24,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 /**
  * 志愿证明管理控制器
@@ -38,6 +51,7 @@ import java.nio.charset.StandardCharsets;
 public class CertificateController {
 
     private final CertificateService certificateService;
+    private final CertificateBatchService certificateBatchService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
@@ -95,6 +109,17 @@ public class CertificateController {
         return Result.success(PageUtil.convert(certificatePage));
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "导出证明记录", description = "流式导出，支持 xlsx（默认）和 csv 格式")
+    public ResponseEntity<StreamingResponseBody> exportCertificates(
+            @Parameter(description = "证明状态，为空时导出全部") @RequestParam(required = false) CertificateStatus status,
+            @Parameter(description = "导出格式：xlsx/csv") @RequestParam(defaultValue = "xlsx") String format) {
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        return DataExporter.response("志愿证明", exportFormat,
+                outputStream -> certificateService.exportCertificates(status, exportFormat, outputStream));
+    }
+
     @GetMapping("/pending")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "获取待审核的证明记录")
@@ -128,27 +153,13 @@ public class CertificateController {
     public ResponseEntity<byte[]> previewCertificate(
             @Parameter(description = "证书ID") @PathVariable Long id,
             @AuthenticationPrincipal UserPrincipal principal) {
-        // 生成PDF字节数组
-        byte[] pdfBytes = certificateService.generateCertificatePdf(
+        CertificatePdf pdf = certificateService.generateCertificatePdf(
                 id, 
                 principal.getUserId(), 
                 UserRole.fromCode(principal.getRole())
         );
-        
-        // 获取证书信息
-        CertificateVO certificate = certificateService.getCertificateById(id);
-        String filename = "志愿服务证书_" + certificate.getUsername() + ".pdf";
-        
-        // 设置响应头（inline 表示在浏览器中预览，而不是下载）
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("inline", 
-                new String(filename.getBytes(StandardCharsets.UTF_8), 
-                          StandardCharsets.ISO_8859_1));
-        
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
+        // inline 表示在浏览器中预览，而不是下载
+        return buildPdfResponse(pdf, "inline");
     }
 
     @GetMapping("/{id}/download")
@@ -157,26 +168,60 @@ public class CertificateController {
     public ResponseEntity<byte[]> downloadCertificate(
             @Parameter(description = "证书ID") @PathVariable Long id,
             @AuthenticationPrincipal UserPrincipal principal) {
-        // 生成PDF字节数组
-        byte[] pdfBytes = certificateService.generateCertificatePdf(
+        CertificatePdf pdf = certificateService.generateCertificatePdf(
                 id, 
                 principal.getUserId(), 
                 UserRole.fromCode(principal.getRole())
         );
-        
-        // 获取证书信息以获取学号
-        CertificateVO certificate = certificateService.getCertificateById(id);
-        String filename = "志愿服务证书_" + certificate.getUsername() + ".pdf";
-        
-        // 设置响应头
+        return buildPdfResponse(pdf, "attachment");
+    }
+
+    @PostMapping("/batch-jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "创建证书批量生成任务", description = "按证书ID列表或审批日期筛选已通过的证书，后台生成ZIP")
+    public Result<CertificateBatchJobVO> createBatchJob(
+            @RequestBody CertificateBatchJobDTO dto,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        CertificateBatchJobVO job = certificateBatchService.createJob(dto, principal.getUserId());
+        return Result.success("批量生成任务已创建", job);
+    }
+
+    @GetMapping("/batch-jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "查询证书批量生成进度")
+    public Result<CertificateBatchJobVO> getBatchJob(@Parameter(description = "任务ID") @PathVariable Long jobId) {
+        return Result.success(certificateBatchService.getJob(jobId));
+    }
+
+    @GetMapping("/batch-jobs/{jobId}/download")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "下载批量生成的证书ZIP")
+    public ResponseEntity<Resource> downloadBatchJob(@Parameter(description = "任务ID") @PathVariable Long jobId) {
+        Path file = certificateBatchService.getJobFile(jobId);
+        String filename = "志愿服务证书_批量_" + jobId + ".zip";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 构建PDF响应；以内容摘要作为 ETag，客户端携带 If-None-Match/If-Modified-Since 且未变化时由 Spring MVC 返回 304
+     */
+    private ResponseEntity<byte[]> buildPdfResponse(CertificatePdf pdf, String disposition) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", 
-                new String(filename.getBytes(StandardCharsets.UTF_8), 
+        headers.setContentDispositionFormData(disposition, 
+                new String(pdf.getFilename().getBytes(StandardCharsets.UTF_8), 
                           StandardCharsets.ISO_8859_1));
-        
+        headers.setETag("\"" + pdf.getContentHash() + "\"");
+        headers.setLastModified(pdf.getLastModified());
+        // 证书需鉴权访问，只允许浏览器私有缓存，每次使用前重新验证
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(pdfBytes);
+                .body(pdf.getContent());
     }
 }
@@ -9,6 +9,7 @@ import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.request.ReviewSearchRequest;
 import com.hngy.cvs.dto.request.SignupReviewRequest;
 import com.hngy.cvs.dto.response.PendingSignStudentVO;
+import com.hngy.cvs.dto.response.RotatingCodeResponse;
 import com.hngy.cvs.dto.response.SignTokenResponse;
 import com.hngy.cvs.dto.response.SignupReviewVO;
 import com.hngy.cvs.service.CheckService;
@@ -53,6 +54,47 @@ public class CheckController {
         return Result.success("生成签退二维码成功", response);
     }
 
+    @PostMapping("/checkin/rotating/{activityId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "获取动态签到码种子")
+    public Result<RotatingCodeResponse> createCheckInRotatingCode(
+            @PathVariable Long activityId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        RotatingCodeResponse response = checkService.createCheckInRotatingCode(activityId, principal.getUserId());
+        return Result.success("获取动态签到码成功", response);
+    }
+
+    @PostMapping("/checkout/rotating/{activityId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "获取动态签退码种子")
+    public Result<RotatingCodeResponse> createCheckOutRotatingCode(
+            @PathVariable Long activityId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        RotatingCodeResponse response = checkService.createCheckOutRotatingCode(activityId, principal.getUserId());
+        return Result.success("获取动态签退码成功", response);
+    }
+
+    @PostMapping("/checkin/rotating/{activityId}/reset")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "重置动态签到/签退码密钥")
+    public Result<Void> resetRotatingSecret(
+            @PathVariable Long activityId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        checkService.resetRotatingSecret(activityId, principal.getUserId());
+        return Result.success("动态签到码已重置，请重新获取");
+    }
+
+    @DeleteMapping("/checkin/token/{activityId}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "吊销签到/签退二维码token")
+    public Result<Void> revokeToken(
+            @PathVariable Long activityId,
+            @RequestParam String token,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        checkService.revokeToken(activityId, principal.getUserId(), token);
+        return Result.success("二维码已吊销");
+    }
+
     @PostMapping("/checkin")
     @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
     @Operation(summary = "学生签到")
@@ -9,15 +9,18 @@ import com.hngy.cvs.common.security.UserPrincipal;
 import com.hngy.cvs.dto.request.NotificationQuery;
 import com.hngy.cvs.dto.response.NotificationVO;
 import com.hngy.cvs.entity.enums.NotificationType;
+import com.hngy.cvs.service.NotificationPushService;
 import com.hngy.cvs.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -36,6 +39,7 @@ import java.util.List;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationPushService notificationPushService;
 
     /**
      * 获取未读通知数量
@@ -55,6 +59,17 @@ public class NotificationController {
         }
     }
 
+    /**
+     * 订阅通知推送（SSE）
+     * 浏览器 EventSource 无法设置请求头时可通过 token 参数认证
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅通知推送", description = "建立SSE长连接，推送新通知（notification 事件）和未读数量变化（unread-count 事件）")
+    public SseEmitter stream(@AuthenticationPrincipal UserPrincipal principal) {
+        validateUserPrincipal(principal);
+        return notificationPushService.subscribe(principal.getUserId());
+    }
+
     /**
      * 获取通知列表（支持分页和筛选）
      */
@@ -3,10 +3,14 @@ package com.hngy.cvs.controller;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.request.PointsSearchDTO;
+import com.hngy.cvs.dto.response.CursorPageVO;
 import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.result.Result;
 import com.hngy.cvs.common.util.PageUtil;
 import com.hngy.cvs.common.security.UserPrincipal;
+import com.hngy.cvs.dto.response.PointsLedgerVO;
 import com.hngy.cvs.dto.response.PointsRecordVO;
 import com.hngy.cvs.dto.response.PointsStatsVO;
 import com.hngy.cvs.dto.response.PointsRankingVO;
@@ -15,9 +19,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
@@ -64,13 +70,52 @@ public class PointsController {
         return Result.success(records);
     }
 
+    @PostMapping("/records/export")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "导出所有用户的积分记录", description = "流式导出，支持 xlsx（默认）和 csv 格式")
+    public ResponseEntity<StreamingResponseBody> exportAllPointsRecords(
+            @RequestBody(required = false) PointsSearchDTO searchParams,
+            @Parameter(description = "导出格式：xlsx/csv") @RequestParam(defaultValue = "xlsx") String format) {
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        return DataExporter.response("积分记录", exportFormat,
+                outputStream -> pointsService.exportAllPointsRecords(searchParams, exportFormat, outputStream));
+    }
+
     @PostMapping("/award")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "发放积分")
     public Result<Void> awardPoints(
             @Parameter(description = "用户ID") @RequestParam @NotNull Long userId,
             @Parameter(description = "积分数量") @RequestParam @NotNull Integer points) {
-        pointsService.awardPoints(userId, points);
+        pointsService.awardPoints(userId, points, "管理员发放");
         return Result.success();
     }
+
+    @GetMapping("/history/my")
+    @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
+    @Operation(summary = "获取当前用户积分流水（游标分页）")
+    public Result<CursorPageVO<PointsLedgerVO>> getMyPointsHistory(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "20") @Min(1) Integer size,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return Result.success(pointsService.getPointsHistory(principal.getUserId(), cursor, size));
+    }
+
+    @GetMapping("/history/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "获取指定用户积分流水（游标分页）")
+    public Result<CursorPageVO<PointsLedgerVO>> getUserPointsHistory(
+            @Parameter(description = "用户ID") @PathVariable @NotNull Long userId,
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "20") @Min(1) Integer size) {
+        return Result.success(pointsService.getPointsHistory(userId, cursor, size));
+    }
+
+    @PostMapping("/{userId}/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "按积分流水重建用户余额")
+    public Result<Integer> rebuildBalance(
+            @Parameter(description = "用户ID") @PathVariable @NotNull Long userId) {
+        return Result.success(pointsService.rebuildBalance(userId));
+    }
 }
@@ -7,6 +7,7 @@ import com.hngy.cvs.dto.request.ProductQueryRequest;
 import com.hngy.cvs.dto.request.ProductUpdateRequest;
 import com.hngy.cvs.dto.response.PageVO;
 import com.hngy.cvs.dto.response.ProductVO;
+import com.hngy.cvs.service.FlashSaleService;
 import com.hngy.cvs.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,6 +31,7 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final FlashSaleService flashSaleService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -92,6 +94,24 @@ public class ProductController {
         return Result.success("商品状态更新成功");
     }
 
+    @PostMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "开启商品秒杀")
+    public Result<Void> startFlashSale(
+            @Parameter(description = "商品ID") @PathVariable @NotNull Long id) {
+        flashSaleService.start(id);
+        return Result.success("商品秒杀已开启");
+    }
+
+    @DeleteMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "关闭商品秒杀")
+    public Result<Void> stopFlashSale(
+            @Parameter(description = "商品ID") @PathVariable @NotNull Long id) {
+        flashSaleService.stop(id);
+        return Result.success("商品秒杀已关闭");
+    }
+
     @GetMapping("/{id}/stock/check")
     @Operation(summary = "检查商品库存")
     public Result<Boolean> checkStock(
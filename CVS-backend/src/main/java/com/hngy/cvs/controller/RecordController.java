@@ -1,6 +1,8 @@
 package com.hngy.cvs.controller;
 
 import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.result.Result;
 import com.hngy.cvs.common.security.UserPrincipal;
 import com.hngy.cvs.dto.request.ServiceRecordSearchDTO;
@@ -12,9 +14,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
@@ -92,4 +96,16 @@ public class RecordController {
         PageVO<ServiceRecordVO> result = recordService.getAllServiceRecords(pageRequest);
         return Result.success(result);
     }
+
+    // 7. 导出所有服务记录（管理员端，流式导出，筛选条件同分页查询）
+    @PostMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "导出服务记录", description = "流式导出，支持 xlsx（默认）和 csv 格式")
+    public ResponseEntity<StreamingResponseBody> exportAllServiceRecords(
+            @RequestBody(required = false) ServiceRecordSearchDTO searchDTO,
+            @Parameter(description = "导出格式：xlsx/csv") @RequestParam(defaultValue = "xlsx") String format) {
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        return DataExporter.response("服务记录", exportFormat,
+                outputStream -> recordService.exportAllServiceRecords(searchDTO, exportFormat, outputStream));
+    }
 }
@@ -1,5 +1,7 @@
 package com.hngy.cvs.controller;
 
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.result.Result;
 import com.hngy.cvs.common.security.UserPrincipal;
 import com.hngy.cvs.dto.request.PageDTO;
@@ -8,14 +10,18 @@ import com.hngy.cvs.dto.request.SignupCreateDTO;
 import com.hngy.cvs.dto.request.SignupSearchDTO;
 import com.hngy.cvs.dto.response.PageVO;
 import com.hngy.cvs.dto.response.SignupVO;
+import com.hngy.cvs.dto.response.WaitlistVO;
 import com.hngy.cvs.service.SignupService;
+import com.hngy.cvs.service.WaitlistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
@@ -31,6 +37,7 @@ import jakarta.validation.Valid;
 public class SignupController {
 
     private final SignupService signupService;
+    private final WaitlistService waitlistService;
 
     // 1. 学生报名活动
     @PostMapping
@@ -62,6 +69,20 @@ public class SignupController {
         return Result.success(result);
     }
 
+    // 3.1 老师导出自己发布活动的报名列表（流式导出，筛选条件同分页查询）
+    @PostMapping("/export")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "导出报名列表", description = "流式导出，支持 xlsx（默认）和 csv 格式")
+    public ResponseEntity<StreamingResponseBody> exportSignupList(
+            @RequestBody(required = false) SignupSearchDTO searchDTO,
+            @Parameter(description = "导出格式：xlsx/csv") @RequestParam(defaultValue = "xlsx") String format,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        Long teacherId = principal.getUserId();
+        return DataExporter.response("报名记录", exportFormat,
+                outputStream -> signupService.exportSignupList(searchDTO, teacherId, exportFormat, outputStream));
+    }
+
     // 4. 学生查询自己报名的活动列表
     @PostMapping("/my")
     @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
@@ -116,6 +137,16 @@ public class SignupController {
         return Result.success("批量拒绝报名成功");
     }
 
+    @PutMapping("/activity/{activityId}/approve-all")
+    @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
+    @Operation(summary = "一键通过活动全部待审核报名")
+    public Result<Integer> approveAllPendingSignups(
+            @Parameter(description = "活动ID") @PathVariable Long activityId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        int approved = signupService.approveAllPendingSignups(activityId, principal.getUserId());
+        return Result.success("批量审核通过成功", approved);
+    }
+
     // 6. 获取已签到但未签退的人员列表（教师仪表盘用）
     @PostMapping("/checked-in")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
@@ -148,4 +179,36 @@ public class SignupController {
         PageVO<SignupVO> result = signupService.getActivitySignups(activityId, pageRequest);
         return Result.success(result);
     }
+
+    // 9. 学生加入活动候补
+    @PostMapping("/waitlist")
+    @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
+    @Operation(summary = "加入活动候补", description = "活动名额已满时加入候补，名额空出后按顺序自动转为待审核报名")
+    public Result<WaitlistVO> joinWaitlist(
+            @Valid @RequestBody SignupCreateDTO dto,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        WaitlistVO waitlistVO = waitlistService.join(dto, principal.getUserId());
+        return Result.success("加入候补成功", waitlistVO);
+    }
+
+    // 10. 学生查询候补位次
+    @GetMapping("/waitlist/{activityId}")
+    @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
+    @Operation(summary = "查询候补位次")
+    public Result<WaitlistVO> getWaitlistPosition(
+            @PathVariable Long activityId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return Result.success(waitlistService.getPosition(activityId, principal.getUserId()));
+    }
+
+    // 11. 学生退出活动候补
+    @DeleteMapping("/waitlist/{activityId}")
+    @PreAuthorize("hasAnyRole('STUDENT', 'ADMIN')")
+    @Operation(summary = "退出活动候补")
+    public Result<Void> leaveWaitlist(
+            @PathVariable Long activityId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        waitlistService.leave(activityId, principal.getUserId());
+        return Result.success("退出候补成功");
+    }
 }
@@ -1,5 +1,7 @@
 package com.hngy.cvs.controller;
 
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.result.Result;
 import com.hngy.cvs.common.security.UserPrincipal;
 import com.hngy.cvs.dto.response.AdminDashboardStatsVO;
@@ -14,12 +16,11 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -111,22 +112,18 @@ public class StatisticsController {
 
     @GetMapping("/export")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "导出兑换记录Excel")
-    public ResponseEntity<byte[]> exportRedemptions(
+    @Operation(summary = "导出兑换记录", description = "流式导出，支持 xlsx（默认）和 csv 格式")
+    public ResponseEntity<StreamingResponseBody> exportRedemptions(
             @Parameter(description = "开始日期") 
             @RequestParam(required = false) 
             @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
             @Parameter(description = "结束日期") 
             @RequestParam(required = false) 
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
-        
-        byte[] excelData = statisticsService.exportRedemptions(startDate, endDate);
-        
-        String filename = "兑换记录_" + LocalDate.now() + ".xlsx";
-        
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excelData);
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @Parameter(description = "导出格式：xlsx/csv")
+            @RequestParam(defaultValue = "xlsx") String format) {
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        return DataExporter.response("兑换记录", exportFormat,
+                outputStream -> statisticsService.exportRedemptions(startDate, endDate, exportFormat, outputStream));
     }
-}
\ No newline at end of file
+}
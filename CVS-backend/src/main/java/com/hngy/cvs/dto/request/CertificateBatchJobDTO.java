@@ -0,0 +1,27 @@
+package com.hngy.cvs.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 证书批量生成请求DTO
+ * 指定证书ID时按ID生成，否则按审批日期筛选已通过的证书
+ *
+ * @author CVS Team
+ */
+@Data
+@Schema(description = "证书批量生成请求")
+public class CertificateBatchJobDTO {
+
+    @Schema(description = "证书ID列表", example = "[1, 2, 3]")
+    private List<Long> certificateIds;
+
+    @Schema(description = "审批开始日期", example = "2024-01-01")
+    private LocalDate approvedFrom;
+
+    @Schema(description = "审批结束日期", example = "2024-07-01")
+    private LocalDate approvedTo;
+}
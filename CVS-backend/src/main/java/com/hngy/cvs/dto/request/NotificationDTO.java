@@ -35,4 +35,7 @@ public class NotificationDTO {
 
     @Schema(description = "模板数据")
     private Map<String, Object> templateData;
+
+    @Schema(description = "幂等键，相同幂等键的通知只会创建一次")
+    private String dedupKey;
 }
\ No newline at end of file
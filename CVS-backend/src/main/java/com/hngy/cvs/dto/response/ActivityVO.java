@@ -64,6 +64,12 @@ public class ActivityVO {
     @Schema(description = "当前报名人数", example = "25")
     private Integer currentParticipants;
 
+    @Schema(description = "已占用名额（待审核和已通过的报名数）", example = "30")
+    private Integer reservedCount;
+
+    @Schema(description = "剩余名额", example = "20")
+    private Integer remainingSeats;
+
     @Schema(description = "已签到人数", example = "20")
     private Integer checkinCount;
 
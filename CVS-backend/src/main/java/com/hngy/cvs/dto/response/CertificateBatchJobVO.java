@@ -0,0 +1,43 @@
+package com.hngy.cvs.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 证书批量生成任务视图对象
+ *
+ * @author CVS Team
+ */
+@Data
+@Schema(description = "证书批量生成任务")
+public class CertificateBatchJobVO {
+
+    @Schema(description = "任务ID", example = "1")
+    private Long id;
+
+    @Schema(description = "状态：0-排队中，1-生成中，2-已完成，3-失败", example = "1")
+    private Integer status;
+
+    @Schema(description = "证书总数", example = "300")
+    private Integer totalCount;
+
+    @Schema(description = "已处理数", example = "120")
+    private Integer processedCount;
+
+    @Schema(description = "生成失败数", example = "0")
+    private Integer failedCount;
+
+    @Schema(description = "进度百分比", example = "40")
+    private Integer progress;
+
+    @Schema(description = "失败原因")
+    private String lastError;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "完成时间")
+    private LocalDateTime finishedAt;
+}
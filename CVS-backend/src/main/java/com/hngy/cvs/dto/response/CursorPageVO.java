@@ -0,0 +1,18 @@
+package com.hngy.cvs.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页响应结果（键集分页，不统计总数）
+ *
+ * @param <T> 列表中元素类型
+ */
+@Data
+public class CursorPageVO<T> {
+
+    private List<T> records;   // 当前页数据列表
+    private Long nextCursor;   // 下一页游标，为空表示没有更多数据
+    private Boolean hasMore;   // 是否还有下一页
+}
@@ -0,0 +1,33 @@
+package com.hngy.cvs.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 积分流水视图对象
+ *
+ * @author CVS Team
+ */
+@Data
+@Schema(description = "积分流水信息")
+public class PointsLedgerVO {
+
+    @Schema(description = "流水ID（同时作为下一页游标）", example = "1024")
+    private Long id;
+
+    @Schema(description = "积分变动（正数为增加，负数为扣除）", example = "-30")
+    private Integer changeAmount;
+
+    @Schema(description = "变动后余额", example = "290")
+    private Integer balanceAfter;
+
+    @Schema(description = "变动类型（OPENING/AWARD/DEDUCT/REFUND）", example = "DEDUCT")
+    private String type;
+
+    @Schema(description = "变动原因", example = "兑换商品：笔记本")
+    private String reason;
+
+    @Schema(description = "变动时间")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.hngy.cvs.dto.response;
+
+import com.hngy.cvs.entity.enums.SignActionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 动态签到码种子响应
+ */
+@Data
+@Builder
+@Schema(description = "动态签到码种子响应")
+public class RotatingCodeResponse {
+
+    @Schema(description = "活动密钥（Base32编码），老师端据此按TOTP算法计算签到码", example = "MFRGGZDFMZTWQ2LKNNWG23TPOBYXE43U")
+    private String secret;
+
+    @Schema(description = "HMAC算法", example = "HmacSHA256")
+    private String algorithm;
+
+    @Schema(description = "签到码位数", example = "8")
+    private Integer digits;
+
+    @Schema(description = "时间窗口长度（秒）", example = "15")
+    private Integer stepSeconds;
+
+    @Schema(description = "二维码内容前缀，拼接当前签到码后生成二维码", example = "otp:1:SIGN_IN:")
+    private String tokenPrefix;
+
+    @Schema(description = "二维码类型", example = "SIGN_IN", allowableValues = {"SIGN_IN", "SIGN_OUT"})
+    private SignActionType action;
+}
@@ -0,0 +1,25 @@
+package com.hngy.cvs.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 活动候补视图对象
+ *
+ * @author CVS Team
+ */
+@Data
+@Schema(description = "活动候补信息")
+public class WaitlistVO {
+
+    @Schema(description = "活动ID", example = "1")
+    private Long activityId;
+
+    @Schema(description = "候补位次（从1开始）", example = "3")
+    private Long position;
+
+    @Schema(description = "加入候补时间", example = "2024-03-01T09:00:00")
+    private LocalDateTime createdAt;
+}
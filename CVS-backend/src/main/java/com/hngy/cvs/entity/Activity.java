@@ -56,6 +56,12 @@ public class Activity {
      */
     private Integer maxParticipants;
 
+    /**
+     * 已占用名额（待审核和已通过的报名数），只由名额占用/释放语句原子修改，更新实体时不写入
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer reservedCount;
+
     /**
      * 活动状态
      */
@@ -96,6 +102,12 @@ public class Activity {
      */
     private String rejectReason;
 
+    /**
+     * 动态签到码密钥随机因子，属于密钥材料，默认不查询，只由专用语句读写
+     */
+    @TableField(select = false, updateStrategy = FieldStrategy.NEVER)
+    private String rotatingNonce;
+
     /**
      * 创建时间
      */
@@ -0,0 +1,105 @@
+package com.hngy.cvs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 证书批量生成任务实体类
+ * 证书范围在创建时确定，生成结果打包为ZIP文件
+ *
+ * @author CVS Team
+ */
+@Data
+@TableName("cert_batch_job_twb")
+public class CertificateBatchJob {
+
+    /**
+     * 排队中
+     */
+    public static final int STATUS_PENDING = 0;
+
+    /**
+     * 生成中
+     */
+    public static final int STATUS_RUNNING = 1;
+
+    /**
+     * 已完成
+     */
+    public static final int STATUS_COMPLETED = 2;
+
+    /**
+     * 失败
+     */
+    public static final int STATUS_FAILED = 3;
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 状态：0-排队中，1-生成中，2-已完成，3-失败
+     */
+    private Integer status;
+
+    /**
+     * 证书ID列表（逗号分隔）
+     */
+    private String certificateIds;
+
+    /**
+     * 证书总数
+     */
+    private Integer totalCount;
+
+    /**
+     * 已处理数
+     */
+    private Integer processedCount;
+
+    /**
+     * 生成失败数
+     */
+    private Integer failedCount;
+
+    /**
+     * ZIP文件路径
+     */
+    private String filePath;
+
+    /**
+     * 失败原因
+     */
+    private String lastError;
+
+    /**
+     * 执行令牌，每次抢占时生成，心跳和完成时校验，防止被接管的任务覆盖新执行者的结果
+     */
+    private String claimToken;
+
+    /**
+     * 创建人ID
+     */
+    private Long createdBy;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishedAt;
+}
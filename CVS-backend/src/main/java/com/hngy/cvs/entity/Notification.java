@@ -29,6 +29,16 @@ public class Notification {
      */
     private NotificationType type;
 
+    /**
+     * 关联活动ID
+     */
+    private Long activityId;
+
+    /**
+     * 幂等键（类型:活动ID:用户ID），唯一索引保证同一通知只创建一次
+     */
+    private String dedupKey;
+
     /**
      * 通知标题
      */
@@ -0,0 +1,85 @@
+package com.hngy.cvs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知发件箱实体类
+ * 与业务数据在同一事务内写入，事务提交后异步投递为通知
+ *
+ * @author CVS Team
+ */
+@Data
+@TableName("notification_outbox_twb")
+public class NotificationOutbox {
+
+    /**
+     * 待投递
+     */
+    public static final int STATUS_PENDING = 0;
+
+    /**
+     * 投递中
+     */
+    public static final int STATUS_PROCESSING = 1;
+
+    /**
+     * 已投递
+     */
+    public static final int STATUS_DONE = 2;
+
+    /**
+     * 投递失败（超过最大重试次数）
+     */
+    public static final int STATUS_FAILED = 3;
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 事件类型（对应通知类型）
+     */
+    private String eventType;
+
+    /**
+     * 事件内容（JSON）
+     */
+    private String payload;
+
+    /**
+     * 状态：0-待投递，1-投递中，2-已投递，3-投递失败
+     */
+    private Integer status;
+
+    /**
+     * 重试次数
+     */
+    private Integer retryCount;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 投递完成时间
+     */
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,74 @@
+package com.hngy.cvs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 积分流水实体类
+ * 只追加不修改，每次积分变动写入一条，记录变动额和变动后余额
+ *
+ * @author CVS Team
+ */
+@Data
+@TableName("points_ledger_twb")
+public class PointsLedger {
+
+    /**
+     * 期初余额（流水启用前已有的积分）
+     */
+    public static final String TYPE_OPENING = "OPENING";
+
+    /**
+     * 发放
+     */
+    public static final String TYPE_AWARD = "AWARD";
+
+    /**
+     * 扣除
+     */
+    public static final String TYPE_DEDUCT = "DEDUCT";
+
+    /**
+     * 退还
+     */
+    public static final String TYPE_REFUND = "REFUND";
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 积分变动（正数为增加，负数为扣除）
+     */
+    private Integer changeAmount;
+
+    /**
+     * 变动后余额
+     */
+    private Integer balanceAfter;
+
+    /**
+     * 变动类型：OPENING-期初余额，AWARD-发放，DEDUCT-扣除，REFUND-退还
+     */
+    private String type;
+
+    /**
+     * 变动原因
+     */
+    private String reason;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
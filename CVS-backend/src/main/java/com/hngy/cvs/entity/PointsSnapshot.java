@@ -0,0 +1,38 @@
+package com.hngy.cvs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 积分快照实体类
+ * 记录截至某条流水的余额，重建余额时只需回放其后的流水
+ *
+ * @author CVS Team
+ */
+@Data
+@TableName("points_snapshot_twb")
+public class PointsSnapshot {
+
+    /**
+     * 用户ID
+     */
+    @TableId(type = IdType.INPUT)
+    private Long userId;
+
+    /**
+     * 截至 lastLedgerId 的余额
+     */
+    private Integer balance;
+
+    /**
+     * 已计入快照的最大流水ID
+     */
+    private Long lastLedgerId;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
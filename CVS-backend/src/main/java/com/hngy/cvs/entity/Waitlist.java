@@ -0,0 +1,44 @@
+package com.hngy.cvs.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 活动候补实体类
+ * 按ID（即加入顺序）排队，名额空出时队首自动转为待审核报名
+ *
+ * @author CVS Team
+ */
+@Data
+@TableName("waitlist_twb")
+public class Waitlist {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 活动ID
+     */
+    private Long activityId;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 报名理由，转为报名时沿用
+     */
+    private String reason;
+
+    /**
+     * 加入候补时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
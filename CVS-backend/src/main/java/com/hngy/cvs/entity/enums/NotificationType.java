@@ -17,10 +17,12 @@ public enum NotificationType {
     REGISTRATION_PENDING("REGISTRATION_PENDING", "报名待审核"),
     REGISTRATION_APPROVED("REGISTRATION_APPROVED", "报名审核通过"),
     REGISTRATION_REJECTED("REGISTRATION_REJECTED", "报名审核拒绝"),
+    WAITLIST_PROMOTED("WAITLIST_PROMOTED", "候补转为报名"),
     CHECKOUT_PENDING("CHECKOUT_PENDING", "签退待审核"),
     CHECKOUT_APPROVED("CHECKOUT_APPROVED", "签退审核通过"),
     CHECKOUT_REJECTED("CHECKOUT_REJECTED", "签退审核拒绝"),
     ACTIVITY_CANCEL("ACTIVITY_CANCEL", "活动已取消"),
+    REDEMPTION_CANCELLED("REDEMPTION_CANCELLED", "兑换已取消"),
     SYSTEM("SYSTEM", "系统通知");
 
     @EnumValue
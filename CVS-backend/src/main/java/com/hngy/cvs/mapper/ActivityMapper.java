@@ -1,5 +1,6 @@
 package com.hngy.cvs.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.hngy.cvs.dto.request.ActivitySearchDTO;
@@ -9,6 +10,7 @@ import com.hngy.cvs.entity.Activity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -31,4 +33,54 @@ public interface ActivityMapper extends BaseMapper<Activity> {
      */
     List<DailyStatisticsVO> getDailyStatistics(@Param("startDate") LocalDateTime startDate,
                                                 @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * 原子占用一个名额，名额已满时不更新
+     *
+     * @param activityId 活动ID
+     * @return 1 占用成功，0 名额已满
+     */
+    @Update("UPDATE activity_twb SET reserved_count = reserved_count + 1 " +
+            "WHERE id = #{activityId} AND reserved_count < max_participants")
+    int reserveSeat(@Param("activityId") Long activityId);
+
+    /**
+     * 查询并锁定活动行，与名额占用/释放语句互斥，读到的已占用名额在事务结束前不会变化
+     *
+     * @param activityId 活动ID
+     * @return 活动，不存在时返回 null
+     */
+    default Activity selectByIdForUpdate(Long activityId) {
+        return selectOne(new LambdaQueryWrapper<Activity>()
+                .eq(Activity::getId, activityId)
+                .last("FOR UPDATE"));
+    }
+
+    /**
+     * 释放名额
+     *
+     * @param activityId 活动ID
+     * @param count      释放数量
+     * @return 更新的行数
+     */
+    @Update("UPDATE activity_twb SET reserved_count = GREATEST(reserved_count - #{count}, 0) WHERE id = #{activityId}")
+    int releaseSeats(@Param("activityId") Long activityId, @Param("count") int count);
+
+    /**
+     * 查询动态签到码密钥随机因子
+     */
+    @Select("SELECT rotating_nonce FROM activity_twb WHERE id = #{activityId}")
+    String selectRotatingNonce(@Param("activityId") Long activityId);
+
+    /**
+     * 尚未生成时写入动态签到码密钥随机因子，并发首次获取时只有一个写入生效
+     */
+    @Update("UPDATE activity_twb SET rotating_nonce = #{nonce} WHERE id = #{activityId} AND rotating_nonce IS NULL")
+    int initRotatingNonce(@Param("activityId") Long activityId, @Param("nonce") String nonce);
+
+    /**
+     * 重置动态签到码密钥随机因子
+     */
+    @Update("UPDATE activity_twb SET rotating_nonce = #{nonce} WHERE id = #{activityId}")
+    int updateRotatingNonce(@Param("activityId") Long activityId, @Param("nonce") String nonce);
 }
@@ -0,0 +1,68 @@
+package com.hngy.cvs.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hngy.cvs.entity.CertificateBatchJob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 证书批量生成任务数据访问层
+ *
+ * @author CVS Team
+ */
+@Mapper
+public interface CertificateBatchJobMapper extends BaseMapper<CertificateBatchJob> {
+
+    /**
+     * 抢占排队中的任务并写入执行令牌（条件更新，保证同一任务只由一个实例执行）
+     */
+    @Update("UPDATE cert_batch_job_twb SET status = 1, claim_token = #{token}, processed_count = 0, failed_count = 0, " +
+            "updated_at = NOW() WHERE id = #{id} AND status = 0")
+    int claim(@Param("id") Long id, @Param("token") String token);
+
+    /**
+     * 刷新心跳，任务已被其它执行者接管时返回 0
+     */
+    @Update("UPDATE cert_batch_job_twb SET updated_at = NOW() WHERE id = #{id} AND status = 1 AND claim_token = #{token}")
+    int heartbeat(@Param("id") Long id, @Param("token") String token);
+
+    /**
+     * 更新进度，同时刷新心跳
+     */
+    @Update("UPDATE cert_batch_job_twb SET processed_count = #{processed}, failed_count = #{failed}, updated_at = NOW() " +
+            "WHERE id = #{id} AND status = 1 AND claim_token = #{token}")
+    int updateProgress(@Param("id") Long id, @Param("token") String token,
+                       @Param("processed") int processed, @Param("failed") int failed);
+
+    /**
+     * 标记任务完成（仅当前执行者可更新）
+     */
+    @Update("UPDATE cert_batch_job_twb SET status = 2, processed_count = #{processed}, failed_count = #{failed}, " +
+            "file_path = #{filePath}, finished_at = NOW() WHERE id = #{id} AND status = 1 AND claim_token = #{token}")
+    int complete(@Param("id") Long id, @Param("token") String token, @Param("processed") int processed,
+                 @Param("failed") int failed, @Param("filePath") String filePath);
+
+    /**
+     * 标记任务失败（仅当前执行者可更新）
+     */
+    @Update("UPDATE cert_batch_job_twb SET status = 3, last_error = #{error}, finished_at = NOW() " +
+            "WHERE id = #{id} AND status = 1 AND claim_token = #{token}")
+    int fail(@Param("id") Long id, @Param("token") String token, @Param("error") String error);
+
+    /**
+     * 查询排队中的任务ID
+     */
+    @Select("SELECT id FROM cert_batch_job_twb WHERE status = 0 ORDER BY id LIMIT #{limit}")
+    List<Long> selectPendingIds(@Param("limit") int limit);
+
+    /**
+     * 将心跳停止的生成中任务（进程崩溃或重启）重置为排队中
+     */
+    @Update("UPDATE cert_batch_job_twb SET status = 0 WHERE status = 1 AND updated_at < #{before}")
+    int resetStale(@Param("before") LocalDateTime before);
+}
@@ -4,9 +4,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.hngy.cvs.dto.response.CertificateVO;
 import com.hngy.cvs.entity.Certificate;
+import com.hngy.cvs.entity.enums.CertificateStatus;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * 证明数据访问层
@@ -31,4 +33,16 @@ public interface CertificateMapper extends BaseMapper<Certificate> {
      */
     IPage<CertificateVO> selectPendingCertificates(IPage<CertificateVO> page);
 
+    /**
+     * 查询指定前缀下最大的证明编号（Redis 序号丢失时用于重新播种）
+     */
+    @Select("SELECT certificate_number FROM cert_twb WHERE certificate_number LIKE CONCAT(#{prefix}, '%') " +
+            "ORDER BY LENGTH(certificate_number) DESC, certificate_number DESC LIMIT 1")
+    String selectMaxCertificateNumber(@Param("prefix") String prefix);
+
+    /**
+     * 流式导出证明记录（管理员）
+     */
+    void selectCertificatesForExport(@Param("status") CertificateStatus status, ResultHandler<CertificateVO> handler);
+
 }
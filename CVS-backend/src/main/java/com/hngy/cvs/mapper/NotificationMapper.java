@@ -83,4 +83,24 @@ public interface NotificationMapper extends BaseMapper<Notification> {
             @Param("startTime") java.time.LocalDateTime startTime,
             @Param("endTime") java.time.LocalDateTime endTime
     );
+
+    /**
+     * 查询已存在的幂等键
+     * @param keys 幂等键列表
+     * @return 其中已存在的幂等键
+     */
+    java.util.List<String> selectExistingDedupKeys(@Param("keys") java.util.Collection<String> keys);
+
+    /**
+     * 插入通知，仅幂等键唯一键冲突时跳过（ON DUPLICATE KEY UPDATE id = id），其它约束错误照常抛出。
+     * 驱动默认返回匹配行数，冲突时同样返回 1，是否已存在须先用 {@link #selectExistingDedupKeys} 判断
+     * @param notification 通知
+     */
+    int insertIfAbsent(Notification notification);
+
+    /**
+     * 多行批量插入通知，仅幂等键唯一键冲突的行被跳过，其它约束错误照常抛出
+     * @param notifications 通知列表
+     */
+    int insertBatchIfAbsent(@Param("notifications") java.util.List<Notification> notifications);
 }
@@ -0,0 +1,57 @@
+package com.hngy.cvs.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hngy.cvs.entity.NotificationOutbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知发件箱数据访问层
+ *
+ * @author CVS Team
+ */
+@Mapper
+public interface NotificationOutboxMapper extends BaseMapper<NotificationOutbox> {
+
+    /**
+     * 抢占待投递事件（条件更新，保证同一事件只被一个工作线程处理）
+     */
+    @Update("UPDATE notification_outbox_twb SET status = 1, updated_at = NOW() WHERE id = #{id} AND status = 0")
+    int claim(@Param("id") Long id);
+
+    /**
+     * 查询创建时间早于指定时间的待投递事件ID
+     */
+    @Select("SELECT id FROM notification_outbox_twb WHERE status = 0 AND created_at < #{before} ORDER BY id LIMIT #{limit}")
+    List<Long> selectPendingIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 将长时间停留在投递中的事件（工作线程异常退出）重置为待投递
+     */
+    @Update("UPDATE notification_outbox_twb SET status = 0 WHERE status = 1 AND updated_at < #{before}")
+    int resetStale(@Param("before") LocalDateTime before);
+
+    /**
+     * 统计待投递事件数
+     */
+    @Select("SELECT COUNT(*) FROM notification_outbox_twb WHERE status = 0")
+    Long countPending();
+
+    /**
+     * 查询最早的待投递事件创建时间
+     */
+    @Select("SELECT MIN(created_at) FROM notification_outbox_twb WHERE status = 0")
+    LocalDateTime selectOldestPendingCreatedAt();
+
+    /**
+     * 删除创建时间早于指定时间的已投递和投递失败事件（每次最多删除 limit 条）
+     */
+    @Delete("DELETE FROM notification_outbox_twb WHERE status IN (2, 3) AND created_at < #{before} LIMIT #{limit}")
+    int deleteFinished(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,73 @@
+package com.hngy.cvs.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hngy.cvs.entity.PointsLedger;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 积分流水数据访问层
+ *
+ * @author CVS Team
+ */
+@Mapper
+public interface PointsLedgerMapper extends BaseMapper<PointsLedger> {
+
+    /**
+     * 按游标倒序查询用户流水（键集分页，cursor 为上一页最后一条的ID，为空时从最新开始）
+     *
+     * @param userId 用户ID
+     * @param cursor 游标
+     * @param limit  条数
+     * @return 流水列表
+     */
+    List<PointsLedger> selectHistory(@Param("userId") Long userId,
+                                     @Param("cursor") Long cursor,
+                                     @Param("limit") int limit);
+
+    /**
+     * 汇总用户在指定流水ID之后的积分变动（走 user_id + id 索引的范围扫描）
+     */
+    @Select("SELECT COALESCE(SUM(change_amount), 0) FROM points_ledger_twb WHERE user_id = #{userId} AND id > #{afterId}")
+    long sumChangesAfter(@Param("userId") Long userId, @Param("afterId") long afterId);
+
+    /**
+     * 用户最新一条流水的ID（走 user_id + id 索引）
+     */
+    @Select("SELECT COALESCE(MAX(id), 0) FROM points_ledger_twb WHERE user_id = #{userId}")
+    long selectMaxIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * 用户是否有流水
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM points_ledger_twb WHERE user_id = #{userId})")
+    boolean existsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 查询指定时间之前写入的最后一条流水ID（走 created_at 索引倒序取一条）
+     */
+    @Select("SELECT id FROM points_ledger_twb WHERE created_at < #{before} ORDER BY created_at DESC, id DESC LIMIT 1")
+    Long selectMaxIdBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * 把 (fromId, toId] 区间内的流水按用户累加到快照，已计入快照的流水不会重复累加
+     *
+     * @return 影响的行数
+     */
+    int mergeIntoSnapshot(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 删除已计入快照的早期流水
+     *
+     * @param maxId 可删除的最大流水ID
+     * @param limit 单次删除上限
+     * @return 删除的行数
+     */
+    @Delete("DELETE FROM points_ledger_twb WHERE id <= #{maxId} ORDER BY id LIMIT #{limit}")
+    int deleteUpTo(@Param("maxId") long maxId, @Param("limit") int limit);
+}
@@ -1,8 +1,15 @@
 package com.hngy.cvs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hngy.cvs.dto.response.PointsRankingVO;
 import com.hngy.cvs.entity.Points;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 /**
  * 积分数据访问层
@@ -11,6 +18,69 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface PointsMapper extends BaseMapper<Points> {
-    // 继承 BaseMapper 提供的基本 CRUD 方法
-    // 所有复杂查询都在 Service 层使用 MyBatis-Plus 方法实现
-}
\ No newline at end of file
+
+    /**
+     * 分页查询积分排行榜（窗口函数计算排名）
+     */
+    List<PointsRankingVO> selectPointsRankingPage(@Param("offset") long offset, @Param("size") int size);
+
+    /**
+     * 统计参与排行的学生数
+     */
+    Long countRankedStudents();
+
+    /**
+     * 查询单个学生的排名
+     */
+    Long selectUserRanking(@Param("userId") Long userId);
+
+    /**
+     * 余额充足时扣减积分（单条条件更新，无需先查后写）
+     *
+     * @return 更新的行数，0 表示余额不足或没有积分记录
+     */
+    @Update("UPDATE points_twb SET points = points - #{points} WHERE user_id = #{userId} AND points >= #{points}")
+    int deductIfSufficient(@Param("userId") Long userId, @Param("points") int points);
+
+    /**
+     * 扣除积分，扣除后余额须不低于秒杀预占中尚未落库的积分
+     *
+     * @return 更新的行数，0 表示可用余额不足或没有积分记录
+     */
+    @Update("UPDATE points_twb SET points = points - #{points} WHERE user_id = #{userId} AND points - #{held} >= #{points}")
+    int deductIfAvailable(@Param("userId") Long userId, @Param("points") int points, @Param("held") long held);
+
+    /**
+     * 增加积分，用户尚无积分记录时创建（依赖 user_id 唯一键的单条 upsert）
+     *
+     * @return 影响的行数
+     */
+    @Insert("INSERT INTO points_twb (user_id, points) VALUES (#{userId}, #{points}) " +
+            "ON DUPLICATE KEY UPDATE points = points + #{points}")
+    int addPoints(@Param("userId") Long userId, @Param("points") int points);
+
+    /**
+     * 查询用户当前积分
+     *
+     * @return 当前积分，没有积分记录时返回 null
+     */
+    @Select("SELECT points FROM points_twb WHERE user_id = #{userId}")
+    Integer selectPointsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 查询并锁定用户积分记录，重建余额期间阻塞并发的积分变动
+     *
+     * @return 当前积分，没有积分记录时返回 null
+     */
+    @Select("SELECT points FROM points_twb WHERE user_id = #{userId} FOR UPDATE")
+    Integer selectPointsForUpdate(@Param("userId") Long userId);
+
+    /**
+     * 覆盖用户积分，用户尚无积分记录时创建
+     *
+     * @return 影响的行数
+     */
+    @Insert("INSERT INTO points_twb (user_id, points) VALUES (#{userId}, #{points}) " +
+            "ON DUPLICATE KEY UPDATE points = #{points}")
+    int upsertPoints(@Param("userId") Long userId, @Param("points") int points);
+}
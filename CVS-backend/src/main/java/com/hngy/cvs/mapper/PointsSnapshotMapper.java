@@ -0,0 +1,21 @@
+package com.hngy.cvs.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hngy.cvs.entity.PointsSnapshot;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 积分快照数据访问层
+ *
+ * @author CVS Team
+ */
+@Mapper
+public interface PointsSnapshotMapper extends BaseMapper<PointsSnapshot> {
+
+    /**
+     * 查询快照的全局水位（已计入快照的最大流水ID）
+     */
+    @Select("SELECT COALESCE(MAX(last_ledger_id), 0) FROM points_snapshot_twb")
+    long selectWatermark();
+}
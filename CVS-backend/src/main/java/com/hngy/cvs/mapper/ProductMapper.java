@@ -32,6 +32,24 @@ public interface ProductMapper extends BaseMapper<Product> {
      */
     int increaseStock(@Param("productId") Long productId);
 
+    /**
+     * 按数量扣减商品库存，库存不足时不更新
+     *
+     * @param productId 商品ID
+     * @param count     扣减数量
+     * @return 更新的行数
+     */
+    int decreaseStockBy(@Param("productId") Long productId, @Param("count") int count);
+
+    /**
+     * 按数量增加商品库存
+     *
+     * @param productId 商品ID
+     * @param count     增加数量
+     * @return 更新的行数
+     */
+    int increaseStockBy(@Param("productId") Long productId, @Param("count") int count);
+
     /**
      * 获取库存预警商品列表
      *
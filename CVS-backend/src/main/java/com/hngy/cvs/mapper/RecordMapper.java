@@ -2,11 +2,18 @@ package com.hngy.cvs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.hngy.cvs.dto.request.PointsSearchDTO;
+import com.hngy.cvs.dto.request.ServiceRecordSearchDTO;
+import com.hngy.cvs.dto.response.PointsRecordVO;
 import com.hngy.cvs.dto.response.ServiceRecordVO;
 import com.hngy.cvs.entity.RecordEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 记录数据访问层
@@ -51,4 +58,22 @@ public interface RecordMapper extends BaseMapper<RecordEntity> {
      */
     @Select("SELECT COALESCE(SUM(duration_minutes), 0) FROM record_twb WHERE user_id = #{userId}")
     Long sumDurationByUser(@Param("userId") Long userId);
+
+    /**
+     * 按用户汇总服务记录积分（排行榜重建使用）
+     */
+    @Select("SELECT user_id AS userId, COALESCE(SUM(points_earned), 0) AS totalPoints FROM record_twb GROUP BY user_id")
+    List<Map<String, Object>> sumPointsGroupByUser();
+
+    /**
+     * 流式导出服务记录（管理员）
+     */
+    void selectServiceRecordsForExport(@Param("search") ServiceRecordSearchDTO search,
+                                       ResultHandler<ServiceRecordVO> handler);
+
+    /**
+     * 流式导出积分记录（服务记录积分），附带用户当前总积分
+     */
+    void selectPointsRecordsForExport(@Param("search") PointsSearchDTO search,
+                                      ResultHandler<PointsRecordVO> handler);
 }
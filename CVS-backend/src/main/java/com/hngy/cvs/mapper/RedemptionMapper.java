@@ -6,6 +6,7 @@ import com.hngy.cvs.dto.response.RedemptionVO;
 import com.hngy.cvs.entity.Redemption;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -78,11 +79,21 @@ public interface RedemptionMapper extends BaseMapper<Redemption> {
     Long countPendingRedemptions();
 
     /**
-     * 导出兑换记录
+     * 流式导出兑换记录，逐行回调，不在内存中保留结果集
      *
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 兑换记录列表
+     * @param handler 逐行处理器
      */
-    List<RedemptionVO> selectRedemptionsForExport(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    void selectRedemptionsForExport(@Param("startDate") LocalDateTime startDate,
+                                    @Param("endDate") LocalDateTime endDate,
+                                    ResultHandler<RedemptionVO> handler);
+
+    /**
+     * 批量插入兑换记录
+     *
+     * @param list 兑换记录列表
+     * @return 插入的行数
+     */
+    int insertBatch(@Param("list") List<Redemption> list);
 }
@@ -2,12 +2,16 @@ package com.hngy.cvs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.hngy.cvs.dto.request.SignupSearchDTO;
 import com.hngy.cvs.dto.response.PendingSignStudentVO;
 import com.hngy.cvs.dto.response.SignupVO;
 import com.hngy.cvs.entity.Signup;
+import com.hngy.cvs.entity.enums.SignupStatus;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -59,4 +63,47 @@ public interface SignupMapper extends BaseMapper<Signup> {
             @Param("signedIn") Boolean signedIn,
             @Param("signedOut") Boolean signedOut
     );
+
+    /**
+     * 流式导出教师所发布活动的报名记录
+     */
+    void selectSignupsForExport(@Param("teacherId") Long teacherId,
+                                @Param("search") SignupSearchDTO search,
+                                ResultHandler<SignupVO> handler);
+
+    /**
+     * 锁定并查询指定报名中仍待审核的记录（仅包含ID、活动ID、用户ID和状态）
+     */
+    List<Signup> selectPendingForUpdate(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询活动中待审核的报名ID
+     */
+    @Select("SELECT id FROM signup_twb WHERE activity_id = #{activityId} AND status = 'PENDING' ORDER BY id")
+    List<Long> selectPendingIdsByActivity(@Param("activityId") Long activityId);
+
+    /**
+     * 批量审核待审核的报名（单条 UPDATE ... WHERE id IN (...) AND status = 'PENDING'）
+     *
+     * @return 更新的行数
+     */
+    int reviewPending(@Param("ids") List<Long> ids,
+                      @Param("status") SignupStatus status,
+                      @Param("rejectReason") String rejectReason);
+
+    /**
+     * 批量写入签到（单条 UPDATE，各行签到时间由 CASE 指定，已签到的记录不受影响）
+     *
+     * @param signups 报名记录（仅使用ID和签到时间）
+     * @return 更新的行数
+     */
+    int batchMarkSignedIn(@Param("list") List<Signup> signups);
+
+    /**
+     * 删除仍待审核的报名（条件删除，并发审核或重复取消时不删除）
+     *
+     * @return 删除的行数
+     */
+    @Delete("DELETE FROM signup_twb WHERE id = #{id} AND status = 'PENDING'")
+    int deletePendingById(@Param("id") Long id);
 }
@@ -0,0 +1,35 @@
+package com.hngy.cvs.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hngy.cvs.entity.Waitlist;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 活动候补数据访问层
+ *
+ * @author CVS Team
+ */
+@Mapper
+public interface WaitlistMapper extends BaseMapper<Waitlist> {
+
+    /**
+     * 锁定并查询活动候补队首
+     *
+     * @param activityId 活动ID
+     * @return 队首记录，队列为空时返回 null
+     */
+    @Select("SELECT * FROM waitlist_twb WHERE activity_id = #{activityId} ORDER BY id LIMIT 1 FOR UPDATE")
+    Waitlist selectHeadForUpdate(@Param("activityId") Long activityId);
+
+    /**
+     * 统计排在指定候补记录之前的人数
+     *
+     * @param activityId 活动ID
+     * @param id         候补记录ID
+     * @return 前面的人数
+     */
+    @Select("SELECT COUNT(*) FROM waitlist_twb WHERE activity_id = #{activityId} AND id < #{id}")
+    long countAhead(@Param("activityId") Long activityId, @Param("id") Long id);
+}
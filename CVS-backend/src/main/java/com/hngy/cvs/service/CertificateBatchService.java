@@ -0,0 +1,45 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.dto.request.CertificateBatchJobDTO;
+import com.hngy.cvs.dto.response.CertificateBatchJobVO;
+
+import java.nio.file.Path;
+
+/**
+ * 证书批量生成服务接口
+ * 后台按CPU核数并行渲染证书并打包为ZIP文件，可查询进度；进程中断的任务由定时任务重新执行，已渲染的证书直接读取缓存
+ *
+ * @author CVS Team
+ */
+public interface CertificateBatchService {
+
+    /**
+     * 创建批量生成任务（事务提交后开始执行）
+     *
+     * @param request 证书ID列表或筛选条件
+     * @param adminId 创建人ID
+     * @return 任务信息
+     */
+    CertificateBatchJobVO createJob(CertificateBatchJobDTO request, Long adminId);
+
+    /**
+     * 查询任务进度
+     *
+     * @param jobId 任务ID
+     * @return 任务信息
+     */
+    CertificateBatchJobVO getJob(Long jobId);
+
+    /**
+     * 获取已完成任务的ZIP文件
+     *
+     * @param jobId 任务ID
+     * @return ZIP文件路径
+     */
+    Path getJobFile(Long jobId);
+
+    /**
+     * 恢复中断的任务并执行排队中的任务
+     */
+    void dispatchPending();
+}
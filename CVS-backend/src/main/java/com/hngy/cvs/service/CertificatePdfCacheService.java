@@ -0,0 +1,32 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.service.model.CertificatePdf;
+
+/**
+ * 证书PDF缓存服务接口
+ * 以证书编号和内容摘要（模板版本 + 填充字段）为键，进程内LRU在前、文件系统在后；
+ * 模板或姓名变化时摘要随之变化，旧文件在写入新版本时清理
+ *
+ * @author CVS Team
+ */
+public interface CertificatePdfCacheService {
+
+    /**
+     * 读取缓存的PDF
+     *
+     * @param certificateNumber 证书编号
+     * @param contentHash       内容摘要
+     * @return 缓存的PDF，未命中时返回 null
+     */
+    CertificatePdf get(String certificateNumber, String contentHash);
+
+    /**
+     * 写入PDF，并删除该证书的旧版本
+     *
+     * @param certificateNumber 证书编号
+     * @param contentHash       内容摘要
+     * @param content           PDF内容
+     * @return 写入后的PDF
+     */
+    CertificatePdf put(String certificateNumber, String contentHash, byte[] content);
+}
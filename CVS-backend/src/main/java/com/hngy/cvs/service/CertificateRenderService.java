@@ -0,0 +1,28 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.entity.Certificate;
+import com.hngy.cvs.service.model.CertificatePdf;
+
+/**
+ * 证书PDF渲染服务接口
+ * 审批通过后由后台队列预先渲染并落盘，下载时只读取已渲染的文件；文件缺失时按需重新渲染
+ *
+ * @author CVS Team
+ */
+public interface CertificateRenderService {
+
+    /**
+     * 提交预渲染任务（在当前事务提交后执行），队列已满时忽略，由下载时按需渲染
+     *
+     * @param certificateId 证书ID
+     */
+    void submit(Long certificateId);
+
+    /**
+     * 获取证书PDF，已有渲染结果时直接返回，否则立即渲染；同一证书并发请求只渲染一次
+     *
+     * @param certificate 已通过审核的证书
+     * @return 证书PDF
+     */
+    CertificatePdf render(Certificate certificate);
+}
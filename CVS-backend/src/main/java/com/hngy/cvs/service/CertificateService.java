@@ -2,11 +2,17 @@ package com.hngy.cvs.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.dto.request.CertificateApprovalDTO;
 import com.hngy.cvs.dto.request.CertificateCreateDTO;
 import com.hngy.cvs.dto.response.CertificateVO;
 import com.hngy.cvs.entity.Certificate;
+import com.hngy.cvs.entity.enums.CertificateStatus;
 import com.hngy.cvs.entity.enums.UserRole;
+import com.hngy.cvs.service.model.CertificatePdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * 志愿证明服务接口
@@ -45,6 +51,13 @@ public interface  CertificateService {
      */
     IPage<CertificateVO> getAllCertificates(int page, int size);
 
+    /**
+     * 流式导出证明记录（管理员）
+     *
+     * @param status 证明状态，为空时导出全部
+     */
+    void exportCertificates(CertificateStatus status, ExportFormat format, OutputStream outputStream) throws IOException;
+
     /**
      * 获取待审核的证明记录
      */
@@ -76,12 +89,12 @@ public interface  CertificateService {
     Long countByCondition(LambdaQueryWrapper<Certificate> wrapper);
 
     /**
-     * 生成证书PDF
+     * 生成证书PDF，内容未变化时直接返回缓存
      *
      * @param certificateId 证书ID
      * @param userId 用户ID
      * @param userRole 用户角色
-     * @return PDF字节数组
+     * @return 证书PDF
      */
-    byte[] generateCertificatePdf(Long certificateId, Long userId, UserRole userRole);
+    CertificatePdf generateCertificatePdf(Long certificateId, Long userId, UserRole userRole);
 }
@@ -0,0 +1,48 @@
+package com.hngy.cvs.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 签到写缓冲服务接口
+ * 扫码签到先在Redis中原子去重并写入流，立即返回；签到时间由后台批量写入数据库，
+ * 进程崩溃时未确认的流记录由其它实例认领后重放
+ *
+ * @author CVS Team
+ */
+public interface CheckInBufferService {
+
+    /**
+     * 是否启用签到写缓冲
+     */
+    boolean isEnabled();
+
+    /**
+     * 记录一次签到
+     *
+     * @param activityId 活动ID
+     * @param userId     学生ID
+     * @param signupId   报名ID
+     * @param signInTime 签到时间
+     * @return 首次签到返回 true，已签到（尚未落库）返回 false
+     */
+    boolean accept(Long activityId, Long userId, Long signupId, LocalDateTime signInTime);
+
+    /**
+     * 查询已受理但可能尚未落库的签到时间
+     *
+     * @param activityId 活动ID
+     * @param userId     学生ID
+     * @return 签到时间，未签到时返回 null
+     */
+    LocalDateTime getBufferedSignInTime(Long activityId, Long userId);
+
+    /**
+     * 批量写入缓冲中的签到记录
+     */
+    void flush();
+
+    /**
+     * 认领长时间未确认的流记录（其它实例崩溃遗留），由下一轮写入重放
+     */
+    void claimStale();
+}
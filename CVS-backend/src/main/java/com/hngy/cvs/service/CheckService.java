@@ -7,6 +7,7 @@ import com.hngy.cvs.dto.request.CheckOutRequest;
 import com.hngy.cvs.dto.request.ReviewSearchRequest;
 import com.hngy.cvs.dto.request.SignupReviewRequest;
 import com.hngy.cvs.dto.response.PendingSignStudentVO;
+import com.hngy.cvs.dto.response.RotatingCodeResponse;
 import com.hngy.cvs.dto.response.SignTokenResponse;
 import com.hngy.cvs.dto.response.SignupReviewVO;
 import com.hngy.cvs.entity.Signup;
@@ -28,6 +29,26 @@ public interface CheckService extends IService<Signup> {
      */
     SignTokenResponse createCheckOutToken(Long activityId, Long teacherId);
 
+    /**
+     * 老师获取动态签到码种子
+     */
+    RotatingCodeResponse createCheckInRotatingCode(Long activityId, Long teacherId);
+
+    /**
+     * 老师获取动态签退码种子
+     */
+    RotatingCodeResponse createCheckOutRotatingCode(Long activityId, Long teacherId);
+
+    /**
+     * 老师重置活动的动态签到码密钥，已下发的签到和签退种子立即失效
+     */
+    void resetRotatingSecret(Long activityId, Long teacherId);
+
+    /**
+     * 老师吊销已生成的签到/签退二维码token
+     */
+    void revokeToken(Long activityId, Long teacherId, String token);
+
     /**
      * 学生扫码签到
      */
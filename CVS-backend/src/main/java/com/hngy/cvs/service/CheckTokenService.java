@@ -2,6 +2,7 @@ package com.hngy.cvs.service;
 
 import com.hngy.cvs.entity.enums.SignActionType;
 import com.hngy.cvs.service.model.CheckToken;
+import com.hngy.cvs.service.model.RotatingCodeSeed;
 
 /**
  * 二维码token生成与校验服务
@@ -19,12 +20,36 @@ public interface CheckTokenService {
     CheckToken createToken(Long activityId, SignActionType type, long ttlMinutes);
 
     /**
-     * 校验并消费token，使用后立即作废
+     * 获取活动的动态签到码种子，老师端按时间窗口本地计算签到码
+     *
+     * @param activityId 活动ID
+     * @param type       签到或签退
+     * @return 动态签到码种子
+     */
+    RotatingCodeSeed createRotatingSeed(Long activityId, SignActionType type);
+
+    /**
+     * 重置活动的动态签到码密钥，签到和签退的旧种子及签到码在本实例立即失效，其它实例在随机因子缓存过期后失效
+     *
+     * @param activityId 活动ID
+     */
+    void resetRotatingSecret(Long activityId);
+
+    /**
+     * 校验token，有效期内可被多个学生重复使用
      *
      * @param token        token字符串
      * @param expectedType 期望的类型
      * @return token信息
      */
     CheckToken consumeToken(String token, SignActionType expectedType);
+
+    /**
+     * 吊销尚未过期的token
+     *
+     * @param activityId token所属活动ID
+     * @param token      token字符串
+     */
+    void revokeToken(Long activityId, String token);
 }
 
@@ -0,0 +1,59 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.entity.Product;
+
+/**
+ * 秒杀兑换服务接口
+ * 开启秒杀的商品库存预加载到Redis，兑换时由Lua脚本原子预占库存和积分并立即返回凭证，
+ * 兑换记录、库存和积分扣减由后台批量落库，并在空闲时与数据库对账
+ *
+ * @author CVS Team
+ */
+public interface FlashSaleService {
+
+    /**
+     * 用户预占中尚未落库的积分（Hash：用户ID -> 积分），普通扣减须扣除这部分后再判断余额
+     */
+    String HELD_POINTS_KEY = "cvs:flash:held";
+
+    /**
+     * 开启商品秒杀：把数据库库存加载到Redis
+     *
+     * @param productId 商品ID
+     */
+    void start(Long productId);
+
+    /**
+     * 关闭商品秒杀，已预占的兑换仍会落库
+     *
+     * @param productId 商品ID
+     */
+    void stop(Long productId);
+
+    /**
+     * 商品是否处于秒杀模式
+     *
+     * @param productId 商品ID
+     * @return 是否处于秒杀模式
+     */
+    boolean isActive(Long productId);
+
+    /**
+     * 预占库存和积分并生成凭证；库存或积分不足时抛出业务异常
+     *
+     * @param userId  用户ID
+     * @param product 商品
+     * @return 凭证编号
+     */
+    String reserve(Long userId, Product product);
+
+    /**
+     * 批量落库待处理的预占记录
+     */
+    void persistPending();
+
+    /**
+     * 无待处理记录时以数据库库存校正Redis库存
+     */
+    void reconcile();
+}
@@ -0,0 +1,29 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.service.model.NotificationEvent;
+
+/**
+ * 通知发件箱服务接口
+ * 业务事务内只写入一条发件箱记录，事务提交后由工作线程池异步生成通知
+ */
+public interface NotificationOutboxService {
+
+    /**
+     * 在当前事务内写入通知事件，事务提交后异步投递
+     *
+     * @param event 通知事件
+     */
+    void enqueue(NotificationEvent event);
+
+    /**
+     * 投递积压的待投递事件（补偿提交后未能立即投递的事件）
+     */
+    void dispatchPending();
+
+    /**
+     * 清理超过保留期的已投递和投递失败事件
+     *
+     * @return 删除的事件数
+     */
+    int purgeFinished();
+}
@@ -0,0 +1,37 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.entity.Notification;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+
+/**
+ * 通知推送服务接口
+ * 通过SSE长连接向在线用户推送新通知和未读数变化，取代客户端定时轮询
+ *
+ * @author CVS Team
+ */
+public interface NotificationPushService {
+
+    /**
+     * 建立推送连接，连接建立后立即推送一次当前未读数
+     *
+     * @param userId 用户ID
+     * @return SSE连接
+     */
+    SseEmitter subscribe(Long userId);
+
+    /**
+     * 推送新通知及接收人最新未读数（在当前事务提交后推送）
+     *
+     * @param notification 新创建的通知
+     */
+    void pushNotification(Notification notification);
+
+    /**
+     * 推送用户最新未读数（在当前事务提交后推送）
+     *
+     * @param userIds 用户ID集合
+     */
+    void pushUnreadCount(Collection<Long> userIds);
+}
@@ -87,8 +87,9 @@ public interface NotificationService extends IService<Notification> {
      * @param activityId 活动ID
      * @param studentId 学生ID
      * @param teacherId 教师ID
+     * @param outboxId 发件箱事件ID，用于生成幂等键，重复投递不会重复创建；为空时不去重
      */
-    void sendRegistrationPendingNotification(Long activityId, Long studentId, Long teacherId);
+    void sendRegistrationPendingNotification(Long activityId, Long studentId, Long teacherId, Long outboxId);
 
     /**
      * 发送报名审核结果通知
@@ -96,8 +97,37 @@ public interface NotificationService extends IService<Notification> {
      * @param studentId 学生ID
      * @param approved 是否通过
      * @param reason 拒绝原因
+     * @param outboxId 发件箱事件ID，用于生成幂等键，重复投递不会重复创建；为空时不去重
      */
-    void sendRegistrationResultNotification(Long activityId, Long studentId, boolean approved, String reason);
+    void sendRegistrationResultNotification(Long activityId, Long studentId, boolean approved, String reason, Long outboxId);
+
+    /**
+     * 批量发送同一活动的报名审核结果通知（活动只查询一次，模板只渲染一次，分批多行插入）
+     * @param activityId 活动ID
+     * @param studentIds 学生ID列表
+     * @param approved 是否通过
+     * @param reason 拒绝原因
+     * @param outboxId 发件箱事件ID，用于生成幂等键，重复投递不会重复创建；为空时不去重
+     */
+    void sendRegistrationResultNotifications(Long activityId, List<Long> studentIds, boolean approved, String reason,
+                                             Long outboxId);
+
+    /**
+     * 发送候补转为报名通知
+     * @param activityId 活动ID
+     * @param studentId 学生ID
+     * @param outboxId 发件箱事件ID，用于生成幂等键，重复投递不会重复创建；为空时不去重
+     */
+    void sendWaitlistPromotedNotification(Long activityId, Long studentId, Long outboxId);
+
+    /**
+     * 发送兑换取消通知（秒杀兑换落库失败，积分未扣除）
+     * @param userId 用户ID
+     * @param productName 商品名称
+     * @param voucherCode 凭证编号
+     * @param reason 取消原因
+     */
+    void sendRedemptionCancelledNotification(Long userId, String productName, String voucherCode, String reason);
 
     /**
      * 发送签退审核通知
@@ -105,8 +135,10 @@ public interface NotificationService extends IService<Notification> {
      * @param studentId 学生ID
      * @param teacherId 教师ID
      * @param checkoutReason 签退原因
+     * @param outboxId 发件箱事件ID，用于生成幂等键，重复投递不会重复创建；为空时不去重
      */
-    void sendCheckoutPendingNotification(Long activityId, Long studentId, Long teacherId, String checkoutReason);
+    void sendCheckoutPendingNotification(Long activityId, Long studentId, Long teacherId, String checkoutReason,
+                                         Long outboxId);
 
     /**
      * 发送签退审核结果通知
@@ -114,8 +146,9 @@ public interface NotificationService extends IService<Notification> {
      * @param studentId 学生ID
      * @param approved 是否通过
      * @param reason 拒绝原因
+     * @param outboxId 发件箱事件ID，用于生成幂等键，重复投递不会重复创建；为空时不去重
      */
-    void sendCheckoutResultNotification(Long activityId, Long studentId, boolean approved, String reason);
+    void sendCheckoutResultNotification(Long activityId, Long studentId, boolean approved, String reason, Long outboxId);
 
     /**
      * 获取用户未读消息列表
@@ -0,0 +1,66 @@
+package com.hngy.cvs.service;
+
+import java.util.Collection;
+
+/**
+ * 未读通知计数服务接口
+ * 以带有效期的Redis计数保存每个用户的未读数，进程内近端缓存承接角标轮询；通知写入、已读、删除时同步调整，未命中或过期时从数据库重建
+ *
+ * @author CVS Team
+ */
+public interface NotificationUnreadCounterService {
+
+    /**
+     * 获取用户未读通知数量
+     *
+     * @param userId 用户ID
+     * @return 未读通知数量
+     */
+    long getUnreadCount(Long userId);
+
+    /**
+     * 跳过近端缓存读取用户未读数，并刷新近端缓存
+     *
+     * @param userId 用户ID
+     * @return 未读通知数量
+     */
+    long refreshUnreadCount(Long userId);
+
+    /**
+     * 调整用户未读数（在当前事务提交后生效），计数尚未建立时忽略，等待下次查询从数据库重建
+     *
+     * @param userId 用户ID
+     * @param delta  变化量，可为负数
+     */
+    void increment(Long userId, long delta);
+
+    /**
+     * 批量为用户未读数加一（在当前事务提交后生效）
+     *
+     * @param userIds 用户ID集合
+     */
+    void incrementAll(Collection<Long> userIds);
+
+    /**
+     * 全部已读后将用户未读数置为0（在当前事务提交后生效）；
+     * 计数与本次标记已读的数量不一致时（期间有新通知或计数已漂移）改为删除计数，下次查询时从数据库重建
+     *
+     * @param userId      用户ID
+     * @param markedCount 本次标记为已读的通知数
+     */
+    void reset(Long userId, long markedCount);
+
+    /**
+     * 失效用户计数（在当前事务提交后生效），下次查询时从数据库重建
+     *
+     * @param userIds 用户ID集合
+     */
+    void invalidate(Collection<Long> userIds);
+
+    /**
+     * 丢弃本实例近端缓存中的用户未读数，由未读数变更广播触发，使其它实例的写入立即可见
+     *
+     * @param userIds 用户ID集合
+     */
+    void evictNearCache(Collection<Long> userIds);
+}
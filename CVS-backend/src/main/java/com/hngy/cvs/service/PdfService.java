@@ -16,4 +16,11 @@ public interface PdfService {
      * @return PDF字节数组
      */
     byte[] generateCertificatePdf(Map<String, String> data);
+
+    /**
+     * 获取模板版本（模板与字体内容的摘要），模板或字体替换后随之变化
+     *
+     * @return 模板版本
+     */
+    String getTemplateVersion();
 }
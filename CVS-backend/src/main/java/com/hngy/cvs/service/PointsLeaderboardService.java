@@ -0,0 +1,59 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.dto.response.PointsRankingVO;
+
+/**
+ * 积分排行榜服务接口
+ * 基于Redis有序集合维护学生总积分，积分变动时同步，定时全量重建
+ *
+ * @author CVS Team
+ */
+public interface PointsLeaderboardService {
+
+    /**
+     * 同步单个学生的总积分（在当前事务提交后写入排行榜）
+     * 各事务的提交后写入可能乱序执行，版本低于已写入版本的总积分会被丢弃
+     *
+     * @param userId      学生ID
+     * @param totalPoints 变动后的总积分
+     * @param version     积分版本（本次变动的流水ID，无流水时为 0）
+     */
+    void syncUserPoints(Long userId, long totalPoints, long version);
+
+    /**
+     * 从排行榜中移除用户
+     *
+     * @param userId 用户ID
+     */
+    void removeUser(Long userId);
+
+    /**
+     * 从数据库全量重建排行榜
+     */
+    void rebuild();
+
+    /**
+     * 分页获取排行榜
+     *
+     * @param page 页码
+     * @param size 每页大小
+     * @return 分页的积分排行榜，排行榜未就绪或Redis不可用时返回 null
+     */
+    PageVO<PointsRankingVO> getRankingPage(int page, int size);
+
+    /**
+     * 获取学生排名（积分高于该学生的人数 + 1）
+     *
+     * @param userId 学生ID
+     * @return 排名，排行榜未就绪、Redis不可用或不在排行榜中时返回 null
+     */
+    Long getUserRanking(Long userId);
+
+    /**
+     * 排行榜是否已就绪
+     *
+     * @return 已完成至少一次全量构建且Redis可用时返回 true
+     */
+    boolean isReady();
+}
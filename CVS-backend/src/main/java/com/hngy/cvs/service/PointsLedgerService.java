@@ -0,0 +1,69 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.dto.response.CursorPageVO;
+import com.hngy.cvs.dto.response.PointsLedgerVO;
+
+/**
+ * 积分流水服务接口
+ * 积分的每次变动追加一条流水；定时把流水累加到按用户的快照，余额可由"快照 + 其后流水"回放得到
+ *
+ * @author CVS Team
+ */
+public interface PointsLedgerService {
+
+    /**
+     * 追加一条积分流水（在调用方事务内写入）
+     *
+     * @param userId       用户ID
+     * @param changeAmount 积分变动（正数为增加，负数为扣除）
+     * @param balanceAfter 变动后余额
+     * @param type         变动类型
+     * @param reason       变动原因
+     * @return 流水ID，同一用户的流水ID随积分变动的提交顺序递增
+     */
+    long append(Long userId, int changeAmount, int balanceAfter, String type, String reason);
+
+    /**
+     * 按游标分页查询用户积分流水（最新在前）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param size   每页条数
+     * @return 流水分页
+     */
+    CursorPageVO<PointsLedgerVO> getHistory(Long userId, Long cursor, int size);
+
+    /**
+     * 由快照和其后的流水回放用户余额
+     *
+     * @param userId 用户ID
+     * @return 回放得到的余额
+     */
+    int replayBalance(Long userId);
+
+    /**
+     * 用户最新一条流水的ID（流水已压缩时取快照水位）
+     *
+     * @param userId 用户ID
+     * @return 流水ID，没有流水时返回 0
+     */
+    long latestLedgerId(Long userId);
+
+    /**
+     * 用户是否有可回放的快照或流水
+     *
+     * @param userId 用户ID
+     * @return 没有任何快照和流水时返回 false
+     */
+    boolean hasHistory(Long userId);
+
+    /**
+     * 把新增流水累加到快照
+     */
+    void snapshot();
+
+    /**
+     * 删除超过保留期且已计入快照的流水
+     */
+    void compact();
+}
@@ -1,12 +1,18 @@
 package com.hngy.cvs.service;
 
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.request.PointsSearchDTO;
+import com.hngy.cvs.dto.response.CursorPageVO;
 import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.dto.response.PointsLedgerVO;
 import com.hngy.cvs.dto.response.PointsRecordVO;
 import com.hngy.cvs.dto.response.PointsStatsVO;
 import com.hngy.cvs.dto.response.PointsRankingVO;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * 积分服务接口
  *
@@ -39,13 +45,24 @@ public interface PointsService {
      */
     PageVO<PointsRecordVO> getAllPointsRecords(PageDTO<PointsSearchDTO> pageRequest);
 
+    /**
+     * 流式导出所有用户的积分记录，筛选条件与分页查询一致
+     *
+     * @param searchParams 搜索条件
+     * @param format       导出格式
+     * @param outputStream 输出流
+     * @throws IOException 写入失败
+     */
+    void exportAllPointsRecords(PointsSearchDTO searchParams, ExportFormat format, OutputStream outputStream) throws IOException;
+
     /**
      * 发放积分给用户
      *
      * @param userId 用户ID，不能为空
      * @param points 要发放的积分数量，必须大于0
+     * @param reason 发放原因
      */
-    void awardPoints(Long userId, Integer points);
+    void awardPoints(Long userId, Integer points, String reason);
 
     /**
      * 获取用户总积分
@@ -64,6 +81,16 @@ public interface PointsService {
      */
     void deductPoints(Long userId, Integer points, String reason);
 
+    /**
+     * 尝试扣除用户积分，余额不足时不扣除也不抛出异常（可在批量事务中逐条调用）
+     *
+     * @param userId 用户ID
+     * @param points 要扣除的积分数量
+     * @param reason 扣除原因
+     * @return 是否扣除成功
+     */
+    boolean tryDeductPoints(Long userId, Integer points, String reason);
+
     /**
      * 退还积分给用户
      *
@@ -72,4 +99,23 @@ public interface PointsService {
      * @param reason 退还原因
      */
     void refundPoints(Long userId, Integer points, String reason);
+
+    /**
+     * 按游标分页查询用户积分流水（最新在前）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param size   每页条数
+     * @return 流水分页
+     */
+    CursorPageVO<PointsLedgerVO> getPointsHistory(Long userId, Long cursor, int size);
+
+    /**
+     * 按积分快照和流水回放重建用户余额
+     * 用户没有任何快照和流水时拒绝重建
+     *
+     * @param userId 用户ID
+     * @return 重建后的余额
+     */
+    Integer rebuildBalance(Long userId);
 }
@@ -1,11 +1,15 @@
 package com.hngy.cvs.service;
 
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.dto.request.ServiceRecordSearchDTO;
 import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.response.ServiceRecordVO;
 import com.hngy.cvs.dto.response.ServiceStatsVO;
 import com.hngy.cvs.dto.response.PageVO;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * 记录服务接口
  * 
@@ -38,6 +42,11 @@ public interface RecordService {
      */
     PageVO<ServiceRecordVO> getAllServiceRecords(PageDTO<ServiceRecordSearchDTO> pageRequest);
 
+    /**
+     * 流式导出服务记录（管理员端），筛选条件与分页查询一致
+     */
+    void exportAllServiceRecords(ServiceRecordSearchDTO searchDTO, ExportFormat format, OutputStream outputStream) throws IOException;
+
     /**
      * 根据报名记录和评价信息创建服务记录
      */
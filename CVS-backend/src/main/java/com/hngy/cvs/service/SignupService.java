@@ -1,5 +1,6 @@
 package com.hngy.cvs.service;
 
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.request.SignupApprovalDTO;
 import com.hngy.cvs.dto.request.SignupCreateDTO;
@@ -7,6 +8,8 @@ import com.hngy.cvs.dto.request.SignupSearchDTO;
 import com.hngy.cvs.dto.response.PageVO;
 import com.hngy.cvs.dto.response.SignupVO;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -32,6 +35,11 @@ public interface SignupService {
      */
     PageVO<SignupVO> getSignupList(PageDTO<SignupSearchDTO> pageRequest, Long teacherId);
 
+    /**
+     * 流式导出报名列表，筛选条件与分页查询一致
+     */
+    void exportSignupList(SignupSearchDTO searchDTO, Long teacherId, ExportFormat format, OutputStream outputStream) throws IOException;
+
     /**
      * 获取我的报名列表
      */
@@ -57,6 +65,20 @@ public interface SignupService {
      */
     void batchRejectSignups(List<Long> signupIds, String rejectReason, Long operatorId);
 
+    /**
+     * 一键通过活动中全部待审核的报名
+     *
+     * @return 实际通过的报名数
+     */
+    int approveAllPendingSignups(Long activityId, Long operatorId);
+
+    /**
+     * 拒绝活动中全部待审核的报名（报名截止后自动拒绝用），释放名额并由候补补位
+     *
+     * @return 实际拒绝的报名数
+     */
+    int rejectAllPendingSignups(Long activityId, String rejectReason);
+
     /**
      * 获取已签到但未签退的人员列表（教师仪表盘用）
      */
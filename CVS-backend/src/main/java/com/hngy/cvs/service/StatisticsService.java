@@ -1,5 +1,6 @@
 package com.hngy.cvs.service;
 
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.dto.response.AdminDashboardStatsVO;
 import com.hngy.cvs.dto.response.ProductRankingVO;
 import com.hngy.cvs.dto.response.ProductVO;
@@ -7,6 +8,8 @@ import com.hngy.cvs.dto.response.RedemptionStatisticsVO;
 import com.hngy.cvs.dto.response.StudentDashboardStatsVO;
 import com.hngy.cvs.dto.response.TeacherDashboardStatsVO;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -72,11 +75,13 @@ public interface StatisticsService {
     com.hngy.cvs.dto.response.VerifyStatisticsVO getVerifyStatistics();
 
     /**
-     * 导出兑换记录Excel
+     * 流式导出兑换记录，边查询边写入输出流，内存占用与记录数无关
      *
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return Excel文件字节数组
+     * @param format 导出格式
+     * @param outputStream 输出流
+     * @throws IOException 写入失败
      */
-    byte[] exportRedemptions(LocalDate startDate, LocalDate endDate);
+    void exportRedemptions(LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream outputStream) throws IOException;
 }
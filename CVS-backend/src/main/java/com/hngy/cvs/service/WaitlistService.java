@@ -0,0 +1,55 @@
+package com.hngy.cvs.service;
+
+import com.hngy.cvs.dto.request.SignupCreateDTO;
+import com.hngy.cvs.dto.response.WaitlistVO;
+
+/**
+ * 活动候补服务接口
+ * 名额已满的活动可加入候补队列，名额空出时按加入顺序自动把队首转为待审核报名并通知学生，
+ * 避免重新开放报名时的集中请求
+ *
+ * @author CVS Team
+ */
+public interface WaitlistService {
+
+    /**
+     * 加入活动候补
+     *
+     * @param request 报名请求（活动ID和报名理由）
+     * @param userId  学生ID
+     * @return 候补信息
+     */
+    WaitlistVO join(SignupCreateDTO request, Long userId);
+
+    /**
+     * 退出活动候补
+     *
+     * @param activityId 活动ID
+     * @param userId     学生ID
+     */
+    void leave(Long activityId, Long userId);
+
+    /**
+     * 查询候补位次
+     *
+     * @param activityId 活动ID
+     * @param userId     学生ID
+     * @return 候补信息
+     */
+    WaitlistVO getPosition(Long activityId, Long userId);
+
+    /**
+     * 名额空出后按顺序把候补转为待审核报名，直到名额用完或队列为空；须在释放名额的事务中调用
+     *
+     * @param activityId 活动ID
+     * @return 转为报名的人数
+     */
+    int promote(Long activityId);
+
+    /**
+     * 清空活动候补（活动取消时）
+     *
+     * @param activityId 活动ID
+     */
+    void clear(Long activityId);
+}
@@ -26,6 +26,8 @@ import com.hngy.cvs.mapper.SignupMapper;
 import com.hngy.cvs.mapper.UserMapper;
 import com.hngy.cvs.service.ActivityService;
 import com.hngy.cvs.service.NotificationService;
+import com.hngy.cvs.service.WaitlistService;
+import com.hngy.cvs.service.task.ActivityLifecycleScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -51,6 +53,8 @@ public class ActivityServiceImpl implements ActivityService {
     private final SignupMapper signupMapper;
     private final UserMapper userMapper;
     private final NotificationService notificationService;
+    private final ActivityLifecycleScheduler activityLifecycleScheduler;
+    private final WaitlistService waitlistService;
 
     @Override
     @Transactional
@@ -91,6 +95,9 @@ public class ActivityServiceImpl implements ActivityService {
         // 更新活动信息
         BeanUtil.to(request, activity, "id", "organizerId", "createdAt");
         activityMapper.updateById(activity);
+        activityLifecycleScheduler.schedule(activity);
+        // 调大人数上限后由候补队列补位
+        waitlistService.promote(activity.getId());
         log.info("更新活动成功: {}", activity.getId());
 
         ActivityVO activityVO = BeanUtil.to(activity, ActivityVO.class);
@@ -117,6 +124,7 @@ public class ActivityServiceImpl implements ActivityService {
 
         // 使用MyBatis-Plus的逻辑删除功能
         activityMapper.deleteById(id);
+        activityLifecycleScheduler.unschedule(id);
         log.info("删除活动成功: {}, 操作者: {}", id, organizerId);
     }
 
@@ -274,6 +282,7 @@ public class ActivityServiceImpl implements ActivityService {
             activity.setApprovedAt(LocalDateTime.now());
             activity.setRejectReason(null);
             activityMapper.updateById(activity);
+            activityLifecycleScheduler.schedule(activity);
             log.info("学工处直接发布活动: {}, 活动ID: {}", currentUserId, id);
         } else {
             // 教师创建的活动需要提交审核
@@ -315,6 +324,7 @@ public class ActivityServiceImpl implements ActivityService {
         }
 
         activityMapper.updateById(activity);
+        activityLifecycleScheduler.schedule(activity);
 
         // 发送通知给活动创建者
         notificationService.sendActivityApprovalResultNotification(id, approved);
@@ -350,9 +360,12 @@ public class ActivityServiceImpl implements ActivityService {
         LambdaQueryWrapper<Signup> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Signup::getActivityId, id);
         int deletedCount = signupMapper.delete(wrapper);
+        activityMapper.releaseSeats(id, deletedCount);
+        waitlistService.clear(id);
 
         activity.setStatus(ActivityStatus.CANCELLED);
         activityMapper.updateById(activity);
+        activityLifecycleScheduler.unschedule(id);
         log.info("取消活动成功: {}, 已删除 {} 条相关报名记录, 操作者: {}", id, deletedCount, organizerId);
     }
 
@@ -417,6 +430,9 @@ public class ActivityServiceImpl implements ActivityService {
                     : "未知";
             vo.setOrganizerName(organizerName);
             vo.setCurrentParticipants(signupCountMap.getOrDefault(vo.getId(), 0L).intValue());
+            // 剩余名额直接取活动行上的计数，不统计报名记录
+            int reserved = vo.getReservedCount() != null ? vo.getReservedCount() : 0;
+            vo.setRemainingSeats(Math.max(vo.getMaxParticipants() - reserved, 0));
             vo.setCheckinCount(checkinCountMap.getOrDefault(vo.getId(), 0L).intValue());
             vo.setCheckoutCount(checkoutCountMap.getOrDefault(vo.getId(), 0L).intValue());
         });
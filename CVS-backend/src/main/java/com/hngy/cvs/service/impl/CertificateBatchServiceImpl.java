@@ -0,0 +1,423 @@
+package com.hngy.cvs.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hngy.cvs.common.exception.BusinessException;
+import com.hngy.cvs.common.result.ResultCode;
+import com.hngy.cvs.common.util.AssertUtils;
+import com.hngy.cvs.common.util.BeanUtil;
+import com.hngy.cvs.dto.request.CertificateBatchJobDTO;
+import com.hngy.cvs.dto.response.CertificateBatchJobVO;
+import com.hngy.cvs.entity.Certificate;
+import com.hngy.cvs.entity.CertificateBatchJob;
+import com.hngy.cvs.entity.enums.CertificateStatus;
+import com.hngy.cvs.mapper.CertificateBatchJobMapper;
+import com.hngy.cvs.mapper.CertificateMapper;
+import com.hngy.cvs.service.CertificateBatchService;
+import com.hngy.cvs.service.CertificateRenderService;
+import com.hngy.cvs.service.model.CertificatePdf;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 证书批量生成服务实现
+ * <p>
+ * 每个任务由一个协调线程执行：证书交给按CPU核数设定的渲染线程池并行渲染（每次渲染各自加载独立的PDF文档），
+ * 协调线程按完成顺序把结果写入ZIP，同时在途的证书数受限，内存占用与任务规模无关。
+ * 渲染结果经 {@link CertificateRenderService} 落盘缓存，中断的任务重新执行时已渲染的证书不再渲染。
+ * <p>
+ * 每次抢占生成新的执行令牌，心跳由独立的定时线程刷新，与渲染速度无关；心跳、进度和完成状态的更新都校验令牌，
+ * 任务一旦被其它实例接管，原执行者立即停止，临时文件按令牌区分，不会与新执行者写同一个文件。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CertificateBatchServiceImpl implements CertificateBatchService {
+
+    private static final String BATCH_DIR = "certificate-batches";
+    private static final String FAILED_LIST_ENTRY = "生成失败清单.txt";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final CertificateBatchJobMapper batchJobMapper;
+    private final CertificateMapper certificateMapper;
+    private final CertificateRenderService renderService;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${certificate.batch.pool-size:0}")
+    private int poolSize;
+
+    @Value("${certificate.batch.max-size:5000}")
+    private int maxSize;
+
+    @Value("${certificate.batch.progress-interval:20}")
+    private int progressInterval;
+
+    @Value("${certificate.batch.stale-minutes:5}")
+    private int staleMinutes;
+
+    @Value("${certificate.batch.heartbeat-seconds:30}")
+    private long heartbeatSeconds;
+
+    private ThreadPoolExecutor jobExecutor;
+    private ThreadPoolExecutor renderExecutor;
+    private ScheduledExecutorService heartbeatScheduler;
+
+    @PostConstruct
+    public void init() {
+        int renderThreads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger renderIndex = new AtomicInteger();
+        renderExecutor = new ThreadPoolExecutor(renderThreads, renderThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-batch-render-" + renderIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        poolSize = renderThreads;
+
+        // 任务逐个执行，每个任务已占满渲染线程池
+        jobExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-batch-job");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "certificate-batch-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        heartbeatScheduler.shutdownNow();
+        jobExecutor.shutdownNow();
+        renderExecutor.shutdownNow();
+    }
+
+    @Override
+    public CertificateBatchJobVO createJob(CertificateBatchJobDTO request, Long adminId) {
+        List<Long> certificateIds = resolveCertificateIds(request);
+        AssertUtils.notEmpty(certificateIds, "没有符合条件的已通过证书");
+        AssertUtils.isTrue(certificateIds.size() <= maxSize, "单次批量生成的证书不能超过" + maxSize + "份");
+
+        CertificateBatchJob job = new CertificateBatchJob();
+        job.setStatus(CertificateBatchJob.STATUS_PENDING);
+        job.setCertificateIds(certificateIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        job.setTotalCount(certificateIds.size());
+        job.setProcessedCount(0);
+        job.setFailedCount(0);
+        job.setCreatedBy(adminId);
+        batchJobMapper.insert(job);
+        log.info("创建证书批量生成任务: jobId={}, total={}, adminId={}", job.getId(), certificateIds.size(), adminId);
+
+        Long jobId = job.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(jobId);
+                }
+            });
+        } else {
+            submit(jobId);
+        }
+        return convertToVO(job);
+    }
+
+    @Override
+    public CertificateBatchJobVO getJob(Long jobId) {
+        CertificateBatchJob job = batchJobMapper.selectById(jobId);
+        if (job == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "批量生成任务不存在");
+        }
+        return convertToVO(job);
+    }
+
+    @Override
+    public Path getJobFile(Long jobId) {
+        CertificateBatchJob job = batchJobMapper.selectById(jobId);
+        if (job == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "批量生成任务不存在");
+        }
+        AssertUtils.isTrue(job.getStatus() == CertificateBatchJob.STATUS_COMPLETED, "批量生成任务尚未完成");
+
+        Path file = Paths.get(job.getFilePath());
+        if (!Files.isRegularFile(file)) {
+            throw new BusinessException(ResultCode.NOT_FOUND.getCode(), "批量生成文件不存在，请重新创建任务");
+        }
+        return file;
+    }
+
+    @Override
+    public void dispatchPending() {
+        int reset = batchJobMapper.resetStale(LocalDateTime.now().minusMinutes(staleMinutes));
+        if (reset > 0) {
+            log.warn("恢复中断的证书批量生成任务: {} 个", reset);
+        }
+        for (Long jobId : batchJobMapper.selectPendingIds(10)) {
+            if (!submit(jobId)) {
+                break;
+            }
+        }
+    }
+
+    private List<Long> resolveCertificateIds(CertificateBatchJobDTO request) {
+        LambdaQueryWrapper<Certificate> wrapper = new LambdaQueryWrapper<Certificate>()
+                .select(Certificate::getId)
+                .eq(Certificate::getStatus, CertificateStatus.APPROVED);
+        if (request.getCertificateIds() != null && !request.getCertificateIds().isEmpty()) {
+            AssertUtils.isTrue(request.getCertificateIds().size() <= maxSize, "单次批量生成的证书不能超过" + maxSize + "份");
+            wrapper.in(Certificate::getId, request.getCertificateIds());
+        } else {
+            if (request.getApprovedFrom() != null) {
+                wrapper.ge(Certificate::getApprovedAt, request.getApprovedFrom().atStartOfDay());
+            }
+            if (request.getApprovedTo() != null) {
+                wrapper.lt(Certificate::getApprovedAt, request.getApprovedTo().plusDays(1).atStartOfDay());
+            }
+        }
+        wrapper.orderByAsc(Certificate::getId);
+        return certificateMapper.selectList(wrapper).stream()
+                .map(Certificate::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 提交到任务线程，队列已满时保持排队状态，由定时任务稍后提交
+     */
+    private boolean submit(Long jobId) {
+        try {
+            jobExecutor.execute(() -> runJob(jobId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("证书批量生成任务队列已满，稍后执行: jobId={}", jobId);
+            return false;
+        }
+    }
+
+    private void runJob(Long jobId) {
+        String token = UUID.randomUUID().toString().replace("-", "");
+        if (batchJobMapper.claim(jobId, token) == 0) {
+            return;
+        }
+        CertificateBatchJob job = batchJobMapper.selectById(jobId);
+        if (job == null) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<Long> certificateIds = Arrays.stream(job.getCertificateIds().split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+        Path dir = Paths.get(uploadPath, BATCH_DIR);
+        Path target = dir.resolve(jobId + ".zip");
+        Path partFile = dir.resolve(jobId + "." + token + ".zip.part");
+
+        AtomicBoolean lost = new AtomicBoolean(false);
+        ScheduledFuture<?> heartbeat = heartbeatScheduler.scheduleWithFixedDelay(
+                () -> heartbeat(jobId, token, lost), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        try {
+            Files.createDirectories(dir);
+            List<Long> failedIds = writeZip(jobId, token, certificateIds, partFile, lost);
+            heartbeat.cancel(false);
+            if (lost.get()) {
+                throw new ClaimLostException();
+            }
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            if (batchJobMapper.complete(jobId, token, certificateIds.size(), failedIds.size(), target.toString()) == 0) {
+                log.warn("证书批量生成任务已被其它执行者接管，忽略本次结果: jobId={}", jobId);
+                return;
+            }
+            log.info("证书批量生成完成: jobId={}, total={}, failed={}, 耗时={}ms",
+                    jobId, certificateIds.size(), failedIds.size(), System.currentTimeMillis() - startTime);
+        } catch (ClaimLostException e) {
+            log.warn("证书批量生成任务已被其它执行者接管，停止执行: jobId={}", jobId);
+            deletePartFile(partFile);
+        } catch (InterruptedException e) {
+            // 进程关闭，任务保持生成中状态，心跳超时后由定时任务恢复
+            Thread.currentThread().interrupt();
+            log.warn("证书批量生成被中断，等待恢复: jobId={}", jobId);
+            deletePartFile(partFile);
+        } catch (Exception e) {
+            log.error("证书批量生成失败: jobId={}", jobId, e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            batchJobMapper.fail(jobId, token,
+                    message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            deletePartFile(partFile);
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    /**
+     * 定时刷新心跳，任务已被接管时标记失去执行权，协调线程在下一份证书处停止
+     */
+    private void heartbeat(Long jobId, String token, AtomicBoolean lost) {
+        try {
+            if (batchJobMapper.heartbeat(jobId, token) == 0) {
+                lost.set(true);
+            }
+        } catch (Exception e) {
+            // 单次心跳失败不影响任务，连续失败超过 stale-minutes 后任务会被重新执行
+            log.warn("刷新证书批量生成任务心跳失败: jobId={}, error={}", jobId, e.getMessage());
+        }
+    }
+
+    private void deletePartFile(Path partFile) {
+        try {
+            Files.deleteIfExists(partFile);
+        } catch (IOException ignored) {
+            // 残留的临时文件不影响后续执行，可人工清理
+        }
+    }
+
+    /**
+     * 并行渲染并按完成顺序写入ZIP，同时在途的证书不超过渲染线程数的两倍
+     *
+     * @return 生成失败的证书ID
+     */
+    private List<Long> writeZip(Long jobId, String token, List<Long> certificateIds, Path file, AtomicBoolean lost)
+            throws IOException, InterruptedException {
+        CompletionService<RenderResult> completionService = new ExecutorCompletionService<>(renderExecutor);
+        int window = poolSize * 2;
+        int submitted = 0;
+        int processed = 0;
+        List<Long> failedIds = new ArrayList<>();
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            // PDF 内容本身已压缩，使用最快的压缩级别
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            while (processed < certificateIds.size()) {
+                if (lost.get()) {
+                    throw new ClaimLostException();
+                }
+                while (submitted < certificateIds.size() && submitted - processed < window) {
+                    Long certificateId = certificateIds.get(submitted++);
+                    completionService.submit(() -> render(certificateId));
+                }
+
+                RenderResult result;
+                try {
+                    result = completionService.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("证书渲染任务异常", e.getCause());
+                }
+                processed++;
+
+                if (result.pdf != null) {
+                    zip.putNextEntry(new ZipEntry(result.entryName));
+                    zip.write(result.pdf.getContent());
+                    zip.closeEntry();
+                } else {
+                    failedIds.add(result.certificateId);
+                }
+
+                if (processed % progressInterval == 0
+                        && batchJobMapper.updateProgress(jobId, token, processed, failedIds.size()) == 0) {
+                    throw new ClaimLostException();
+                }
+            }
+
+            if (!failedIds.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(FAILED_LIST_ENTRY));
+                String content = failedIds.stream().map(id -> "证书ID: " + id).collect(Collectors.joining("\r\n"));
+                zip.write(content.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return failedIds;
+    }
+
+    /**
+     * 渲染单个证书；证书已不存在或状态变化时记为失败，不中断整个任务
+     */
+    private RenderResult render(Long certificateId) {
+        try {
+            Certificate certificate = certificateMapper.selectById(certificateId);
+            if (certificate == null || certificate.getStatus() != CertificateStatus.APPROVED) {
+                log.warn("批量生成跳过证书（不存在或未通过审核）: certificateId={}", certificateId);
+                return new RenderResult(certificateId, null, null);
+            }
+            CertificatePdf pdf = renderService.render(certificate);
+            return new RenderResult(certificateId, certificate.getCertificateNumber() + "_" + pdf.getFilename(), pdf);
+        } catch (Exception e) {
+            log.warn("批量生成证书失败: certificateId={}, error={}", certificateId, e.getMessage());
+            return new RenderResult(certificateId, null, null);
+        }
+    }
+
+    private CertificateBatchJobVO convertToVO(CertificateBatchJob job) {
+        CertificateBatchJobVO vo = BeanUtil.to(job, CertificateBatchJobVO.class);
+        int total = job.getTotalCount() != null ? job.getTotalCount() : 0;
+        int processed = job.getProcessedCount() != null ? job.getProcessedCount() : 0;
+        vo.setProgress(total > 0 ? processed * 100 / total : 0);
+        return vo;
+    }
+
+    private static final class RenderResult {
+        private final Long certificateId;
+        private final String entryName;
+        private final CertificatePdf pdf;
+
+        private RenderResult(Long certificateId, String entryName, CertificatePdf pdf) {
+            this.certificateId = certificateId;
+            this.entryName = entryName;
+            this.pdf = pdf;
+        }
+    }
+
+    /**
+     * 任务已被其它执行者接管
+     */
+    private static final class ClaimLostException extends RuntimeException {
+        private ClaimLostException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.hngy.cvs.service.impl;
+
+import com.hngy.cvs.service.CertificatePdfCacheService;
+import com.hngy.cvs.service.model.CertificatePdf;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 证书PDF缓存服务实现
+ * <p>
+ * 文件存放在 {@code ${file.upload.path}/certificates/<证书编号>/<内容摘要>.pdf}，写入先落临时文件再原子改名，
+ * 多实例共享上传目录时同样适用。进程内按访问顺序保留最近使用的PDF，总字节数超过上限时淘汰最久未用的条目。
+ * 缓存读写失败只记录日志，由调用方重新渲染。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+public class CertificatePdfCacheServiceImpl implements CertificatePdfCacheService {
+
+    private static final String CACHE_DIR = "certificates";
+    private static final String FILE_SUFFIX = ".pdf";
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${certificate.pdf-cache.memory-max-bytes:33554432}")
+    private long memoryMaxBytes;
+
+    /**
+     * 证书编号 -> 最近一次渲染结果，按访问顺序排列
+     */
+    private final LinkedHashMap<String, CertificatePdf> memoryCache = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    @Override
+    public CertificatePdf get(String certificateNumber, String contentHash) {
+        if (!isSafe(certificateNumber) || !isSafe(contentHash)) {
+            return null;
+        }
+
+        CertificatePdf cached = getFromMemory(certificateNumber, contentHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path file = resolveFile(certificateNumber, contentHash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            CertificatePdf pdf = CertificatePdf.builder()
+                    .content(Files.readAllBytes(file))
+                    .contentHash(contentHash)
+                    .lastModified(Files.getLastModifiedTime(file).toMillis())
+                    .build();
+            putToMemory(certificateNumber, pdf);
+            return pdf;
+        } catch (IOException e) {
+            log.warn("读取证书PDF缓存失败: certificateNumber={}, error={}", certificateNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public CertificatePdf put(String certificateNumber, String contentHash, byte[] content) {
+        CertificatePdf pdf = CertificatePdf.builder()
+                .content(content)
+                .contentHash(contentHash)
+                .lastModified(System.currentTimeMillis())
+                .build();
+        if (!isSafe(certificateNumber) || !isSafe(contentHash)) {
+            return pdf;
+        }
+
+        Path file = resolveFile(certificateNumber, contentHash);
+        try {
+            Path dir = file.getParent();
+            Files.createDirectories(dir);
+            Path tempFile = Files.createTempFile(dir, contentHash, ".tmp");
+            try {
+                Files.write(tempFile, content);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            pdf.setLastModified(Files.getLastModifiedTime(file).toMillis());
+            deleteStaleVersions(dir, file);
+        } catch (IOException e) {
+            log.warn("写入证书PDF缓存失败: certificateNumber={}, error={}", certificateNumber, e.getMessage());
+        }
+
+        putToMemory(certificateNumber, pdf);
+        return pdf;
+    }
+
+    /**
+     * 模板或姓名变化后旧摘要的文件不会再被访问，写入新版本时一并删除
+     */
+    private void deleteStaleVersions(Path dir, Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理旧版本证书PDF失败: dir={}, error={}", dir, e.getMessage());
+        }
+    }
+
+    private synchronized CertificatePdf getFromMemory(String certificateNumber, String contentHash) {
+        CertificatePdf cached = memoryCache.get(certificateNumber);
+        if (cached == null) {
+            return null;
+        }
+        if (!contentHash.equals(cached.getContentHash())) {
+            memoryCache.remove(certificateNumber);
+            memoryBytes -= cached.getContent().length;
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void putToMemory(String certificateNumber, CertificatePdf pdf) {
+        if (pdf.getContent().length > memoryMaxBytes) {
+            return;
+        }
+        CertificatePdf previous = memoryCache.put(certificateNumber, pdf);
+        if (previous != null) {
+            memoryBytes -= previous.getContent().length;
+        }
+        memoryBytes += pdf.getContent().length;
+
+        Iterator<Map.Entry<String, CertificatePdf>> iterator = memoryCache.entrySet().iterator();
+        while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, CertificatePdf> eldest = iterator.next();
+            memoryBytes -= eldest.getValue().getContent().length;
+            iterator.remove();
+        }
+    }
+
+    private Path resolveFile(String certificateNumber, String contentHash) {
+        return Paths.get(uploadPath, CACHE_DIR, certificateNumber, contentHash + FILE_SUFFIX);
+    }
+
+    private boolean isSafe(String name) {
+        return name != null && SAFE_NAME.matcher(name).matches();
+    }
+}
@@ -0,0 +1,197 @@
+package com.hngy.cvs.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.hngy.cvs.common.util.AssertUtils;
+import com.hngy.cvs.entity.Certificate;
+import com.hngy.cvs.entity.User;
+import com.hngy.cvs.entity.enums.CertificateStatus;
+import com.hngy.cvs.mapper.CertificateMapper;
+import com.hngy.cvs.mapper.UserMapper;
+import com.hngy.cvs.service.CertificatePdfCacheService;
+import com.hngy.cvs.service.CertificateRenderService;
+import com.hngy.cvs.service.PdfService;
+import com.hngy.cvs.service.model.CertificatePdf;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 证书PDF渲染服务实现
+ * <p>
+ * 渲染结果由 {@link CertificatePdfCacheService} 落盘保存。预渲染使用有界线程池，队列满时直接放弃，
+ * 不影响审批；按需渲染与预渲染共用进行中的任务，避免批量审批后集中下载时重复渲染同一证书。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CertificateRenderServiceImpl implements CertificateRenderService {
+
+    private final CertificateMapper certificateMapper;
+    private final UserMapper userMapper;
+    private final PdfService pdfService;
+    private final CertificatePdfCacheService pdfCacheService;
+
+    @Value("${certificate.render.pool-size:2}")
+    private int poolSize;
+
+    @Value("${certificate.render.queue-capacity:500}")
+    private int queueCapacity;
+
+    /**
+     * 进行中的渲染任务，键为 "证书编号:内容摘要"
+     */
+    private final Map<String, CompletableFuture<CertificatePdf>> inFlight = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-render-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void submit(Long certificateId) {
+        if (certificateId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(certificateId);
+                }
+            });
+        } else {
+            enqueue(certificateId);
+        }
+    }
+
+    @Override
+    public CertificatePdf render(Certificate certificate) {
+        AssertUtils.isTrue(certificate.getStatus() == CertificateStatus.APPROVED, "证书尚未通过审核，无法生成");
+
+        User user = userMapper.selectById(certificate.getUserId());
+        AssertUtils.notNull(user, "用户不存在");
+
+        Map<String, String> data = new HashMap<>();
+        data.put("name", user.getName());
+        data.put("username", user.getUsername());
+        data.put("serial", certificate.getCertificateNumber());
+        data.put("issueDate", formatDate(certificate.getApprovedAt()));
+
+        CertificatePdf pdf = loadOrRender(certificate.getCertificateNumber(), computeContentHash(data), data);
+        return CertificatePdf.builder()
+                .content(pdf.getContent())
+                .contentHash(pdf.getContentHash())
+                .lastModified(pdf.getLastModified())
+                .filename("志愿服务证书_" + user.getUsername() + ".pdf")
+                .build();
+    }
+
+    private void enqueue(Long certificateId) {
+        try {
+            executor.execute(() -> preRender(certificateId));
+        } catch (RejectedExecutionException e) {
+            log.warn("证书渲染队列已满，改为下载时渲染: certificateId={}", certificateId);
+        }
+    }
+
+    private void preRender(Long certificateId) {
+        try {
+            Certificate certificate = certificateMapper.selectById(certificateId);
+            if (certificate == null || certificate.getStatus() != CertificateStatus.APPROVED) {
+                return;
+            }
+            render(certificate);
+            log.debug("证书预渲染完成: certificateId={}", certificateId);
+        } catch (Exception e) {
+            log.warn("证书预渲染失败，改为下载时渲染: certificateId={}, error={}", certificateId, e.getMessage());
+        }
+    }
+
+    /**
+     * 优先读取已落盘的渲染结果；缺失时渲染，同一内容的并发请求等待首个请求的结果
+     */
+    private CertificatePdf loadOrRender(String certificateNumber, String contentHash, Map<String, String> data) {
+        CertificatePdf cached = pdfCacheService.get(certificateNumber, contentHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        String key = certificateNumber + ":" + contentHash;
+        CompletableFuture<CertificatePdf> created = new CompletableFuture<>();
+        CompletableFuture<CertificatePdf> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+
+        try {
+            CertificatePdf pdf = pdfCacheService.get(certificateNumber, contentHash);
+            if (pdf == null) {
+                pdf = pdfCacheService.put(certificateNumber, contentHash, pdfService.generateCertificatePdf(data));
+            }
+            created.complete(pdf);
+            return pdf;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * 以模板版本和全部填充字段计算内容摘要，模板替换或姓名修改后摘要随之变化
+     */
+    private String computeContentHash(Map<String, String> data) {
+        String source = String.join("\n",
+                pdfService.getTemplateVersion(),
+                data.get("serial"),
+                data.get("name"),
+                data.get("username"),
+                data.get("issueDate"));
+        return DigestUtil.sha256Hex(source).substring(0, 32);
+    }
+
+    private String formatDate(LocalDateTime dateTime) {
+        if (dateTime == null) return "";
+        return dateTime.format(DateTimeFormatter.ofPattern("yyyy年MM月dd日"));
+    }
+}
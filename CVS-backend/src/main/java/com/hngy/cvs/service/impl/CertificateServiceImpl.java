@@ -3,6 +3,9 @@ package com.hngy.cvs.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportColumn;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.exception.BusinessException;
 import com.hngy.cvs.common.result.ResultCode;
 import com.hngy.cvs.common.util.AssertUtils;
@@ -13,15 +16,23 @@ import com.hngy.cvs.dto.response.CertificateVO;
 import com.hngy.cvs.entity.Certificate;
 import com.hngy.cvs.entity.enums.CertificateStatus;
 import com.hngy.cvs.mapper.CertificateMapper;
+import com.hngy.cvs.service.CertificateRenderService;
 import com.hngy.cvs.service.CertificateService;
+import com.hngy.cvs.service.model.CertificatePdf;
 import com.hngy.cvs.service.strategy.EligibilityResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 志愿证明服务实现类
@@ -35,8 +46,43 @@ public class CertificateServiceImpl implements CertificateService {
 
     private final CertificateMapper certificateMapper;
     private final com.hngy.cvs.service.strategy.CertificateEligibilityStrategy eligibilityStrategy;
-    private final com.hngy.cvs.service.PdfService pdfService;
     private final com.hngy.cvs.mapper.UserMapper userMapper;
+    private final CertificateRenderService renderService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private static final String NUMBER_PREFIX = "CVS";
+    private static final String NUMBER_SEQ_KEY_PREFIX = "cvs:certificate:seq:";
+
+    /**
+     * 按天递增证明编号序号：计数不存在时（新的一天或Redis数据丢失）以 ARGV[1] 播种，
+     * 未提供种子时返回 -1 由调用方查询数据库后重试；播种使用 NX，多实例并发播种时只有一个生效
+     */
+    private static final DefaultRedisScript<Long> NEXT_SEQUENCE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "  if ARGV[1] == '' then return -1 end\n" +
+            "  redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2], 'NX')\n" +
+            "end\n" +
+            "return redis.call('INCR', KEYS[1])",
+            Long.class);
+
+    /**
+     * 证明记录导出列
+     */
+    private static final List<ExportColumn<CertificateVO>> CERTIFICATE_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("证明编号", 24, CertificateVO::getCertificateNumber),
+            ExportColumn.of("学生姓名", 12, CertificateVO::getName),
+            ExportColumn.of("学号", 16, CertificateVO::getUsername),
+            ExportColumn.of("申请目的", 30, CertificateVO::getPurpose),
+            ExportColumn.of("服务开始日期", 14, CertificateVO::getStartDate),
+            ExportColumn.of("服务结束日期", 14, CertificateVO::getEndDate),
+            ExportColumn.of("完成活动数", 12, vo -> vo.getStatistics() != null ? vo.getStatistics().getCompletedActivityCount() : null),
+            ExportColumn.of("服务时长（小时）", 16, vo -> vo.getStatistics() != null ? vo.getStatistics().getTotalServiceHours() : null),
+            ExportColumn.of("状态", 10, vo -> vo.getStatus() != null ? vo.getStatus().getDescription() : null),
+            ExportColumn.of("拒绝原因", 30, CertificateVO::getRejectReason),
+            ExportColumn.of("审批人", 12, CertificateVO::getApproverName),
+            ExportColumn.of("审批时间", 20, CertificateVO::getApprovedAt),
+            ExportColumn.of("申请时间", 20, CertificateVO::getCreatedAt)
+    );
 
     @Override
     @Transactional
@@ -103,6 +149,11 @@ public class CertificateServiceImpl implements CertificateService {
 
         certificateMapper.updateById(certificate);
         log.info("审批证明申请 {} 成功，状态: {}", request.getCertificateId(), request.getStatus());
+
+        // 提交后在后台预渲染PDF，避免集中下载时才渲染
+        if (request.getStatus() == CertificateStatus.APPROVED) {
+            renderService.submit(certificate.getId());
+        }
     }
 
     @Override
@@ -193,11 +244,46 @@ public class CertificateServiceImpl implements CertificateService {
     public String generateCertificateNumber() {
         // 生成格式：CVS + 年月日 + 5位序号
         String dateStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        String prefix = NUMBER_PREFIX + dateStr;
 
-        // 这里简化处理，实际应该查询当天的最大序号
-        long sequence = System.currentTimeMillis() % 100000;
+        return String.format("%s%05d", prefix, nextDailySequence(prefix));
+    }
+
+    /**
+     * 获取当天的下一个序号：Redis 原子递增，编号连续有序，每个编号只需一次 Redis 调用；
+     * 仅在当天首次分配或计数丢失时查询一次数据库中的最大编号。Redis 不可用时退化为数据库最大编号加一，
+     * 并发冲突由证明编号唯一索引拦截
+     */
+    private long nextDailySequence(String prefix) {
+        String key = NUMBER_SEQ_KEY_PREFIX + prefix;
+        String ttlSeconds = String.valueOf(2 * 24 * 3600);
+        try {
+            Long sequence = stringRedisTemplate.execute(NEXT_SEQUENCE_SCRIPT,
+                    Collections.singletonList(key), "", ttlSeconds);
+            if (sequence == null || sequence < 0) {
+                sequence = stringRedisTemplate.execute(NEXT_SEQUENCE_SCRIPT,
+                        Collections.singletonList(key), String.valueOf(maxSequenceInDatabase(prefix)), ttlSeconds);
+            }
+            AssertUtils.notNull(sequence, "证明编号生成失败");
+            return sequence;
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Redis分配证明编号失败，改用数据库最大编号: prefix={}, error={}", prefix, e.getMessage());
+            return maxSequenceInDatabase(prefix) + 1;
+        }
+    }
 
-        return String.format("CVS%s%05d", dateStr, sequence);
+    private long maxSequenceInDatabase(String prefix) {
+        String maxNumber = certificateMapper.selectMaxCertificateNumber(prefix);
+        if (maxNumber == null || maxNumber.length() <= prefix.length()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(maxNumber.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
     }
 
     @Override
@@ -206,7 +292,7 @@ public class CertificateServiceImpl implements CertificateService {
     }
 
     @Override
-    public byte[] generateCertificatePdf(Long certificateId, Long userId, com.hngy.cvs.entity.enums.UserRole userRole) {
+    public CertificatePdf generateCertificatePdf(Long certificateId, Long userId, com.hngy.cvs.entity.enums.UserRole userRole) {
         // 1. 验证权限
         validateCertificateAccess(certificateId, userId, userRole);
         
@@ -220,19 +306,8 @@ public class CertificateServiceImpl implements CertificateService {
             "证书尚未通过审核，无法生成"
         );
         
-        // 4. 获取用户信息
-        com.hngy.cvs.entity.User user = userMapper.selectById(certificate.getUserId());
-        com.hngy.cvs.common.util.AssertUtils.notNull(user, "用户不存在");
-        
-        // 5. 准备PDF数据
-        java.util.Map<String, String> data = new java.util.HashMap<>();
-        data.put("name", user.getName());
-        data.put("username", user.getUsername());
-        data.put("serial", certificate.getCertificateNumber());
-        data.put("issueDate", formatDate(certificate.getApprovedAt()));
-        
-        // 6. 调用PdfService生成PDF
-        return pdfService.generateCertificatePdf(data);
+        // 4. 读取预渲染的PDF，缺失时立即渲染
+        return renderService.render(certificate);
     }
 
     /**
@@ -258,11 +333,6 @@ public class CertificateServiceImpl implements CertificateService {
         );
     }
 
-    private String formatDate(LocalDateTime dateTime) {
-        if (dateTime == null) return "";
-        return dateTime.format(DateTimeFormatter.ofPattern("yyyy年MM月dd日"));
-    }
-
     private CertificateVO convertToVO(Certificate certificate) {
         CertificateVO vo = BeanUtil.to(certificate, CertificateVO.class);
         
@@ -285,4 +355,11 @@ public class CertificateServiceImpl implements CertificateService {
         
         return vo;
     }
+
+    @Override
+    public void exportCertificates(CertificateStatus status, ExportFormat format,
+                                   OutputStream outputStream) throws IOException {
+        DataExporter.export(format, "志愿证明", CERTIFICATE_EXPORT_COLUMNS,
+                handler -> certificateMapper.selectCertificatesForExport(status, handler), outputStream);
+    }
 }
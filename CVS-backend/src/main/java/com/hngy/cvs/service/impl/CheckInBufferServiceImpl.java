@@ -0,0 +1,232 @@
+package com.hngy.cvs.service.impl;
+
+import com.hngy.cvs.entity.Signup;
+import com.hngy.cvs.mapper.SignupMapper;
+import com.hngy.cvs.service.CheckInBufferService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签到写缓冲服务实现
+ * <p>
+ * 受理签到时由Lua脚本原子执行 {@code SET NX}（按活动+学生去重，值为签到时间）和 {@code XADD}，
+ * 保证受理的签到一定在流中。后台按消费组读取流，每批执行一条多行 UPDATE 后确认并删除流记录；
+ * 写入失败的记录留在本实例的待确认列表中，下一轮重放，实例崩溃遗留的记录由其它实例认领。
+ * UPDATE 只更新未签到的记录，重放是幂等的。
+ * 键使用独立前缀 {@code cvs:checkin-buffer:}，不与旧版二维码token的 {@code cvs:checkin:{token}} 重叠。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckInBufferServiceImpl implements CheckInBufferService {
+
+    private static final String KEY_PREFIX = "cvs:checkin-buffer:";
+    private static final String DEDUP_KEY_PREFIX = KEY_PREFIX + "signed:";
+    private static final String STREAM_KEY = KEY_PREFIX + "stream";
+    private static final String GROUP = "checkin-flusher";
+    private static final String FIELD_SIGNUP_ID = "signupId";
+    private static final String FIELD_SIGN_IN_TIME = "signInTime";
+
+    /**
+     * 受理签到：KEYS = 去重键、流；ARGV = 签到时间（毫秒）、去重键有效期（秒）、报名ID。
+     * 首次签到返回 1，已签到返回 0
+     */
+    private static final DefaultRedisScript<Long> ACCEPT_SCRIPT = new DefaultRedisScript<>(
+            "if not redis.call('SET', KEYS[1], ARGV[1], 'NX', 'EX', ARGV[2]) then return 0 end\n" +
+            "redis.call('XADD', KEYS[2], '*', '" + FIELD_SIGNUP_ID + "', ARGV[3], '" + FIELD_SIGN_IN_TIME + "', ARGV[1])\n" +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SignupMapper signupMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${checkin.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${checkin.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${checkin.write-behind.dedup-ttl-hours:24}")
+    private long dedupTtlHours;
+
+    @Value("${checkin.write-behind.claim-idle-ms:30000}")
+    private long claimIdleMs;
+
+    /**
+     * 本实例在消费组中的名称，重启后使用新名称，旧名称下的记录由认领任务接管
+     */
+    private final String consumerName = "flusher-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private Timer flushLatencyTimer;
+    private Timer batchTimer;
+    private Counter flushedCounter;
+
+    @PostConstruct
+    public void init() {
+        flushLatencyTimer = Timer.builder("checkin.flush.latency")
+                .description("签到从受理到写入数据库的耗时")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("checkin.flush.batch")
+                .description("每批签到写入数据库的耗时")
+                .register(meterRegistry);
+        flushedCounter = Counter.builder("checkin.flush.rows")
+                .description("批量写入数据库的签到数")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForStream().createGroup(STREAM_KEY, ReadOffset.from("0"), GROUP);
+        } catch (Exception e) {
+            // 消费组已存在（BUSYGROUP）
+            log.debug("签到流消费组已存在: {}", e.getMessage());
+        }
+        log.info("签到写缓冲已启用: consumer={}, batchSize={}", consumerName, batchSize);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean accept(Long activityId, Long userId, Long signupId, LocalDateTime signInTime) {
+        Long result = stringRedisTemplate.execute(ACCEPT_SCRIPT,
+                List.of(dedupKey(activityId, userId), STREAM_KEY),
+                String.valueOf(toEpochMilli(signInTime)),
+                String.valueOf(Duration.ofHours(dedupTtlHours).toSeconds()),
+                String.valueOf(signupId));
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public LocalDateTime getBufferedSignInTime(Long activityId, Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        String value = stringRedisTemplate.opsForValue().get(dedupKey(activityId, userId));
+        return value != null ? toLocalDateTime(Long.parseLong(value)) : null;
+    }
+
+    @Override
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        // 先重放本实例已读取但未确认的记录（上一轮写入失败或刚认领的），再读取新记录
+        List<MapRecord<String, Object, Object>> records = read(ReadOffset.from("0"));
+        while (!records.isEmpty()) {
+            persist(records);
+            records = read(ReadOffset.from("0"));
+        }
+        do {
+            records = read(ReadOffset.lastConsumed());
+            if (!records.isEmpty()) {
+                persist(records);
+            }
+        } while (records.size() >= batchSize);
+    }
+
+    @Override
+    public void claimStale() {
+        if (!enabled) {
+            return;
+        }
+        PendingMessages pending = stringRedisTemplate.opsForStream()
+                .pending(STREAM_KEY, GROUP, Range.unbounded(), batchSize);
+        List<RecordId> staleIds = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (!consumerName.equals(message.getConsumerName())
+                    && message.getElapsedTimeSinceLastDelivery().toMillis() >= claimIdleMs) {
+                staleIds.add(message.getId());
+            }
+        }
+        if (staleIds.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.opsForStream().claim(STREAM_KEY, GROUP, consumerName,
+                Duration.ofMillis(claimIdleMs), staleIds.toArray(new RecordId[0]));
+        log.warn("认领其它实例遗留的签到记录: count={}", staleIds.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, Object, Object>> read(ReadOffset offset) {
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().read(
+                Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(batchSize),
+                StreamOffset.create(STREAM_KEY, offset));
+        return records != null ? records : List.of();
+    }
+
+    private void persist(List<MapRecord<String, Object, Object>> records) {
+        List<Signup> signups = new ArrayList<>(records.size());
+        RecordId[] ids = new RecordId[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            MapRecord<String, Object, Object> record = records.get(i);
+            ids[i] = record.getId();
+            try {
+                Signup signup = new Signup();
+                signup.setId(Long.valueOf(String.valueOf(record.getValue().get(FIELD_SIGNUP_ID))));
+                signup.setSignInTime(toLocalDateTime(Long.parseLong(String.valueOf(record.getValue().get(FIELD_SIGN_IN_TIME)))));
+                signups.add(signup);
+            } catch (NumberFormatException e) {
+                log.error("丢弃格式错误的签到记录: id={}, value={}", record.getId(), record.getValue());
+            }
+        }
+
+        if (!signups.isEmpty()) {
+            long start = System.nanoTime();
+            int updated = signupMapper.batchMarkSignedIn(signups);
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            flushedCounter.increment(updated);
+            LocalDateTime now = LocalDateTime.now();
+            for (Signup signup : signups) {
+                flushLatencyTimer.record(Duration.between(signup.getSignInTime(), now));
+            }
+            log.debug("批量写入签到: records={}, updated={}", signups.size(), updated);
+        }
+
+        stringRedisTemplate.opsForStream().acknowledge(STREAM_KEY, GROUP, ids);
+        stringRedisTemplate.opsForStream().delete(STREAM_KEY, ids);
+    }
+
+    private String dedupKey(Long activityId, Long userId) {
+        return DEDUP_KEY_PREFIX + activityId + ":" + userId;
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
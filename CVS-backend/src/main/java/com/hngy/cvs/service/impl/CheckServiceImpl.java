@@ -12,23 +12,28 @@ import com.hngy.cvs.dto.request.CheckOutRequest;
 import com.hngy.cvs.dto.request.ReviewSearchRequest;
 import com.hngy.cvs.dto.request.SignupReviewRequest;
 import com.hngy.cvs.dto.response.PendingSignStudentVO;
+import com.hngy.cvs.dto.response.RotatingCodeResponse;
 import com.hngy.cvs.dto.response.SignTokenResponse;
 import com.hngy.cvs.dto.response.SignupReviewVO;
 import com.hngy.cvs.entity.Activity;
 import com.hngy.cvs.entity.Signup;
 import com.hngy.cvs.entity.User;
 import com.hngy.cvs.entity.enums.ActivityStatus;
+import com.hngy.cvs.entity.enums.NotificationType;
 import com.hngy.cvs.entity.enums.SignActionType;
 import com.hngy.cvs.entity.enums.SignupStatus;
 import com.hngy.cvs.mapper.ActivityMapper;
 import com.hngy.cvs.mapper.SignupMapper;
 import com.hngy.cvs.mapper.UserMapper;
+import com.hngy.cvs.service.CheckInBufferService;
 import com.hngy.cvs.service.CheckService;
 import com.hngy.cvs.service.CheckTokenService;
-import com.hngy.cvs.service.NotificationService;
+import com.hngy.cvs.service.NotificationOutboxService;
 import com.hngy.cvs.service.PointsService;
 import com.hngy.cvs.service.RecordService;
 import com.hngy.cvs.service.model.CheckToken;
+import com.hngy.cvs.service.model.NotificationEvent;
+import com.hngy.cvs.service.model.RotatingCodeSeed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -51,9 +56,10 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
     private final ActivityMapper activityMapper;
     private final UserMapper userMapper;
     private final CheckTokenService checkTokenService;
+    private final CheckInBufferService checkInBufferService;
     private final RecordService recordService;
     private final PointsService pointsService;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
 
     @Override
     @Transactional(readOnly = true)
@@ -71,19 +77,58 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
         return toResponse(token);
     }
 
+    /**
+     * 首次获取种子时会为活动生成密钥随机因子，不能使用只读事务
+     */
+    @Override
+    @Transactional
+    public RotatingCodeResponse createCheckInRotatingCode(Long activityId, Long teacherId) {
+        Activity activity = validateActivityForToken(activityId, teacherId);
+        return toResponse(checkTokenService.createRotatingSeed(activity.getId(), SignActionType.SIGN_IN));
+    }
+
     @Override
     @Transactional
+    public RotatingCodeResponse createCheckOutRotatingCode(Long activityId, Long teacherId) {
+        Activity activity = validateActivityForToken(activityId, teacherId);
+        return toResponse(checkTokenService.createRotatingSeed(activity.getId(), SignActionType.SIGN_OUT));
+    }
+
+    @Override
+    public void resetRotatingSecret(Long activityId, Long teacherId) {
+        Activity activity = validateActivityForToken(activityId, teacherId);
+        checkTokenService.resetRotatingSecret(activity.getId());
+    }
+
+    @Override
+    public void revokeToken(Long activityId, Long teacherId, String token) {
+        Activity activity = validateActivityForToken(activityId, teacherId);
+        checkTokenService.revokeToken(activity.getId(), token);
+    }
+
+    /**
+     * 只有一次查询和至多一条单行更新，不开启事务，避免签到高峰时每次扫码占用一个数据库事务
+     */
+    @Override
     public void checkIn(Long studentId, CheckInRequest request) {
         CheckToken token = checkTokenService.consumeToken(request.getToken(), SignActionType.SIGN_IN);
         Signup signup = fetchApprovedSignup(token.getActivityId(), studentId);
 
         AssertUtils.isFalse(Boolean.TRUE.equals(signup.getSignedIn()), ResultCode.ALREADY_SIGNED_IN);
 
+        if (checkInBufferService.isEnabled()) {
+            // 写缓冲模式：Redis去重受理后立即返回，签到时间由后台批量落库
+            boolean accepted = checkInBufferService.accept(token.getActivityId(), studentId, signup.getId(), LocalDateTime.now());
+            AssertUtils.isTrue(accepted, ResultCode.ALREADY_SIGNED_IN);
+            log.debug("Student {} check-in to activity {} buffered", studentId, token.getActivityId());
+            return;
+        }
+
         signup.setSignedIn(true);
         signup.setSignInTime(LocalDateTime.now());
         this.updateById(signup);
 
-        log.info("Student {} checked in to activity {} via token {}", studentId, token.getActivityId(), request.getToken());
+        log.debug("Student {} checked in to activity {}", studentId, token.getActivityId());
     }
 
     @Override
@@ -92,6 +137,14 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
         CheckToken token = checkTokenService.consumeToken(request.getToken(), SignActionType.SIGN_OUT);
         Signup signup = fetchApprovedSignup(token.getActivityId(), studentId);
 
+        if (!Boolean.TRUE.equals(signup.getSignedIn())) {
+            // 签到可能尚在写缓冲中，以受理时的签到时间补齐，批量落库时会跳过已签到的记录
+            LocalDateTime bufferedSignInTime = checkInBufferService.getBufferedSignInTime(token.getActivityId(), studentId);
+            if (bufferedSignInTime != null) {
+                signup.setSignedIn(true);
+                signup.setSignInTime(bufferedSignInTime);
+            }
+        }
         AssertUtils.isTrue(Boolean.TRUE.equals(signup.getSignedIn()), ResultCode.NOT_SIGNED_IN);
         AssertUtils.isFalse(Boolean.TRUE.equals(signup.getSignedOut()), ResultCode.ALREADY_SIGNED_OUT);
 
@@ -109,19 +162,18 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
 
         // 发送签退审核通知给教师
         // 需求: 3.1 - WHEN 学生提交签退申请, THE CVS系统 SHALL 向活动发起人发送签退待审核通知
-        try {
-            Activity activity = activityMapper.selectById(token.getActivityId());
-            if (activity != null) {
-                String checkoutReason = request.getStudentEvaluation(); // 使用学生自评作为签退原因
-                notificationService.sendCheckoutPendingNotification(
-                        token.getActivityId(), studentId, activity.getOrganizerId(), checkoutReason);
-            }
-        } catch (Exception e) {
-            log.error("发送签退审核通知失败: activityId={}, studentId={}", 
-                    token.getActivityId(), studentId, e);
+        Activity activity = activityMapper.selectById(token.getActivityId());
+        if (activity != null) {
+            notificationOutboxService.enqueue(NotificationEvent.builder()
+                    .type(NotificationType.CHECKOUT_PENDING)
+                    .activityId(token.getActivityId())
+                    .studentId(studentId)
+                    .teacherId(activity.getOrganizerId())
+                    .reason(request.getStudentEvaluation()) // 使用学生自评作为签退原因
+                    .build());
         }
 
-        log.info("Student {} checked out from activity {} via token {}", studentId, token.getActivityId(), request.getToken());
+        log.debug("Student {} checked out from activity {}", studentId, token.getActivityId());
     }
 
     @Override
@@ -159,16 +211,14 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
         // 发送签退审核结果通知给学生
         // 需求: 5.1, 5.2 - 签退审核结果通知
         if (firstFinalize) {
-            try {
-                // 如果教师评分大于等于3分，认为是通过，否则是拒绝
-                boolean approved = request.getTeacherRating() >= 3;
-                String reason = approved ? null : request.getTeacherEvaluation();
-                notificationService.sendCheckoutResultNotification(
-                        activity.getId(), signup.getUserId(), approved, reason);
-            } catch (Exception e) {
-                log.error("发送签退审核结果通知失败: signupId={}, studentId={}", 
-                        signupId, signup.getUserId(), e);
-            }
+            // 如果教师评分大于等于3分，认为是通过，否则是拒绝
+            boolean approved = request.getTeacherRating() >= 3;
+            notificationOutboxService.enqueue(NotificationEvent.builder()
+                    .type(approved ? NotificationType.CHECKOUT_APPROVED : NotificationType.CHECKOUT_REJECTED)
+                    .activityId(activity.getId())
+                    .studentId(signup.getUserId())
+                    .reason(approved ? null : request.getTeacherEvaluation())
+                    .build());
         }
 
         log.info("Teacher {} reviewed signup {} with rating {}", teacherId, signupId, request.getTeacherRating());
@@ -229,7 +279,7 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
         int newPoints = computeAwardPoints(activity.getPoints(), currentRating);
         if (firstFinalize) {
             if (newPoints > 0) {
-                pointsService.awardPoints(signup.getUserId(), newPoints);
+                pointsService.awardPoints(signup.getUserId(), newPoints, "参与活动：" + activity.getTitle());
             }
             return;
         }
@@ -238,7 +288,7 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
             int previousPoints = computeAwardPoints(activity.getPoints(), previousRating);
             int delta = newPoints - previousPoints;
             if (delta > 0) {
-                pointsService.awardPoints(signup.getUserId(), delta);
+                pointsService.awardPoints(signup.getUserId(), delta, "活动评分提高补发：" + activity.getTitle());
             }
         }
     }
@@ -366,4 +416,15 @@ public class CheckServiceImpl extends ServiceImpl<SignupMapper, Signup> implemen
                 .action(token.getType())
                 .build();
     }
+
+    private RotatingCodeResponse toResponse(RotatingCodeSeed seed) {
+        return RotatingCodeResponse.builder()
+                .secret(seed.getSecret())
+                .algorithm(seed.getAlgorithm())
+                .digits(seed.getDigits())
+                .stepSeconds(seed.getStepSeconds())
+                .tokenPrefix(seed.getTokenPrefix())
+                .action(seed.getType())
+                .build();
+    }
 }
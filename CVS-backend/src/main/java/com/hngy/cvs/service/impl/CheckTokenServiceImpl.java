@@ -1,23 +1,53 @@
 package com.hngy.cvs.service.impl;
 
+import cn.hutool.core.codec.Base32;
+import cn.hutool.core.util.StrUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hngy.cvs.common.result.ResultCode;
 import com.hngy.cvs.common.util.AssertUtils;
 import com.hngy.cvs.entity.enums.SignActionType;
+import com.hngy.cvs.mapper.ActivityMapper;
 import com.hngy.cvs.service.CheckTokenService;
 import com.hngy.cvs.service.model.CheckToken;
+import com.hngy.cvs.service.model.RotatingCodeSeed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
- * 基于Redis的一次性二维码token服务实现
+ * 二维码token服务实现
+ * <p>
+ * 默认使用签名token：{@code base64url(活动ID:类型:到期秒:随机串).base64url(HMAC-SHA256)}，
+ * 活动、类型和有效期都在token内，校验只做一次本地HMAC计算，不访问Redis；
+ * 开启吊销校验时额外查询一次该token是否被吊销。
+ * 不含 "." 的旧token仍按Redis存储方式校验，保证切换前生成的二维码在有效期内可用。
+ * <p>
+ * 动态签到码模式下，token为 {@code otp:活动ID:类型:签到码}。签到码按 RFC 6238（HmacSHA256）由活动密钥和
+ * 当前时间窗口计算，老师端本地刷新，服务端只接受当前和上一个窗口的签到码，不保存任何token状态；
+ * 活动密钥由签名密钥和活动上保存的随机因子派生，老师重置随机因子即可作废已泄露的种子。
+ * 随机因子在进程内短时缓存，扫码不逐次查询数据库；重置时清除本实例缓存，其它实例在缓存过期后生效。
  */
 @Slf4j
 @Service
@@ -27,16 +57,336 @@ public class CheckTokenServiceImpl implements CheckTokenService {
     private static final long DEFAULT_TTL_MINUTES = 5L;
     private static final long MIN_TTL_MINUTES = 1L;
     private static final String KEY_PREFIX = "cvs:checkin:";
+    private static final String REVOKED_KEY_PREFIX = "cvs:checkin:revoked:";
+    private static final String MODE_SIGNED = "signed";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final char SIGNATURE_SEPARATOR = '.';
+    private static final String FIELD_SEPARATOR = ":";
+    private static final int NONCE_BYTES = 8;
+    private static final int ROTATING_NONCE_BYTES = 16;
+    private static final String ROTATING_PREFIX = "otp:";
+    private static final int MIN_STEP_SECONDS = 10;
+    private static final int MAX_STEP_SECONDS = 30;
+    private static final int NONCE_CACHE_PRUNE_SIZE = 10000;
+    private static final int[] DIGITS_POWER = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000};
+
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
     private final StringRedisTemplate stringRedisTemplate;
     private final ObjectMapper objectMapper;
+    private final ActivityMapper activityMapper;
+
+    /**
+     * token模式：signed（签名token，本地校验）或 redis（旧方式，token存于Redis）
+     */
+    @Value("${checkin.token.mode:signed}")
+    private String mode;
+
+    /**
+     * 签名密钥，未配置时由 jwt.secret 派生
+     */
+    @Value("${checkin.token.secret:}")
+    private String secret;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    /**
+     * 校验签名token时是否查询吊销记录
+     */
+    @Value("${checkin.token.revocation-check:false}")
+    private boolean revocationCheck;
+
+    /**
+     * 动态签到码时间窗口（秒），限制在 10-30 秒
+     */
+    @Value("${checkin.rotating.step-seconds:15}")
+    private int stepSeconds;
+
+    /**
+     * 动态签到码位数
+     */
+    @Value("${checkin.rotating.digits:8}")
+    private int digits;
+
+    /**
+     * 随机因子进程内缓存有效期（秒），即重置后其它实例仍接受旧签到码的最长时间
+     */
+    @Value("${checkin.rotating.nonce-cache-seconds:10}")
+    private long nonceCacheSeconds;
+
+    private final Map<Long, CachedNonce> nonceCache = new ConcurrentHashMap<>();
+
+    private SecretKeySpec signingKey;
+
+    /**
+     * Mac 实例非线程安全，每个线程持有一份
+     */
+    private ThreadLocal<Mac> macHolder;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (StrUtil.isNotBlank(secret)) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            keyBytes = sha256("cvs-checkin:" + jwtSecret);
+        }
+        signingKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        macHolder = ThreadLocal.withInitial(this::newMac);
+        // 启动时初始化一次，密钥或算法不可用时尽早失败
+        macHolder.get();
+        stepSeconds = Math.min(Math.max(stepSeconds, MIN_STEP_SECONDS), MAX_STEP_SECONDS);
+        AssertUtils.isTrue(digits >= 6 && digits < DIGITS_POWER.length, "动态签到码位数须在6-8之间: " + digits);
+        log.info("二维码token服务初始化完成: mode={}, revocationCheck={}, rotatingStep={}s",
+                mode, revocationCheck, stepSeconds);
+    }
 
     @Override
     public CheckToken createToken(Long activityId, SignActionType type, long ttlMinutes) {
-        long effectiveTtl = ttlMinutes > 0 ? ttlMinutes : DEFAULT_TTL_MINUTES;
+        long effectiveTtl = Math.max(ttlMinutes > 0 ? ttlMinutes : DEFAULT_TTL_MINUTES, MIN_TTL_MINUTES);
+        if (MODE_SIGNED.equalsIgnoreCase(mode)) {
+            return createSignedToken(activityId, type, effectiveTtl);
+        }
+        return createRedisToken(activityId, type, effectiveTtl);
+    }
+
+    @Override
+    public RotatingCodeSeed createRotatingSeed(Long activityId, SignActionType type) {
+        return RotatingCodeSeed.builder()
+                .activityId(activityId)
+                .type(type)
+                .secret(Base32.encode(activitySecret(activityId, type, obtainRotatingNonce(activityId))))
+                .algorithm(HMAC_ALGORITHM)
+                .digits(digits)
+                .stepSeconds(stepSeconds)
+                .tokenPrefix(rotatingPrefix(activityId, type))
+                .build();
+    }
+
+    @Override
+    public void resetRotatingSecret(Long activityId) {
+        activityMapper.updateRotatingNonce(activityId, newRotatingNonce());
+        nonceCache.remove(activityId);
+        log.info("动态签到码密钥已重置: activityId={}", activityId);
+    }
+
+    @Override
+    public CheckToken consumeToken(String token, SignActionType expectedType) {
+        AssertUtils.notEmpty(token, ResultCode.TOKEN_INVALID);
+
+        CheckToken checkToken;
+        if (token.startsWith(ROTATING_PREFIX)) {
+            checkToken = verifyRotatingCode(token);
+        } else if (token.indexOf(SIGNATURE_SEPARATOR) >= 0) {
+            checkToken = verifySignedToken(token);
+        } else {
+            checkToken = loadRedisToken(token);
+        }
+
+        AssertUtils.isTrue(checkToken.getType() == expectedType, ResultCode.TOKEN_INVALID);
+        AssertUtils.isTrue(checkToken.getActivityId() != null, ResultCode.TOKEN_INVALID);
+        AssertUtils.isTrue(checkToken.getExpiresAt() == null || checkToken.getExpiresAt().isAfter(LocalDateTime.now()),
+                ResultCode.TOKEN_EXPIRED);
+        log.debug("二维码token校验通过: activityId={}, type={}", checkToken.getActivityId(), checkToken.getType());
+        return checkToken;
+    }
+
+    @Override
+    public void revokeToken(Long activityId, String token) {
+        AssertUtils.notEmpty(token, ResultCode.TOKEN_INVALID);
+        AssertUtils.isFalse(token.startsWith(ROTATING_PREFIX), "动态签到码无需吊销，过期窗口自动失效");
+
+        if (token.indexOf(SIGNATURE_SEPARATOR) < 0) {
+            CheckToken checkToken = loadRedisToken(token);
+            AssertUtils.isTrue(activityId.equals(checkToken.getActivityId()), ResultCode.TOKEN_INVALID);
+            stringRedisTemplate.delete(buildKey(token));
+            return;
+        }
+
+        AssertUtils.isTrue(revocationCheck, "未开启二维码吊销校验，无法吊销签名token");
+        CheckToken checkToken = verifySignedToken(token);
+        AssertUtils.isTrue(activityId.equals(checkToken.getActivityId()), ResultCode.TOKEN_INVALID);
+
+        long remainingSeconds = checkToken.getExpiresAt().atZone(ZoneId.systemDefault()).toEpochSecond()
+                - Instant.now().getEpochSecond();
+        if (remainingSeconds > 0) {
+            // 吊销记录只需保留到token自然过期
+            stringRedisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + nonceOf(token), "1",
+                    remainingSeconds, TimeUnit.SECONDS);
+        }
+        log.info("二维码token已吊销: activityId={}, type={}", activityId, checkToken.getType());
+    }
+
+    private CheckToken createSignedToken(Long activityId, SignActionType type, long ttlMinutes) {
+        long expiresAtSeconds = Instant.now().getEpochSecond() + TimeUnit.MINUTES.toSeconds(ttlMinutes);
+        byte[] nonce = new byte[NONCE_BYTES];
+        ThreadLocalRandom.current().nextBytes(nonce);
+
+        String payload = String.join(FIELD_SEPARATOR,
+                String.valueOf(activityId), type.name(), String.valueOf(expiresAtSeconds), HexFormat.of().formatHex(nonce));
+        String encodedPayload = BASE64_ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        String token = encodedPayload + SIGNATURE_SEPARATOR + BASE64_ENCODER.encodeToString(sign(encodedPayload));
+
+        return CheckToken.builder()
+                .token(token)
+                .activityId(activityId)
+                .type(type)
+                .expiresAt(toLocalDateTime(expiresAtSeconds))
+                .build();
+    }
 
+    /**
+     * 校验签名并解析token内容，签名或格式不正确时抛出 TOKEN_INVALID
+     */
+    private CheckToken verifySignedToken(String token) {
+        int separator = token.lastIndexOf(SIGNATURE_SEPARATOR);
+        String encodedPayload = token.substring(0, separator);
+        String[] fields = null;
+        try {
+            byte[] signature = BASE64_DECODER.decode(token.substring(separator + 1));
+            if (MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                fields = new String(BASE64_DECODER.decode(encodedPayload), StandardCharsets.UTF_8)
+                        .split(FIELD_SEPARATOR);
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("二维码token格式错误: {}", e.getMessage());
+        }
+        AssertUtils.isTrue(fields != null && fields.length == 4, ResultCode.TOKEN_INVALID);
+
+        CheckToken checkToken;
+        try {
+            checkToken = CheckToken.builder()
+                    .token(token)
+                    .activityId(Long.valueOf(fields[0]))
+                    .type(SignActionType.valueOf(fields[1]))
+                    .expiresAt(toLocalDateTime(Long.parseLong(fields[2])))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            AssertUtils.fail(ResultCode.TOKEN_INVALID);
+            return null;
+        }
+
+        if (revocationCheck) {
+            AssertUtils.isFalse(Boolean.TRUE.equals(stringRedisTemplate.hasKey(REVOKED_KEY_PREFIX + fields[3])),
+                    ResultCode.TOKEN_INVALID);
+        }
+        return checkToken;
+    }
+
+    /**
+     * 校验动态签到码，接受当前和上一个时间窗口，窗口交界处扫码不会失败
+     */
+    private CheckToken verifyRotatingCode(String token) {
+        String[] fields = token.substring(ROTATING_PREFIX.length()).split(FIELD_SEPARATOR);
+        AssertUtils.isTrue(fields.length == 3 && fields[2].length() == digits, ResultCode.TOKEN_INVALID);
+
+        Long activityId;
+        SignActionType type;
+        try {
+            activityId = Long.valueOf(fields[0]);
+            type = SignActionType.valueOf(fields[1]);
+        } catch (IllegalArgumentException e) {
+            AssertUtils.fail(ResultCode.TOKEN_INVALID);
+            return null;
+        }
+
+        String nonce = cachedRotatingNonce(activityId);
+        AssertUtils.notEmpty(nonce, ResultCode.TOKEN_INVALID);
+        byte[] secretBytes = activitySecret(activityId, type, nonce);
+        byte[] submitted = fields[2].getBytes(StandardCharsets.US_ASCII);
+        long counter = Instant.now().getEpochSecond() / stepSeconds;
+        for (long window = counter; window >= counter - 1; window--) {
+            if (MessageDigest.isEqual(submitted, rotatingCode(secretBytes, window).getBytes(StandardCharsets.US_ASCII))) {
+                return CheckToken.builder()
+                        .token(token)
+                        .activityId(activityId)
+                        .type(type)
+                        .expiresAt(toLocalDateTime((window + 2) * stepSeconds))
+                        .build();
+            }
+        }
+        AssertUtils.fail(ResultCode.TOKEN_EXPIRED);
+        return null;
+    }
+
+    /**
+     * 活动密钥 = HMAC(签名密钥, "otp:活动ID:类型:随机因子")，重置随机因子作废该活动的种子，更换签名密钥即全部失效
+     */
+    private byte[] activitySecret(Long activityId, SignActionType type, String nonce) {
+        return sign(rotatingPrefix(activityId, type) + nonce);
+    }
+
+    /**
+     * 读取活动的随机因子，首次获取种子时生成
+     */
+    private String obtainRotatingNonce(Long activityId) {
+        String nonce = activityMapper.selectRotatingNonce(activityId);
+        if (StrUtil.isNotEmpty(nonce)) {
+            return nonce;
+        }
+        activityMapper.initRotatingNonce(activityId, newRotatingNonce());
+        // 并发生成时以先写入的为准
+        return activityMapper.selectRotatingNonce(activityId);
+    }
+
+    /**
+     * 扫码校验时读取随机因子，命中进程内缓存时不访问数据库；尚未生成的随机因子不缓存，生成后立即可用
+     */
+    private String cachedRotatingNonce(Long activityId) {
+        long now = System.currentTimeMillis();
+        CachedNonce cached = nonceCache.get(activityId);
+        if (cached != null && cached.expireAt > now) {
+            return cached.nonce;
+        }
+        String nonce = activityMapper.selectRotatingNonce(activityId);
+        if (StrUtil.isEmpty(nonce)) {
+            nonceCache.remove(activityId);
+            return nonce;
+        }
+        if (nonceCache.size() >= NONCE_CACHE_PRUNE_SIZE) {
+            nonceCache.values().removeIf(entry -> entry.expireAt <= now);
+        }
+        nonceCache.put(activityId, new CachedNonce(nonce, now + TimeUnit.SECONDS.toMillis(nonceCacheSeconds)));
+        return nonce;
+    }
+
+    private static String newRotatingNonce() {
+        byte[] nonce = new byte[ROTATING_NONCE_BYTES];
+        SECURE_RANDOM.nextBytes(nonce);
+        return HexFormat.of().formatHex(nonce);
+    }
+
+    /**
+     * RFC 4226 动态截断，计数器为时间窗口序号
+     */
+    private String rotatingCode(byte[] secretBytes, long counter) {
+        byte[] hash;
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secretBytes, HMAC_ALGORITHM));
+            hash = mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(counter).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("计算动态签到码失败", e);
+        }
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        String code = String.valueOf(binary % DIGITS_POWER[digits]);
+        return "0".repeat(digits - code.length()) + code;
+    }
+
+    private static String rotatingPrefix(Long activityId, SignActionType type) {
+        return ROTATING_PREFIX + activityId + FIELD_SEPARATOR + type.name() + FIELD_SEPARATOR;
+    }
+
+    private CheckToken createRedisToken(Long activityId, SignActionType type, long ttlMinutes) {
         String token = UUID.randomUUID().toString().replace("-", "");
-        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(effectiveTtl);
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
         CheckToken checkToken = CheckToken.builder()
                 .token(token)
                 .activityId(activityId)
@@ -46,7 +396,7 @@ public class CheckTokenServiceImpl implements CheckTokenService {
 
         try {
             String payload = objectMapper.writeValueAsString(checkToken);
-            stringRedisTemplate.opsForValue().set(buildKey(token), payload, effectiveTtl, TimeUnit.MINUTES);
+            stringRedisTemplate.opsForValue().set(buildKey(token), payload, ttlMinutes, TimeUnit.MINUTES);
             log.debug("Generated {} token {} for activity {} expiring at {}", type, token, activityId, expiresAt);
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize check token for activity {}", activityId, e);
@@ -56,47 +406,16 @@ public class CheckTokenServiceImpl implements CheckTokenService {
         return checkToken;
     }
 
-    @Override
-    public CheckToken consumeToken(String token, SignActionType expectedType) {
-        log.info("=== 开始验证token ===");
-        log.info("Token: {}", token);
-        log.info("期望类型: {}", expectedType);
-        
-        AssertUtils.notEmpty(token, ResultCode.TOKEN_INVALID);
-
-        String key = buildKey(token);
-        log.info("Redis Key: {}", key);
-        
-        // 只获取token，不删除，允许在有效期内重复使用
-        String payload = stringRedisTemplate.opsForValue().get(key);
-        log.info("从Redis获取的payload: {}", payload);
-        
-        if (payload == null || payload.isEmpty()) {
-            log.warn("Token不存在或已过期: {}", token);
-        }
-        
+    /**
+     * 读取Redis中的旧token，只读不删，允许在有效期内被多个学生使用
+     */
+    private CheckToken loadRedisToken(String token) {
+        String payload = stringRedisTemplate.opsForValue().get(buildKey(token));
         AssertUtils.notEmpty(payload, ResultCode.TOKEN_INVALID);
-        
-        // 注释掉删除操作，允许token在有效期内被多个学生使用
-        // stringRedisTemplate.delete(key);
 
         try {
             CheckToken checkToken = objectMapper.readValue(payload, CheckToken.class);
-            log.info("解析后的CheckToken: {}", checkToken);
-            
             AssertUtils.notNull(checkToken, ResultCode.TOKEN_INVALID);
-            
-            log.info("Token类型: {}, 期望类型: {}", checkToken.getType(), expectedType);
-            AssertUtils.isTrue(checkToken.getType() == expectedType, ResultCode.TOKEN_INVALID);
-            
-            log.info("ActivityId: {}", checkToken.getActivityId());
-            AssertUtils.isTrue(checkToken.getActivityId() != null, ResultCode.TOKEN_INVALID);
-            
-            log.info("过期时间: {}, 当前时间: {}", checkToken.getExpiresAt(), LocalDateTime.now());
-            AssertUtils.isTrue(checkToken.getExpiresAt() == null || checkToken.getExpiresAt().isAfter(LocalDateTime.now()),
-                    ResultCode.TOKEN_EXPIRED);
-            
-            log.info("=== Token验证成功 ===");
             return checkToken;
         } catch (JsonProcessingException e) {
             log.error("Failed to deserialize check token {}", token, e);
@@ -105,7 +424,49 @@ public class CheckTokenServiceImpl implements CheckTokenService {
         return null;
     }
 
+    private byte[] sign(String encodedPayload) {
+        return macHolder.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化二维码token签名失败", e);
+        }
+    }
+
+    private String nonceOf(String token) {
+        String encodedPayload = token.substring(0, token.lastIndexOf(SIGNATURE_SEPARATOR));
+        String payload = new String(BASE64_DECODER.decode(encodedPayload), StandardCharsets.UTF_8);
+        return payload.substring(payload.lastIndexOf(FIELD_SEPARATOR) + 1);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+
     private String buildKey(String token) {
         return KEY_PREFIX + token;
     }
+
+    private static final class CachedNonce {
+        private final String nonce;
+        private final long expireAt;
+
+        private CachedNonce(String nonce, long expireAt) {
+            this.nonce = nonce;
+            this.expireAt = expireAt;
+        }
+    }
 }
@@ -0,0 +1,597 @@
+package com.hngy.cvs.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hngy.cvs.common.util.AssertUtils;
+import com.hngy.cvs.common.util.VoucherCodeGenerator;
+import com.hngy.cvs.entity.Product;
+import com.hngy.cvs.entity.Redemption;
+import com.hngy.cvs.entity.enums.NotificationType;
+import com.hngy.cvs.entity.enums.ProductStatus;
+import com.hngy.cvs.entity.enums.RedemptionStatus;
+import com.hngy.cvs.mapper.ProductMapper;
+import com.hngy.cvs.mapper.RedemptionMapper;
+import com.hngy.cvs.service.FlashSaleService;
+import com.hngy.cvs.service.NotificationOutboxService;
+import com.hngy.cvs.service.PointsService;
+import com.hngy.cvs.service.model.FlashSaleReservation;
+import com.hngy.cvs.service.model.NotificationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 秒杀兑换服务实现
+ * <p>
+ * 兑换请求只访问Redis：Lua脚本原子地扣减Redis库存、累加用户预占积分并把预占记录推入待落库队列。
+ * 后台任务持有分布式锁后把队列中的记录移入处理中列表（持锁期间按心跳续期，续期失败时在下一组商品前停止），按商品分组在一个事务内批量扣减数据库库存、
+ * 逐条条件扣减积分并批量插入兑换记录，提交后再释放预占积分、从处理中列表移除。
+ * 进程中断时处理中列表的记录会在下次落库时重新入队，凭证编号唯一，已落库的记录不会重复处理。
+ * 数据库库存和积分的扣减都带条件，Redis计数出现偏差也不会超卖或透支，空闲时由对账任务以数据库库存校正Redis库存。
+ * 落库时库存或积分不足的预占写入已取消的兑换记录并通知用户；数据库暂不可用以外的异常按凭证计数，
+ * 超过重试上限的记录撤销预占、通知用户并移入死信列表，不会无限重试。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+public class FlashSaleServiceImpl implements FlashSaleService {
+
+    private static final String STOCK_KEY_PREFIX = "cvs:flash:stock:";
+    private static final String PRODUCTS_KEY = "cvs:flash:products";
+    private static final String QUEUE_KEY = "cvs:flash:queue";
+    private static final String PROCESSING_KEY = "cvs:flash:processing";
+    private static final String ATTEMPTS_KEY = "cvs:flash:attempts";
+    private static final String DEAD_LETTER_KEY = "cvs:flash:dead";
+    private static final String LOCK_KEY = "cvs:flash:persist-lock";
+
+    private static final long RESULT_NOT_ACTIVE = -1L;
+    private static final long RESULT_OUT_OF_STOCK = -2L;
+    private static final long RESULT_INSUFFICIENT_POINTS = -3L;
+
+    /**
+     * 预占：KEYS = 库存、预占积分、待落库队列；ARGV = 用户ID、数据库积分余额、所需积分、预占记录。
+     * 返回剩余库存，-1 未开启秒杀，-2 库存不足，-3 积分不足（数据库余额减去尚未落库的预占积分）
+     */
+    private static final DefaultRedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local stock = redis.call('GET', KEYS[1])\n" +
+            "if not stock then return -1 end\n" +
+            "if tonumber(stock) <= 0 then return -2 end\n" +
+            "local held = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')\n" +
+            "if tonumber(ARGV[2]) - held < tonumber(ARGV[3]) then return -3 end\n" +
+            "redis.call('HINCRBY', KEYS[2], ARGV[1], ARGV[3])\n" +
+            "redis.call('LPUSH', KEYS[3], ARGV[4])\n" +
+            "return redis.call('DECR', KEYS[1])",
+            Long.class);
+
+    /**
+     * 释放预占积分，归零时删除字段
+     */
+    private static final DefaultRedisScript<Long> RELEASE_POINTS_SCRIPT = new DefaultRedisScript<>(
+            "local left = redis.call('HINCRBY', KEYS[1], ARGV[1], -tonumber(ARGV[2]))\n" +
+            "if left <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) end\n" +
+            "return left",
+            Long.class);
+
+    /**
+     * 回补Redis库存，秒杀已关闭时不再写入
+     */
+    private static final DefaultRedisScript<Long> RESTORE_STOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n" +
+            "return redis.call('INCRBY', KEYS[1], ARGV[1])",
+            Long.class);
+
+    /**
+     * 对账：队列和处理中列表都为空时以数据库库存覆盖Redis库存，并清理残留的预占积分；
+     * 与预占脚本互斥执行，判断和覆盖之间不会插入新的预占
+     */
+    private static final DefaultRedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('LLEN', KEYS[1]) > 0 or redis.call('LLEN', KEYS[2]) > 0 then return 0 end\n" +
+            "if redis.call('EXISTS', KEYS[4]) == 0 then return 0 end\n" +
+            "redis.call('DEL', KEYS[3])\n" +
+            "redis.call('SET', KEYS[4], ARGV[1])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 从处理中列表移入死信列表
+     */
+    private static final DefaultRedisScript<Long> DEAD_LETTER_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('LREM', KEYS[1], 1, ARGV[1])\n" +
+            "return redis.call('LPUSH', KEYS[2], ARGV[1])",
+            Long.class);
+
+    /**
+     * 续期：仍由本次持有时刷新过期时间，返回 1；锁已过期或被其它实例获取时返回 0
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('EXPIRE', KEYS[1], ARGV[2]) end\n" +
+            "return 0",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+            "return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductMapper productMapper;
+    private final RedemptionMapper redemptionMapper;
+    private final PointsService pointsService;
+    private final VoucherCodeGenerator voucherCodeGenerator;
+    private final ObjectMapper objectMapper;
+    private final NotificationOutboxService notificationOutboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${flash-sale.batch-size:500}")
+    private int batchSize;
+
+    @Value("${flash-sale.lock-seconds:30}")
+    private long lockSeconds;
+
+    private ScheduledExecutorService lockRenewalScheduler;
+
+    /**
+     * 单条预占记录的最大落库次数，超过后移入死信列表
+     */
+    @Value("${flash-sale.max-attempts:10}")
+    private int maxAttempts;
+
+    public FlashSaleServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                ProductMapper productMapper,
+                                RedemptionMapper redemptionMapper,
+                                PointsService pointsService,
+                                VoucherCodeGenerator voucherCodeGenerator,
+                                ObjectMapper objectMapper,
+                                NotificationOutboxService notificationOutboxService,
+                                PlatformTransactionManager transactionManager) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.productMapper = productMapper;
+        this.redemptionMapper = redemptionMapper;
+        this.pointsService = pointsService;
+        this.voucherCodeGenerator = voucherCodeGenerator;
+        this.objectMapper = objectMapper;
+        this.notificationOutboxService = notificationOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        lockRenewalScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flash-sale-lock-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        lockRenewalScheduler.shutdownNow();
+    }
+
+    @Override
+    public void start(Long productId) {
+        AssertUtils.notNull(productId, "商品ID不能为空");
+        Product product = productMapper.selectById(productId);
+        AssertUtils.notNull(product, "商品不存在");
+        AssertUtils.isFalse(product.getDeleted() == 1, "商品已被删除");
+        AssertUtils.isTrue(ProductStatus.ONLINE.getCode().equals(product.getStatus()), "商品已下架");
+
+        Boolean started = stringRedisTemplate.opsForValue()
+                .setIfAbsent(stockKey(productId), String.valueOf(product.getStock()));
+        AssertUtils.isTrue(Boolean.TRUE.equals(started), "商品已处于秒杀模式");
+        stringRedisTemplate.opsForSet().add(PRODUCTS_KEY, String.valueOf(productId));
+        log.info("商品开启秒杀: productId={}, stock={}", productId, product.getStock());
+    }
+
+    @Override
+    public void stop(Long productId) {
+        AssertUtils.notNull(productId, "商品ID不能为空");
+        stringRedisTemplate.delete(stockKey(productId));
+        stringRedisTemplate.opsForSet().remove(PRODUCTS_KEY, String.valueOf(productId));
+        log.info("商品关闭秒杀: productId={}", productId);
+    }
+
+    @Override
+    public boolean isActive(Long productId) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(stockKey(productId)));
+        } catch (Exception e) {
+            // Redis 不可用时走普通兑换流程，数据库条件扣减仍能保证不超卖
+            log.warn("查询秒杀状态失败，按普通兑换处理: productId={}, error={}", productId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String reserve(Long userId, Product product) {
+        Integer balance = pointsService.getUserTotalPoints(userId);
+        FlashSaleReservation reservation = FlashSaleReservation.builder()
+                .voucherCode(voucherCodeGenerator.generate())
+                .userId(userId)
+                .productId(product.getId())
+                .points(product.getPointsRequired())
+                .productName(product.getName())
+                .reservedAt(System.currentTimeMillis())
+                .build();
+
+        Long result = stringRedisTemplate.execute(RESERVE_SCRIPT,
+                List.of(stockKey(product.getId()), HELD_POINTS_KEY, QUEUE_KEY),
+                String.valueOf(userId), String.valueOf(balance),
+                String.valueOf(product.getPointsRequired()), toJson(reservation));
+
+        AssertUtils.isTrue(result != null && result != RESULT_NOT_ACTIVE, "商品秒杀已结束，请重新兑换");
+        AssertUtils.isFalse(result == RESULT_OUT_OF_STOCK, "商品库存不足");
+        AssertUtils.isFalse(result == RESULT_INSUFFICIENT_POINTS, "积分不足，当前积分: " + balance
+                + "，需要积分: " + product.getPointsRequired());
+
+        log.info("用户 {} 预占秒杀商品 {}，剩余库存 {}，凭证编号 {}",
+                userId, product.getName(), result, reservation.getVoucherCode());
+        return reservation.getVoucherCode();
+    }
+
+    @Override
+    public void persistPending() {
+        String token = UUID.randomUUID().toString();
+        if (!tryLock(token)) {
+            return;
+        }
+        AtomicBoolean lost = new AtomicBoolean(false);
+        ScheduledFuture<?> renewal = scheduleRenewal(token, lost);
+        try {
+            requeueProcessing();
+
+            List<String> payloads = new ArrayList<>();
+            Map<Long, List<FlashSaleReservation>> groups = new LinkedHashMap<>();
+            Map<String, String> payloadByVoucher = new LinkedHashMap<>();
+            for (int i = 0; i < batchSize; i++) {
+                String payload = stringRedisTemplate.opsForList().rightPopAndLeftPush(QUEUE_KEY, PROCESSING_KEY);
+                if (payload == null) {
+                    break;
+                }
+                payloads.add(payload);
+                FlashSaleReservation reservation = fromJson(payload);
+                if (reservation == null) {
+                    moveToDeadLetter(payload);
+                    continue;
+                }
+                payloadByVoucher.put(reservation.getVoucherCode(), payload);
+                groups.computeIfAbsent(reservation.getProductId(), k -> new ArrayList<>()).add(reservation);
+            }
+            if (payloads.isEmpty()) {
+                return;
+            }
+
+            for (Map.Entry<Long, List<FlashSaleReservation>> entry : groups.entrySet()) {
+                if (lost.get()) {
+                    // 剩余记录留在处理中列表，由下一个持锁者重新入队；已落库的凭证不会重复处理
+                    log.warn("秒杀落库锁已失效，停止本轮落库");
+                    break;
+                }
+                persistGroup(entry.getKey(), entry.getValue(), payloadByVoucher);
+            }
+        } finally {
+            renewal.cancel(false);
+            unlock(token);
+        }
+    }
+
+    @Override
+    public void reconcile() {
+        String token = UUID.randomUUID().toString();
+        if (!tryLock(token)) {
+            return;
+        }
+        ScheduledFuture<?> renewal = scheduleRenewal(token, new AtomicBoolean(false));
+        try {
+            Set<String> productIds = stringRedisTemplate.opsForSet().members(PRODUCTS_KEY);
+            if (productIds == null) {
+                return;
+            }
+            for (String id : productIds) {
+                Long productId = Long.valueOf(id);
+                Product product = productMapper.selectById(productId);
+                if (product == null || product.getDeleted() == 1
+                        || !ProductStatus.ONLINE.getCode().equals(product.getStatus())) {
+                    stop(productId);
+                    continue;
+                }
+                stringRedisTemplate.execute(RECONCILE_SCRIPT,
+                        List.of(QUEUE_KEY, PROCESSING_KEY, HELD_POINTS_KEY, stockKey(productId)),
+                        String.valueOf(product.getStock()));
+            }
+        } finally {
+            renewal.cancel(false);
+            unlock(token);
+        }
+    }
+
+    /**
+     * 在一个事务内落库同一商品的预占记录，提交后释放预占积分并回补失败记录的Redis库存。
+     * 整批失败时逐条重试，个别异常记录不会拖住同组的其它记录
+     */
+    private void persistGroup(Long productId, List<FlashSaleReservation> reservations,
+                              Map<String, String> payloadByVoucher) {
+        List<FlashSaleReservation> outOfStock = new ArrayList<>();
+        List<FlashSaleReservation> insufficientPoints = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    doPersistGroup(productId, reservations, outOfStock, insufficientPoints));
+        } catch (Exception e) {
+            if (isUnavailable(e)) {
+                // 数据库暂不可用，记录保留在处理中列表，下次落库时重试，不计入失败次数
+                log.error("秒杀兑换落库失败，数据库不可用: productId={}, count={}, error={}",
+                        productId, reservations.size(), e.getMessage());
+            } else if (reservations.size() > 1) {
+                log.warn("秒杀兑换批量落库失败，改为逐条落库: productId={}, count={}, error={}",
+                        productId, reservations.size(), e.getMessage());
+                for (FlashSaleReservation reservation : reservations) {
+                    persistGroup(productId, List.of(reservation), payloadByVoucher);
+                }
+            } else {
+                recordFailure(reservations.get(0), payloadByVoucher.get(reservations.get(0).getVoucherCode()), e);
+            }
+            return;
+        }
+
+        for (FlashSaleReservation reservation : reservations) {
+            releaseHeldPoints(reservation);
+        }
+        // 积分不足的记录已归还数据库库存，Redis库存同步回补；数据库库存不足说明Redis计数偏高，不回补，等待对账校正
+        if (!insufficientPoints.isEmpty()) {
+            stringRedisTemplate.execute(RESTORE_STOCK_SCRIPT, Collections.singletonList(stockKey(productId)),
+                    String.valueOf(insufficientPoints.size()));
+        }
+        int failed = outOfStock.size() + insufficientPoints.size();
+        outOfStock.forEach(r -> log.warn("秒杀兑换库存不足，兑换已取消: userId={}, productId={}, voucherCode={}",
+                r.getUserId(), productId, r.getVoucherCode()));
+        insufficientPoints.forEach(r -> log.warn("秒杀兑换积分不足，兑换已取消: userId={}, productId={}, voucherCode={}",
+                r.getUserId(), productId, r.getVoucherCode()));
+        for (FlashSaleReservation reservation : reservations) {
+            stringRedisTemplate.opsForList().remove(PROCESSING_KEY, 1, payloadByVoucher.get(reservation.getVoucherCode()));
+        }
+        stringRedisTemplate.opsForHash().delete(ATTEMPTS_KEY, reservations.stream()
+                .map(FlashSaleReservation::getVoucherCode).toArray());
+        log.info("秒杀兑换落库完成: productId={}, success={}, failed={}",
+                productId, reservations.size() - failed, failed);
+    }
+
+    /**
+     * 累计单条记录的落库失败次数，达到上限时撤销预占、通知用户并移入死信列表
+     */
+    private void recordFailure(FlashSaleReservation reservation, String payload, Exception cause) {
+        Long attempts = stringRedisTemplate.opsForHash().increment(ATTEMPTS_KEY, reservation.getVoucherCode(), 1);
+        if (attempts != null && attempts < maxAttempts) {
+            log.error("秒杀兑换落库失败，稍后重试: voucherCode={}, attempts={}",
+                    reservation.getVoucherCode(), attempts, cause);
+            return;
+        }
+
+        String reason = "系统处理失败";
+        try {
+            transactionTemplate.executeWithoutResult(status -> cancel(List.of(reservation), reason));
+        } catch (Exception e) {
+            // 兑换记录本身无法写入时仍通知用户凭证已作废
+            log.error("写入已取消的兑换记录失败: voucherCode={}", reservation.getVoucherCode(), e);
+            notificationOutboxService.enqueue(cancelledEvent(reservation, reason));
+        }
+        releaseHeldPoints(reservation);
+        stringRedisTemplate.execute(RESTORE_STOCK_SCRIPT,
+                Collections.singletonList(stockKey(reservation.getProductId())), "1");
+        moveToDeadLetter(payload);
+        stringRedisTemplate.opsForHash().delete(ATTEMPTS_KEY, reservation.getVoucherCode());
+        log.error("秒杀兑换落库失败次数达到上限，已移入死信列表: userId={}, productId={}, voucherCode={}, attempts={}",
+                reservation.getUserId(), reservation.getProductId(), reservation.getVoucherCode(), attempts, cause);
+    }
+
+    /**
+     * 批量扣减库存、逐条扣减积分并批量插入兑换记录，失败的预占记录按原因分别收集
+     */
+    private void doPersistGroup(Long productId, List<FlashSaleReservation> reservations,
+                                List<FlashSaleReservation> outOfStock,
+                                List<FlashSaleReservation> insufficientPoints) {
+        // 重复处理时跳过已落库的凭证
+        Set<String> persisted = redemptionMapper.selectList(new LambdaQueryWrapper<Redemption>()
+                        .select(Redemption::getVoucherCode)
+                        .in(Redemption::getVoucherCode, reservations.stream()
+                                .map(FlashSaleReservation::getVoucherCode).collect(Collectors.toList())))
+                .stream()
+                .map(Redemption::getVoucherCode)
+                .collect(Collectors.toSet());
+        List<FlashSaleReservation> pending = reservations.stream()
+                .filter(r -> !persisted.contains(r.getVoucherCode()))
+                .collect(Collectors.toList());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int allocated = decreaseStock(productId, pending.size());
+        outOfStock.addAll(pending.subList(allocated, pending.size()));
+        List<Redemption> redemptions = new ArrayList<>();
+        for (FlashSaleReservation reservation : pending.subList(0, allocated)) {
+            if (!pointsService.tryDeductPoints(reservation.getUserId(), reservation.getPoints(),
+                    "兑换商品：" + reservation.getProductName())) {
+                insufficientPoints.add(reservation);
+                continue;
+            }
+            redemptions.add(toRedemption(reservation, RedemptionStatus.PENDING));
+        }
+
+        int unused = allocated - redemptions.size();
+        if (unused > 0) {
+            productMapper.increaseStockBy(productId, unused);
+        }
+        if (!redemptions.isEmpty()) {
+            redemptionMapper.insertBatch(redemptions);
+        }
+        // 凭证已发给用户，失败的预占同样落库为已取消记录，核销时不会显示为凭证不存在
+        cancel(outOfStock, "商品库存不足");
+        cancel(insufficientPoints, "积分不足");
+    }
+
+    /**
+     * 写入已取消的兑换记录并通知用户，与调用方处于同一事务
+     */
+    private void cancel(List<FlashSaleReservation> reservations, String reason) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        redemptionMapper.insertBatch(reservations.stream()
+                .map(r -> toRedemption(r, RedemptionStatus.CANCELLED))
+                .collect(Collectors.toList()));
+        for (FlashSaleReservation reservation : reservations) {
+            notificationOutboxService.enqueue(cancelledEvent(reservation, reason));
+        }
+    }
+
+    private NotificationEvent cancelledEvent(FlashSaleReservation reservation, String reason) {
+        return NotificationEvent.builder()
+                .type(NotificationType.REDEMPTION_CANCELLED)
+                .studentId(reservation.getUserId())
+                .productName(reservation.getProductName())
+                .voucherCode(reservation.getVoucherCode())
+                .reason(reason)
+                .build();
+    }
+
+    /**
+     * 整批扣减数据库库存；库存不足整批时逐件扣减，返回实际扣减的数量
+     */
+    private int decreaseStock(Long productId, int count) {
+        if (productMapper.decreaseStockBy(productId, count) > 0) {
+            return count;
+        }
+        int allocated = 0;
+        while (allocated < count && productMapper.decreaseStock(productId) > 0) {
+            allocated++;
+        }
+        return allocated;
+    }
+
+    private Redemption toRedemption(FlashSaleReservation reservation, RedemptionStatus status) {
+        LocalDateTime reservedAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(reservation.getReservedAt()), ZoneId.systemDefault());
+        Redemption redemption = new Redemption();
+        redemption.setUserId(reservation.getUserId());
+        redemption.setProductId(reservation.getProductId());
+        redemption.setPointsSpent(reservation.getPoints());
+        redemption.setVoucherCode(reservation.getVoucherCode());
+        redemption.setStatus(status.getCode());
+        redemption.setCreatedAt(reservedAt);
+        redemption.setUpdatedAt(reservedAt);
+        return redemption;
+    }
+
+    /**
+     * 上一次落库中断时遗留在处理中列表的记录放回队列，已落库的凭证在重新处理时跳过
+     */
+    private void requeueProcessing() {
+        while (stringRedisTemplate.opsForList().rightPopAndLeftPush(PROCESSING_KEY, QUEUE_KEY) != null) {
+            // 逐条移回，直到处理中列表为空
+        }
+    }
+
+    private void releaseHeldPoints(FlashSaleReservation reservation) {
+        stringRedisTemplate.execute(RELEASE_POINTS_SCRIPT, Collections.singletonList(HELD_POINTS_KEY),
+                String.valueOf(reservation.getUserId()), String.valueOf(reservation.getPoints()));
+    }
+
+    private void moveToDeadLetter(String payload) {
+        stringRedisTemplate.execute(DEAD_LETTER_SCRIPT, List.of(PROCESSING_KEY, DEAD_LETTER_KEY), payload);
+    }
+
+    /**
+     * 数据库连接类故障可自行恢复，不计入记录的失败次数
+     */
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private boolean tryLock(String token) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY, token, Duration.ofSeconds(lockSeconds)));
+        } catch (Exception e) {
+            log.warn("获取秒杀落库锁失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 持锁期间每隔三分之一有效期续期一次，单轮耗时不再受 lock-seconds 限制；锁已失去时标记 lost
+     */
+    private ScheduledFuture<?> scheduleRenewal(String token, AtomicBoolean lost) {
+        long interval = Math.max(1L, lockSeconds / 3);
+        return lockRenewalScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(LOCK_KEY),
+                        token, String.valueOf(lockSeconds));
+                if (renewed == null || renewed == 0L) {
+                    lost.set(true);
+                }
+            } catch (Exception e) {
+                // 单次续期失败不影响本轮，连续失败直至过期后由 RENEW_SCRIPT 返回 0 标记失锁
+                log.warn("续期秒杀落库锁失败: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private void unlock(String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(LOCK_KEY), token);
+        } catch (Exception e) {
+            log.warn("释放秒杀落库锁失败: {}", e.getMessage());
+        }
+    }
+
+    private String toJson(FlashSaleReservation reservation) {
+        try {
+            return objectMapper.writeValueAsString(reservation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化秒杀预占记录失败", e);
+        }
+    }
+
+    private FlashSaleReservation fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, FlashSaleReservation.class);
+        } catch (JsonProcessingException e) {
+            log.error("无法解析的秒杀预占记录，已移入死信列表: {}", payload);
+            return null;
+        }
+    }
+
+    private String stockKey(Long productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+}
@@ -0,0 +1,287 @@
+package com.hngy.cvs.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hngy.cvs.common.result.ResultCode;
+import com.hngy.cvs.common.util.AssertUtils;
+import com.hngy.cvs.entity.NotificationOutbox;
+import com.hngy.cvs.entity.enums.NotificationType;
+import com.hngy.cvs.mapper.NotificationOutboxMapper;
+import com.hngy.cvs.service.NotificationOutboxService;
+import com.hngy.cvs.service.NotificationService;
+import com.hngy.cvs.service.model.NotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知发件箱服务实现
+ * <p>
+ * 事务提交后把事件交给有界线程池投递；线程池已满或投递失败的事件留在表中，由定时任务补偿重试。
+ * 投递语义为至少一次。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final NotificationOutboxMapper outboxMapper;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.outbox.pool-size:4}")
+    private int poolSize;
+
+    @Value("${notification.outbox.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${notification.outbox.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${notification.outbox.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 已完成事件的保留天数
+     */
+    @Value("${notification.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${notification.outbox.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    private ThreadPoolExecutor executor;
+    private Timer deliveryLagTimer;
+    private Counter failedCounter;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-outbox-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("notification.outbox.queue.depth", executor, e -> e.getQueue().size())
+                .description("发件箱投递线程池队列中的事件数")
+                .register(meterRegistry);
+        Gauge.builder("notification.outbox.pending", pendingCount, AtomicLong::get)
+                .description("发件箱中待投递的事件数")
+                .register(meterRegistry);
+        Gauge.builder("notification.outbox.lag.seconds", oldestPendingAgeSeconds, AtomicLong::get)
+                .description("最早一条待投递事件已等待的秒数")
+                .register(meterRegistry);
+        deliveryLagTimer = Timer.builder("notification.outbox.delivery.lag")
+                .description("事件从写入到投递完成的耗时")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("notification.outbox.failed")
+                .description("超过最大重试次数的事件数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void enqueue(NotificationEvent event) {
+        AssertUtils.notNull(event, ResultCode.BAD_REQUEST);
+        AssertUtils.notNull(event.getType(), ResultCode.BAD_REQUEST);
+
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setEventType(event.getType().getCode());
+        try {
+            outbox.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.error("序列化通知事件失败: {}", event, e);
+            AssertUtils.fail(ResultCode.INTERNAL_SERVER_ERROR);
+        }
+        outbox.setStatus(NotificationOutbox.STATUS_PENDING);
+        outbox.setRetryCount(0);
+        outboxMapper.insert(outbox);
+
+        Long outboxId = outbox.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(outboxId);
+                }
+            });
+        } else {
+            submit(outboxId);
+        }
+    }
+
+    @Override
+    public void dispatchPending() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int reset = outboxMapper.resetStale(now.minusMinutes(5));
+        if (reset > 0) {
+            log.warn("重置长时间未完成的发件箱事件: {} 条", reset);
+        }
+
+        // 跳过刚写入的事件，避免与提交后的即时投递重复抢占
+        List<Long> pendingIds = outboxMapper.selectPendingIds(now.minusSeconds(5), batchSize);
+        for (Long id : pendingIds) {
+            if (!submit(id)) {
+                break;
+            }
+        }
+
+        Long pending = outboxMapper.countPending();
+        pendingCount.set(pending != null ? pending : 0L);
+        LocalDateTime oldest = outboxMapper.selectOldestPendingCreatedAt();
+        oldestPendingAgeSeconds.set(oldest != null ? Math.max(0L, Duration.between(oldest, now).getSeconds()) : 0L);
+    }
+
+    @Override
+    public int purgeFinished() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        int deleted;
+        // 分批删除，避免单条语句长时间持有大量行锁
+        do {
+            deleted = outboxMapper.deleteFinished(before, purgeBatchSize);
+            total += deleted;
+        } while (deleted >= purgeBatchSize);
+        if (total > 0) {
+            log.info("清理过期的发件箱事件: {} 条", total);
+        }
+        return total;
+    }
+
+    /**
+     * 提交到投递线程池，线程池已满时留待定时任务补偿
+     */
+    private boolean submit(Long outboxId) {
+        try {
+            executor.execute(() -> process(outboxId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("通知投递线程池已满，事件留待补偿投递: outboxId={}", outboxId);
+            return false;
+        }
+    }
+
+    private void process(Long outboxId) {
+        if (outboxMapper.claim(outboxId) == 0) {
+            return;
+        }
+
+        NotificationOutbox outbox = outboxMapper.selectById(outboxId);
+        if (outbox == null) {
+            return;
+        }
+
+        try {
+            NotificationEvent event = objectMapper.readValue(outbox.getPayload(), NotificationEvent.class);
+            deliver(outboxId, event);
+
+            NotificationOutbox done = new NotificationOutbox();
+            done.setId(outboxId);
+            done.setStatus(NotificationOutbox.STATUS_DONE);
+            done.setProcessedAt(LocalDateTime.now());
+            outboxMapper.updateById(done);
+
+            if (outbox.getCreatedAt() != null) {
+                deliveryLagTimer.record(Duration.between(outbox.getCreatedAt(), done.getProcessedAt()));
+            }
+        } catch (Exception e) {
+            int retryCount = (outbox.getRetryCount() != null ? outbox.getRetryCount() : 0) + 1;
+            boolean exhausted = retryCount >= maxRetries;
+
+            NotificationOutbox failed = new NotificationOutbox();
+            failed.setId(outboxId);
+            failed.setRetryCount(retryCount);
+            failed.setStatus(exhausted ? NotificationOutbox.STATUS_FAILED : NotificationOutbox.STATUS_PENDING);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            failed.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            outboxMapper.updateById(failed);
+
+            if (exhausted) {
+                failedCounter.increment();
+                log.error("通知事件投递失败且已达最大重试次数: outboxId={}, type={}", outboxId, outbox.getEventType(), e);
+            } else {
+                log.warn("通知事件投递失败，等待重试: outboxId={}, type={}, retry={}, error={}",
+                        outboxId, outbox.getEventType(), retryCount, message);
+            }
+        }
+    }
+
+    /**
+     * 投递事件；投递至少一次，事件ID参与通知幂等键，重复投递不会重复创建通知
+     */
+    private void deliver(Long outboxId, NotificationEvent event) {
+        switch (event.getType()) {
+            case REGISTRATION_PENDING:
+                notificationService.sendRegistrationPendingNotification(
+                        event.getActivityId(), event.getStudentId(), event.getTeacherId(), outboxId);
+                break;
+            case REGISTRATION_APPROVED:
+            case REGISTRATION_REJECTED:
+                if (event.getStudentIds() != null) {
+                    notificationService.sendRegistrationResultNotifications(
+                            event.getActivityId(), event.getStudentIds(),
+                            event.getType() == NotificationType.REGISTRATION_APPROVED,
+                            event.getReason(), outboxId);
+                } else {
+                    notificationService.sendRegistrationResultNotification(
+                            event.getActivityId(), event.getStudentId(),
+                            event.getType() == NotificationType.REGISTRATION_APPROVED,
+                            event.getReason(), outboxId);
+                }
+                break;
+            case WAITLIST_PROMOTED:
+                notificationService.sendWaitlistPromotedNotification(event.getActivityId(), event.getStudentId(), outboxId);
+                break;
+            case REDEMPTION_CANCELLED:
+                notificationService.sendRedemptionCancelledNotification(
+                        event.getStudentId(), event.getProductName(), event.getVoucherCode(), event.getReason());
+                break;
+            case CHECKOUT_PENDING:
+                notificationService.sendCheckoutPendingNotification(
+                        event.getActivityId(), event.getStudentId(), event.getTeacherId(), event.getReason(), outboxId);
+                break;
+            case CHECKOUT_APPROVED:
+            case CHECKOUT_REJECTED:
+                notificationService.sendCheckoutResultNotification(
+                        event.getActivityId(), event.getStudentId(),
+                        event.getType() == NotificationType.CHECKOUT_APPROVED,
+                        event.getReason(), outboxId);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的通知事件类型: " + event.getType());
+        }
+    }
+}
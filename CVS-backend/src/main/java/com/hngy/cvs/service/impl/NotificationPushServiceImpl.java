@@ -0,0 +1,277 @@
+package com.hngy.cvs.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hngy.cvs.common.util.BeanUtil;
+import com.hngy.cvs.dto.response.NotificationVO;
+import com.hngy.cvs.entity.Notification;
+import com.hngy.cvs.service.NotificationPushService;
+import com.hngy.cvs.service.NotificationUnreadCounterService;
+import com.hngy.cvs.service.model.NotificationPushMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于SSE的通知推送服务实现
+ * <p>
+ * 连接由Servlet异步请求持有，不占用请求线程。推送消息经Redis频道广播，各实例只向本机持有的连接发送，
+ * 因此通知在任一实例创建都能送达。推送属于尽力而为：丢失的消息由客户端重连后拉取一次补齐。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationPushServiceImpl implements NotificationPushService {
+
+    private static final String PUSH_CHANNEL = "cvs:notification:push";
+    private static final String EVENT_NOTIFICATION = "notification";
+    private static final String EVENT_UNREAD_COUNT = "unread-count";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final NotificationUnreadCounterService unreadCounterService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notification.push.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${notification.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${notification.push.pool-size:2}")
+    private int poolSize;
+
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor pushExecutor;
+    private ExecutorService subscriptionExecutor;
+    private ScheduledExecutorService heartbeatScheduler;
+    private RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 只负责消息分发；队列满时丢弃最旧的推送并记录日志，客户端依靠重连补齐，不拖慢消息监听
+        pushExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-push-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy() {
+                    @Override
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                        log.warn("通知推送队列已满，丢弃最早的一条推送");
+                        super.rejectedExecution(runnable, executor);
+                    }
+                });
+
+        // 订阅循环长期占用一个线程，使用独立线程，不占用分发线程
+        subscriptionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-push-subscription");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-push-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.setTaskExecutor(pushExecutor);
+        listenerContainer.setSubscriptionExecutor(subscriptionExecutor);
+        listenerContainer.addMessageListener((message, pattern) ->
+                onMessage(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(PUSH_CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        try {
+            listenerContainer.destroy();
+        } catch (Exception e) {
+            log.warn("关闭通知推送监听失败: {}", e.getMessage());
+        }
+        heartbeatScheduler.shutdown();
+        subscriptionExecutor.shutdownNow();
+        pushExecutor.shutdown();
+        emitters.values().forEach(set -> set.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> removeEmitter(userId, emitter));
+        emitter.onTimeout(() -> {
+            removeEmitter(userId, emitter);
+            emitter.complete();
+        });
+        emitter.onError(e -> removeEmitter(userId, emitter));
+
+        // 超出单用户连接上限时关闭最早的连接
+        List<SseEmitter> evicted = new ArrayList<>();
+        emitters.compute(userId, (id, set) -> {
+            Set<SseEmitter> userEmitters = set != null ? set : new CopyOnWriteArraySet<>();
+            while (userEmitters.size() >= maxConnectionsPerUser) {
+                SseEmitter oldest = userEmitters.iterator().next();
+                userEmitters.remove(oldest);
+                evicted.add(oldest);
+            }
+            userEmitters.add(emitter);
+            return userEmitters;
+        });
+        evicted.forEach(SseEmitter::complete);
+
+        send(userId, emitter, SseEmitter.event().name(EVENT_UNREAD_COUNT)
+                .data(unreadCounterService.getUnreadCount(userId)));
+        log.debug("建立通知推送连接: userId={}", userId);
+        return emitter;
+    }
+
+    @Override
+    public void pushNotification(Notification notification) {
+        if (notification == null || notification.getUserId() == null) {
+            return;
+        }
+        NotificationPushMessage message = NotificationPushMessage.builder()
+                .userIds(Collections.singletonList(notification.getUserId()))
+                .notification(BeanUtil.to(notification, NotificationVO.class))
+                .build();
+        runAfterCommit(() -> publish(message));
+    }
+
+    @Override
+    public void pushUnreadCount(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        NotificationPushMessage message = NotificationPushMessage.builder()
+                .userIds(new ArrayList<>(userIds))
+                .build();
+        runAfterCommit(() -> publish(message));
+    }
+
+    private void publish(NotificationPushMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(PUSH_CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            // Redis 不可用时至少推送给本实例的连接
+            log.warn("广播通知推送消息失败，仅推送本实例连接: {}", e.getMessage());
+            deliver(message);
+        }
+    }
+
+    private void onMessage(String body) {
+        try {
+            deliver(objectMapper.readValue(body, NotificationPushMessage.class));
+        } catch (Exception e) {
+            log.warn("处理通知推送消息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 向本实例持有的连接推送；每条消息都意味着相关用户未读数已变化，先丢弃本实例的近端缓存，
+     * 推送的未读数也跳过近端缓存读取，避免其它实例写入后返回旧值
+     */
+    private void deliver(NotificationPushMessage message) {
+        if (message.getUserIds() == null) {
+            return;
+        }
+        unreadCounterService.evictNearCache(message.getUserIds());
+        for (Long userId : message.getUserIds()) {
+            Set<SseEmitter> userEmitters = emitters.get(userId);
+            if (userEmitters == null || userEmitters.isEmpty()) {
+                continue;
+            }
+            long unreadCount = unreadCounterService.refreshUnreadCount(userId);
+            for (SseEmitter emitter : userEmitters) {
+                if (message.getNotification() != null
+                        && !send(userId, emitter, SseEmitter.event().name(EVENT_NOTIFICATION).data(message.getNotification()))) {
+                    continue;
+                }
+                send(userId, emitter, SseEmitter.event().name(EVENT_UNREAD_COUNT).data(unreadCount));
+            }
+        }
+    }
+
+    /**
+     * 定期发送注释行保活，同时清理已断开的连接
+     */
+    private void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters) {
+                send(userId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    private boolean send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            removeEmitter(userId, emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void removeEmitter(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
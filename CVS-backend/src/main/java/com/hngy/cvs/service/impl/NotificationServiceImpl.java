@@ -20,10 +20,13 @@ import com.hngy.cvs.mapper.ActivityMapper;
 import com.hngy.cvs.mapper.NotificationMapper;
 import com.hngy.cvs.mapper.SignupMapper;
 import com.hngy.cvs.mapper.UserMapper;
+import com.hngy.cvs.service.NotificationPushService;
 import com.hngy.cvs.service.NotificationService;
 import com.hngy.cvs.service.NotificationTemplateService;
+import com.hngy.cvs.service.NotificationUnreadCounterService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,9 +35,15 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -49,8 +58,23 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
     private final SignupMapper signupMapper;
     private final UserMapper userMapper;
     private final NotificationTemplateService templateService;
+    private final NotificationUnreadCounterService unreadCounterService;
+    private final NotificationPushService pushService;
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("MM月dd日 HH:mm");
 
+    /**
+     * 批量发送通知时每批插入的条数
+     */
+    @Value("${notification.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    /**
+     * 每个活动对每个用户只发送一次的活动状态类通知
+     */
+    private static final Set<NotificationType> ACTIVITY_STATUS_TYPES = EnumSet.of(
+            NotificationType.ACTIVITY_START, NotificationType.ACTIVITY_ONGOING, NotificationType.ACTIVITY_END
+    );
+
     @Override
     @Transactional
     public Long createNotification(NotificationDTO dto) {
@@ -79,13 +103,19 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         Notification notification = new Notification();
         notification.setUserId(dto.getUserId());
         notification.setType(dto.getType());
+        notification.setActivityId(extractActivityId(templateData));
+        notification.setDedupKey(resolveDedupKey(dto, notification.getActivityId()));
         notification.setTitle(title);
         notification.setContent(content);
         notification.setLinkUrl(linkUrl);
         notification.setIsRead(false);
         notification.setCreatedTime(LocalDateTime.now());
 
-        this.save(notification);
+        if (!saveIgnoreDuplicate(notification)) {
+            return notification.getId();
+        }
+        unreadCounterService.increment(notification.getUserId(), 1);
+        pushService.pushNotification(notification);
         log.info("创建通知成功: 用户ID={}, 类型={}, 标题={}", dto.getUserId(), dto.getType(), title);
         return notification.getId();
     }
@@ -93,7 +123,7 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
     @Override
     public Long getUnreadCount(Long userId) {
         AssertUtils.notNull(userId, ResultCode.BAD_REQUEST);
-        return baseMapper.countUnreadByUserId(userId);
+        return unreadCounterService.getUnreadCount(userId);
     }
 
     @Override
@@ -129,10 +159,17 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         AssertUtils.isTrue(notification.getUserId().equals(userId), ResultCode.INSUFFICIENT_PERMISSIONS);
 
         if (!Boolean.TRUE.equals(notification.getIsRead())) {
-            notification.setIsRead(true);
-            notification.setReadTime(LocalDateTime.now());
-            this.updateById(notification);
-            log.info("标记通知已读: 通知ID={}, 用户ID={}", notificationId, userId);
+            // 条件更新，并发重复标记时只扣减一次未读数
+            boolean updated = this.update(new LambdaUpdateWrapper<Notification>()
+                    .set(Notification::getIsRead, true)
+                    .set(Notification::getReadTime, LocalDateTime.now())
+                    .eq(Notification::getId, notificationId)
+                    .eq(Notification::getIsRead, false));
+            if (updated) {
+                unreadCounterService.increment(userId, -1);
+                pushService.pushUnreadCount(List.of(userId));
+                log.info("标记通知已读: 通知ID={}, 用户ID={}", notificationId, userId);
+            }
         }
     }
 
@@ -142,6 +179,8 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         AssertUtils.notNull(userId, ResultCode.BAD_REQUEST);
 
         int count = baseMapper.markAllAsReadByUserId(userId);
+        unreadCounterService.reset(userId, count);
+        pushService.pushUnreadCount(List.of(userId));
         log.info("批量标记通知已读: 用户ID={}, 更新数量={}", userId, count);
     }
 
@@ -155,7 +194,10 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         AssertUtils.notNull(notification, ResultCode.NOT_FOUND);
         AssertUtils.isTrue(notification.getUserId().equals(userId), ResultCode.INSUFFICIENT_PERMISSIONS);
 
-        this.removeById(notificationId);
+        if (this.removeById(notificationId) && !Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounterService.increment(userId, -1);
+            pushService.pushUnreadCount(List.of(userId));
+        }
         log.info("删除通知: 通知ID={}, 用户ID={}", notificationId, userId);
     }
 
@@ -164,6 +206,7 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
     public void clearReadNotifications(Long userId) {
         AssertUtils.notNull(userId, ResultCode.BAD_REQUEST);
 
+        // 只删除已读通知，未读数不变
         int count = baseMapper.deleteReadNotificationsByUserId(userId);
         log.info("清空已读通知: 用户ID={}, 删除数量={}", userId, count);
     }
@@ -177,62 +220,18 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
             return;
         }
 
-        // 检查教师是否已收到该活动的开始通知（去重）
-        long existingTeacherNotification = this.count(
-                new LambdaQueryWrapper<Notification>()
-                        .eq(Notification::getUserId, activity.getOrganizerId())
-                        .eq(Notification::getType, NotificationType.ACTIVITY_START)
-                        .like(Notification::getContent, activity.getTitle())
-        );
-        
-        if (existingTeacherNotification > 0) {
-            log.info("活动开始通知已存在，跳过发送: 活动ID={}, 标题={}", activityId, activity.getTitle());
-            return;
-        }
-
         // 获取已批准的报名学生
-        List<Signup> signups = signupMapper.selectList(
-                new LambdaQueryWrapper<Signup>()
-                        .eq(Signup::getActivityId, activityId)
-                        .eq(Signup::getStatus, SignupStatus.APPROVED)
-        );
+        List<Long> studentIds = selectApprovedStudentIds(activityId, false);
 
         String timeStr = activity.getStartTime().format(TIME_FORMATTER);
-        
+
         // 创建模板数据
         Map<String, Object> templateData = templateService.createActivityStatusData(
                 activityId, activity.getTitle(), timeStr, activity.getLocation()
         );
 
-        // 通知教师
-        NotificationDTO teacherDto = new NotificationDTO();
-        teacherDto.setUserId(activity.getOrganizerId());
-        teacherDto.setType(NotificationType.ACTIVITY_START);
-        teacherDto.setTemplateData(templateData);
-        createNotification(teacherDto);
-
-        int studentNotificationCount = 0;
-        // 通知学生（检查去重）
-        for (Signup signup : signups) {
-            // 检查该学生是否已收到该活动的开始通知
-            long existingStudentNotification = this.count(
-                    new LambdaQueryWrapper<Notification>()
-                            .eq(Notification::getUserId, signup.getUserId())
-                            .eq(Notification::getType, NotificationType.ACTIVITY_START)
-                            .like(Notification::getContent, activity.getTitle())
-            );
-            
-            if (existingStudentNotification == 0) {
-                NotificationDTO studentDto = new NotificationDTO();
-                studentDto.setUserId(signup.getUserId());
-                studentDto.setType(NotificationType.ACTIVITY_START);
-                studentDto.setTemplateData(templateData);
-                createNotification(studentDto);
-                studentNotificationCount++;
-            }
-        }
-
-        log.info("发送活动开始通知: 活动ID={}, 通知数量={}", activityId, studentNotificationCount + 1);
+        int count = fanOutActivityNotification(activity, NotificationType.ACTIVITY_START, studentIds, templateData);
+        log.info("发送活动开始通知: 活动ID={}, 通知数量={}", activityId, count);
     }
 
     @Override
@@ -244,55 +243,15 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
             return;
         }
 
-        long existingTeacherNotification = this.count(
-                new LambdaQueryWrapper<Notification>()
-                        .eq(Notification::getUserId, activity.getOrganizerId())
-                        .eq(Notification::getType, NotificationType.ACTIVITY_ONGOING)
-                        .like(Notification::getContent, activity.getTitle())
-        );
-
-        if (existingTeacherNotification > 0) {
-            log.info("活动进行中通知已存在，跳过发送: 活动ID={}, 标题={}", activityId, activity.getTitle());
-            return;
-        }
-
-        List<Signup> signups = signupMapper.selectList(
-                new LambdaQueryWrapper<Signup>()
-                        .eq(Signup::getActivityId, activityId)
-                        .eq(Signup::getStatus, SignupStatus.APPROVED)
-        );
+        List<Long> studentIds = selectApprovedStudentIds(activityId, false);
 
         String timeStr = activity.getStartTime() != null ? activity.getStartTime().format(TIME_FORMATTER) : null;
         Map<String, Object> templateData = templateService.createActivityStatusData(
                 activityId, activity.getTitle(), timeStr, activity.getLocation()
         );
 
-        NotificationDTO teacherDto = new NotificationDTO();
-        teacherDto.setUserId(activity.getOrganizerId());
-        teacherDto.setType(NotificationType.ACTIVITY_ONGOING);
-        teacherDto.setTemplateData(templateData);
-        createNotification(teacherDto);
-
-        int studentNotificationCount = 0;
-        for (Signup signup : signups) {
-            long existingStudentNotification = this.count(
-                    new LambdaQueryWrapper<Notification>()
-                            .eq(Notification::getUserId, signup.getUserId())
-                            .eq(Notification::getType, NotificationType.ACTIVITY_ONGOING)
-                            .like(Notification::getContent, activity.getTitle())
-            );
-
-            if (existingStudentNotification == 0) {
-                NotificationDTO studentDto = new NotificationDTO();
-                studentDto.setUserId(signup.getUserId());
-                studentDto.setType(NotificationType.ACTIVITY_ONGOING);
-                studentDto.setTemplateData(templateData);
-                createNotification(studentDto);
-                studentNotificationCount++;
-            }
-        }
-
-        log.info("发送活动进行中通知: 活动ID={}, 通知数量={}", activityId, studentNotificationCount + 1);
+        int count = fanOutActivityNotification(activity, NotificationType.ACTIVITY_ONGOING, studentIds, templateData);
+        log.info("发送活动进行中通知: 活动ID={}, 通知数量={}", activityId, count);
     }
 
     @Override
@@ -304,63 +263,16 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
             return;
         }
 
-        // 检查教师是否已收到该活动的结束通知（去重）
-        long existingTeacherNotification = this.count(
-                new LambdaQueryWrapper<Notification>()
-                        .eq(Notification::getUserId, activity.getOrganizerId())
-                        .eq(Notification::getType, NotificationType.ACTIVITY_END)
-                        .like(Notification::getContent, activity.getTitle())
-        );
-        
-        if (existingTeacherNotification > 0) {
-            log.info("活动结束通知已存在，跳过发送: 活动ID={}, 标题={}", activityId, activity.getTitle());
-            return;
-        }
-
-        // 获取已签到的学生
-        List<Signup> signups = signupMapper.selectList(
-                new LambdaQueryWrapper<Signup>()
-                        .eq(Signup::getActivityId, activityId)
-                        .eq(Signup::getStatus, SignupStatus.APPROVED)
-                        .eq(Signup::getSignedIn, true)
-        );
+        // 获取已签到但未签退的学生
+        List<Long> studentIds = selectApprovedStudentIds(activityId, true);
 
         // 创建模板数据
         Map<String, Object> templateData = templateService.createActivityStatusData(
                 activityId, activity.getTitle(), null, null
         );
 
-        // 通知教师
-        NotificationDTO teacherDto = new NotificationDTO();
-        teacherDto.setUserId(activity.getOrganizerId());
-        teacherDto.setType(NotificationType.ACTIVITY_END);
-        teacherDto.setTemplateData(templateData);
-        createNotification(teacherDto);
-
-        int studentNotificationCount = 0;
-        // 通知已签到但未签退的学生（检查去重）
-        for (Signup signup : signups) {
-            if (!Boolean.TRUE.equals(signup.getSignedOut())) {
-                // 检查该学生是否已收到该活动的结束通知
-                long existingStudentNotification = this.count(
-                        new LambdaQueryWrapper<Notification>()
-                                .eq(Notification::getUserId, signup.getUserId())
-                                .eq(Notification::getType, NotificationType.ACTIVITY_END)
-                                .like(Notification::getContent, activity.getTitle())
-                );
-                
-                if (existingStudentNotification == 0) {
-                    NotificationDTO studentDto = new NotificationDTO();
-                    studentDto.setUserId(signup.getUserId());
-                    studentDto.setType(NotificationType.ACTIVITY_END);
-                    studentDto.setTemplateData(templateData);
-                    createNotification(studentDto);
-                    studentNotificationCount++;
-                }
-            }
-        }
-
-        log.info("发送活动结束通知: 活动ID={}, 通知数量={}", activityId, studentNotificationCount + 1);
+        int count = fanOutActivityNotification(activity, NotificationType.ACTIVITY_END, studentIds, templateData);
+        log.info("发送活动结束通知: 活动ID={}, 通知数量={}", activityId, count);
     }
 
     @Override
@@ -373,10 +285,14 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         }
 
         // 获取所有已报名的学生
-        List<Signup> signups = signupMapper.selectList(
-                new LambdaQueryWrapper<Signup>()
-                        .eq(Signup::getActivityId, activityId)
-        );
+        List<Long> studentIds = signupMapper.selectList(
+                        new LambdaQueryWrapper<Signup>()
+                                .select(Signup::getUserId)
+                                .eq(Signup::getActivityId, activityId)
+                ).stream()
+                .map(Signup::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
 
         // 创建模板数据
         Map<String, Object> templateData = templateService.createActivityStatusData(
@@ -384,22 +300,190 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         );
 
         // 通知所有报名学生 - 使用ACTIVITY_END作为取消通知的类型
-        for (Signup signup : signups) {
-            NotificationDTO dto = new NotificationDTO();
-            dto.setUserId(signup.getUserId());
-            dto.setType(NotificationType.ACTIVITY_END);
-            dto.setTitle("活动已取消");
-            dto.setContent(String.format("很抱歉，活动《%s》已被取消。", activity.getTitle()));
-            dto.setTemplateData(templateData);
-            createNotification(dto);
+        String title = "活动已取消";
+        String content = String.format("很抱歉，活动《%s》已被取消。", activity.getTitle());
+        String linkUrl = templateService.generateLinkUrl(NotificationType.ACTIVITY_END, templateData);
+        int count = batchInsertNotifications(NotificationType.ACTIVITY_END,
+                userId -> buildDedupKey(NotificationType.ACTIVITY_CANCEL, activityId, userId),
+                activityId, studentIds, title, content, linkUrl);
+
+        log.info("发送活动取消通知: 活动ID={}, 通知数量={}", activityId, count);
+    }
+
+    /**
+     * 查询活动已批准报名的学生ID
+     *
+     * @param activityId       活动ID
+     * @param signedInNotOut   是否仅查询已签到且未签退的学生
+     */
+    private List<Long> selectApprovedStudentIds(Long activityId, boolean signedInNotOut) {
+        LambdaQueryWrapper<Signup> wrapper = new LambdaQueryWrapper<Signup>()
+                .select(Signup::getUserId)
+                .eq(Signup::getActivityId, activityId)
+                .eq(Signup::getStatus, SignupStatus.APPROVED);
+        if (signedInNotOut) {
+            wrapper.eq(Signup::getSignedIn, true)
+                   .and(w -> w.ne(Signup::getSignedOut, true).or().isNull(Signup::getSignedOut));
+        }
+        return signupMapper.selectList(wrapper).stream()
+                .map(Signup::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 活动状态类通知批量扇出：模板只渲染一次，分批多行插入，已存在幂等键的通知跳过。
+     * 活动发起人已收到该类通知时视为本次通知已发送过，整体跳过。
+     *
+     * @return 实际发送的通知数量
+     */
+    private int fanOutActivityNotification(Activity activity, NotificationType type,
+                                           List<Long> studentIds, Map<String, Object> templateData) {
+        String title = templateService.generateTitle(type, templateData);
+        String content = templateService.generateContent(type, templateData);
+        String linkUrl = templateService.generateLinkUrl(type, templateData);
+
+        // 先通知发起人，发起人的幂等键已存在说明该活动的此类通知已发送过
+        Long organizerId = activity.getOrganizerId();
+        Function<Long, String> dedupKey = userId -> buildDedupKey(type, activity.getId(), userId);
+        if (batchInsertNotifications(type, dedupKey, activity.getId(), List.of(organizerId), title, content, linkUrl) == 0) {
+            log.info("活动{}通知已存在，跳过发送: 活动ID={}, 标题={}", type.getDescription(), activity.getId(), activity.getTitle());
+            return 0;
+        }
+
+        Set<Long> recipients = new LinkedHashSet<>(studentIds);
+        recipients.remove(organizerId);
+        return 1 + batchInsertNotifications(type, dedupKey, activity.getId(), new ArrayList<>(recipients), title, content, linkUrl);
+    }
+
+    /**
+     * 分批多行插入相同内容的通知，已存在相同幂等键的通知跳过
+     *
+     * @param type    通知类型
+     * @param dedupKey 按用户ID生成幂等键，为空时不设幂等键
+     * @return 实际插入的通知数量
+     */
+    private int batchInsertNotifications(NotificationType type, Function<Long, String> dedupKey, Long activityId,
+                                         List<Long> userIds, String title, String content, String linkUrl) {
+        if (userIds.isEmpty()) {
+            return 0;
         }
 
-        log.info("发送活动取消通知: 活动ID={}, 通知数量={}", activityId, signups.size());
+        int chunkSize = batchChunkSize > 0 ? batchChunkSize : 500;
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+
+        for (int from = 0; from < userIds.size(); from += chunkSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+
+            List<Notification> notifications = new ArrayList<>(chunk.size());
+            for (Long userId : chunk) {
+                Notification notification = new Notification();
+                notification.setUserId(userId);
+                notification.setType(type);
+                notification.setActivityId(activityId);
+                notification.setDedupKey(dedupKey != null ? dedupKey.apply(userId) : null);
+                notification.setTitle(title);
+                notification.setContent(content);
+                notification.setLinkUrl(linkUrl);
+                notification.setIsRead(false);
+                notification.setCreatedTime(now);
+                notifications.add(notification);
+            }
+
+            notifications = excludeExisting(notifications);
+            if (notifications.isEmpty()) {
+                continue;
+            }
+            baseMapper.insertBatchIfAbsent(notifications);
+            List<Long> recipients = notifications.stream().map(Notification::getUserId).collect(Collectors.toList());
+            unreadCounterService.incrementAll(recipients);
+            pushService.pushUnreadCount(recipients);
+            inserted += notifications.size();
+        }
+        return inserted;
+    }
+
+    /**
+     * 去掉幂等键已存在的通知；没有幂等键的通知全部保留
+     */
+    private List<Notification> excludeExisting(List<Notification> notifications) {
+        List<String> keys = notifications.stream()
+                .map(Notification::getDedupKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return notifications;
+        }
+        Set<String> existing = new HashSet<>(baseMapper.selectExistingDedupKeys(keys));
+        if (existing.isEmpty()) {
+            return notifications;
+        }
+        return notifications.stream()
+                .filter(n -> n.getDedupKey() == null || !existing.contains(n.getDedupKey()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 插入单条通知，幂等键已存在时不插入并回填已有通知ID
+     *
+     * @return 是否插入了新通知
+     */
+    private boolean saveIgnoreDuplicate(Notification notification) {
+        if (notification.getDedupKey() == null) {
+            this.save(notification);
+            return true;
+        }
+        Notification existing = this.getOne(
+                new LambdaQueryWrapper<Notification>()
+                        .select(Notification::getId)
+                        .eq(Notification::getDedupKey, notification.getDedupKey())
+        );
+        if (existing == null) {
+            // 并发重复投递由唯一键兜底，只跳过冲突行
+            baseMapper.insertIfAbsent(notification);
+            return true;
+        }
+        notification.setId(existing.getId());
+        log.debug("通知已存在，忽略重复创建: dedupKey={}", notification.getDedupKey());
+        return false;
+    }
+
+    /**
+     * 确定通知幂等键：优先使用调用方指定的键，活动状态类通知默认按 (类型, 活动, 用户) 生成
+     */
+    private String resolveDedupKey(NotificationDTO dto, Long activityId) {
+        if (StringUtils.hasText(dto.getDedupKey())) {
+            return dto.getDedupKey();
+        }
+        if (activityId != null && ACTIVITY_STATUS_TYPES.contains(dto.getType())) {
+            return buildDedupKey(dto.getType(), activityId, dto.getUserId());
+        }
+        return null;
+    }
+
+    private static String buildDedupKey(NotificationType type, Long activityId, Long userId) {
+        return type.getCode() + ":" + activityId + ":" + userId;
+    }
+
+    /**
+     * 发件箱投递的通知按 (事件ID, 接收人) 去重，事件重复投递或部分失败后重试都不会重复创建
+     */
+    private static String outboxDedupKey(Long outboxId, Long userId) {
+        return outboxId != null ? "outbox:" + outboxId + ":" + userId : null;
+    }
+
+    /**
+     * 从模板数据中提取关联活动ID
+     */
+    private Long extractActivityId(Map<String, Object> templateData) {
+        Object activityId = templateData.get("activityId");
+        return activityId instanceof Number ? ((Number) activityId).longValue() : null;
     }
 
     @Override
     @Transactional
-    public void sendRegistrationPendingNotification(Long activityId, Long studentId, Long teacherId) {
+    public void sendRegistrationPendingNotification(Long activityId, Long studentId, Long teacherId, Long outboxId) {
         Activity activity = activityMapper.selectById(activityId);
         if (activity == null) {
             log.warn("活动不存在，无法发送报名审核通知: {}", activityId);
@@ -422,6 +506,7 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         dto.setUserId(teacherId);
         dto.setType(NotificationType.REGISTRATION_PENDING);
         dto.setTemplateData(templateData);
+        dto.setDedupKey(outboxDedupKey(outboxId, teacherId));
         createNotification(dto);
 
         log.info("发送报名审核通知: 活动ID={}, 学生ID={}, 教师ID={}", activityId, studentId, teacherId);
@@ -429,7 +514,8 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
 
     @Override
     @Transactional
-    public void sendRegistrationResultNotification(Long activityId, Long studentId, boolean approved, String reason) {
+    public void sendRegistrationResultNotification(Long activityId, Long studentId, boolean approved, String reason,
+                                                   Long outboxId) {
         Activity activity = activityMapper.selectById(activityId);
         if (activity == null) {
             log.warn("活动不存在，无法发送报名结果通知: {}", activityId);
@@ -452,6 +538,7 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         dto.setUserId(studentId);
         dto.setType(approved ? NotificationType.REGISTRATION_APPROVED : NotificationType.REGISTRATION_REJECTED);
         dto.setTemplateData(templateData);
+        dto.setDedupKey(outboxDedupKey(outboxId, studentId));
         createNotification(dto);
 
         log.info("发送报名结果通知: 活动ID={}, 学生ID={}, 结果={}", activityId, studentId, approved ? "通过" : "拒绝");
@@ -459,7 +546,81 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
 
     @Override
     @Transactional
-    public void sendCheckoutPendingNotification(Long activityId, Long studentId, Long teacherId, String checkoutReason) {
+    public void sendRegistrationResultNotifications(Long activityId, List<Long> studentIds, boolean approved, String reason,
+                                                    Long outboxId) {
+        if (studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        Activity activity = activityMapper.selectById(activityId);
+        if (activity == null) {
+            log.warn("活动不存在，无法发送报名结果通知: {}", activityId);
+            return;
+        }
+
+        Map<String, Object> templateData = templateService.createApprovalResultData(
+                activityId, activity.getTitle(), approved, reason
+        );
+        templateData.put("activityTime", activity.getStartTime() != null ? activity.getStartTime().format(TIME_FORMATTER) : null);
+        templateData.put("activityLocation", activity.getLocation());
+
+        NotificationType type = approved ? NotificationType.REGISTRATION_APPROVED : NotificationType.REGISTRATION_REJECTED;
+        String title = templateService.generateTitle(type, templateData);
+        String content = templateService.generateContent(type, templateData);
+        String linkUrl = templateService.generateLinkUrl(type, templateData);
+        // 幂等键取自发件箱事件，重试时已写入的学生被跳过
+        int count = batchInsertNotifications(type, userId -> outboxDedupKey(outboxId, userId),
+                activityId, studentIds, title, content, linkUrl);
+
+        log.info("批量发送报名结果通知: 活动ID={}, 通知数量={}, 结果={}", activityId, count, approved ? "通过" : "拒绝");
+    }
+
+    @Override
+    @Transactional
+    public void sendWaitlistPromotedNotification(Long activityId, Long studentId, Long outboxId) {
+        Activity activity = activityMapper.selectById(activityId);
+        if (activity == null) {
+            log.warn("活动不存在，无法发送候补转正通知: {}", activityId);
+            return;
+        }
+
+        Map<String, Object> templateData = new HashMap<>();
+        templateData.put("activityId", activityId);
+        templateData.put("activityTitle", activity.getTitle());
+        templateData.put("activityTime", activity.getStartTime() != null ? activity.getStartTime().format(TIME_FORMATTER) : null);
+
+        NotificationDTO dto = new NotificationDTO();
+        dto.setUserId(studentId);
+        dto.setType(NotificationType.WAITLIST_PROMOTED);
+        dto.setTemplateData(templateData);
+        dto.setDedupKey(outboxDedupKey(outboxId, studentId));
+        createNotification(dto);
+
+        log.info("发送候补转正通知: 活动ID={}, 学生ID={}", activityId, studentId);
+    }
+
+    @Override
+    @Transactional
+    public void sendRedemptionCancelledNotification(Long userId, String productName, String voucherCode, String reason) {
+        Map<String, Object> templateData = new HashMap<>();
+        templateData.put("productName", productName);
+        templateData.put("voucherCode", voucherCode);
+        templateData.put("reason", reason);
+
+        NotificationDTO dto = new NotificationDTO();
+        dto.setUserId(userId);
+        dto.setType(NotificationType.REDEMPTION_CANCELLED);
+        dto.setTemplateData(templateData);
+        // 同一凭证只通知一次，发件箱重复投递时不会重复创建
+        dto.setDedupKey(NotificationType.REDEMPTION_CANCELLED.getCode() + ":" + voucherCode);
+        createNotification(dto);
+
+        log.info("发送兑换取消通知: 用户ID={}, 凭证编号={}", userId, voucherCode);
+    }
+
+    @Override
+    @Transactional
+    public void sendCheckoutPendingNotification(Long activityId, Long studentId, Long teacherId, String checkoutReason,
+                                                Long outboxId) {
         Activity activity = activityMapper.selectById(activityId);
         if (activity == null) {
             log.warn("活动不存在，无法发送签退审核通知: {}", activityId);
@@ -482,6 +643,7 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         dto.setUserId(teacherId);
         dto.setType(NotificationType.CHECKOUT_PENDING);
         dto.setTemplateData(templateData);
+        dto.setDedupKey(outboxDedupKey(outboxId, teacherId));
         createNotification(dto);
 
         log.info("发送签退审核通知: 活动ID={}, 学生ID={}, 教师ID={}", activityId, studentId, teacherId);
@@ -489,7 +651,8 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
 
     @Override
     @Transactional
-    public void sendCheckoutResultNotification(Long activityId, Long studentId, boolean approved, String reason) {
+    public void sendCheckoutResultNotification(Long activityId, Long studentId, boolean approved, String reason,
+                                               Long outboxId) {
         Activity activity = activityMapper.selectById(activityId);
         if (activity == null) {
             log.warn("活动不存在，无法发送签退结果通知: {}", activityId);
@@ -506,6 +669,7 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         dto.setUserId(studentId);
         dto.setType(approved ? NotificationType.CHECKOUT_APPROVED : NotificationType.CHECKOUT_REJECTED);
         dto.setTemplateData(templateData);
+        dto.setDedupKey(outboxDedupKey(outboxId, studentId));
         createNotification(dto);
 
         log.info("发送签退结果通知: 活动ID={}, 学生ID={}, 结果={}", activityId, studentId, approved ? "通过" : "拒绝");
@@ -654,13 +818,19 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         Notification notification = new Notification();
         notification.setUserId(dto.getUserId());
         notification.setType(dto.getType());
+        notification.setActivityId(extractActivityId(templateData));
+        notification.setDedupKey(resolveDedupKey(dto, notification.getActivityId()));
         notification.setTitle(title);
         notification.setContent(content);
         notification.setLinkUrl(linkUrl);
         notification.setIsRead(false);
         notification.setCreatedTime(LocalDateTime.now());
 
-        this.save(notification);
+        if (!saveIgnoreDuplicate(notification)) {
+            return notification.getId();
+        }
+        unreadCounterService.increment(notification.getUserId(), 1);
+        pushService.pushNotification(notification);
         log.info("创建增强链接通知成功: 用户ID={}, 类型={}, 标题={}, 链接={}", 
                 dto.getUserId(), dto.getType(), title, linkUrl);
         return notification.getId();
@@ -31,6 +31,10 @@ public class NotificationTemplateServiceImpl implements NotificationTemplateServ
                 return "报名审核通过";
             case REGISTRATION_REJECTED:
                 return "报名审核未通过";
+            case WAITLIST_PROMOTED:
+                return "候补报名成功";
+            case REDEMPTION_CANCELLED:
+                return "兑换未成功";
             case CHECKOUT_PENDING:
                 return "新的签退申请";
             case CHECKOUT_APPROVED:
@@ -57,6 +61,10 @@ public class NotificationTemplateServiceImpl implements NotificationTemplateServ
                 return generateRegistrationApprovedContent(templateData);
             case REGISTRATION_REJECTED:
                 return generateRegistrationRejectedContent(templateData);
+            case WAITLIST_PROMOTED:
+                return generateWaitlistPromotedContent(templateData);
+            case REDEMPTION_CANCELLED:
+                return generateRedemptionCancelledContent(templateData);
             case CHECKOUT_PENDING:
                 return generateCheckoutPendingContent(templateData);
             case CHECKOUT_APPROVED:
@@ -70,6 +78,11 @@ public class NotificationTemplateServiceImpl implements NotificationTemplateServ
 
     @Override
     public String generateLinkUrl(NotificationType type, Map<String, Object> templateData) {
+        if (type == NotificationType.REDEMPTION_CANCELLED) {
+            // 兑换取消通知 - 跳转到我的兑换记录
+            return "/student/mall/my-redemptions";
+        }
+
         Long activityId = (Long) templateData.get("activityId");
         if (activityId == null) {
             return null;
@@ -94,6 +107,9 @@ public class NotificationTemplateServiceImpl implements NotificationTemplateServ
             case REGISTRATION_REJECTED:
                 // 报名审核拒绝通知 - 跳转到活动详情页面，并显示拒绝信息
                 return "/activities/" + activityId + "?tab=info&highlight=rejected";
+            case WAITLIST_PROMOTED:
+                // 候补转为报名通知 - 跳转到活动详情页面，并高亮报名状态
+                return "/activities/" + activityId + "?tab=info&highlight=pending";
             case CHECKOUT_PENDING:
                 // 签退待审核通知 - 跳转到审核页面，并定位到签退审核列表
                 return "/activities/" + activityId + "/review?tab=checkout&status=pending";
@@ -233,6 +249,37 @@ public class NotificationTemplateServiceImpl implements NotificationTemplateServ
         return content.toString();
     }
 
+    private String generateWaitlistPromotedContent(Map<String, Object> templateData) {
+        String activityTitle = (String) templateData.get("activityTitle");
+        String activityTime = (String) templateData.get("activityTime");
+
+        StringBuilder content = new StringBuilder();
+        content.append("您候补的活动《").append(activityTitle).append("》有名额空出，已自动为您提交报名");
+
+        if (StringUtils.hasText(activityTime)) {
+            content.append("，活动时间：").append(activityTime);
+        }
+
+        content.append("。请等待活动发起人审核。");
+        return content.toString();
+    }
+
+    private String generateRedemptionCancelledContent(Map<String, Object> templateData) {
+        String productName = (String) templateData.get("productName");
+        String voucherCode = (String) templateData.get("voucherCode");
+        String reason = (String) templateData.get("reason");
+
+        StringBuilder content = new StringBuilder();
+        content.append("您兑换的商品《").append(productName).append("》（凭证编号：").append(voucherCode).append("）未能成功");
+
+        if (StringUtils.hasText(reason)) {
+            content.append("，原因：").append(reason);
+        }
+
+        content.append("。该凭证已作废，积分未扣除。");
+        return content.toString();
+    }
+
     private String generateCheckoutPendingContent(Map<String, Object> templateData) {
         String studentName = (String) templateData.get("studentName");
         String studentNumber = (String) templateData.get("studentNumber");
@@ -0,0 +1,284 @@
+package com.hngy.cvs.service.impl;
+
+import com.hngy.cvs.mapper.NotificationMapper;
+import com.hngy.cvs.service.NotificationUnreadCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 未读通知计数服务实现
+ * <p>
+ * 每个用户一个计数key {@code cvs:notification:unread:{userId}}，带有效期，漂移最多持续一个有效期；
+ * 进程内近端缓存短时保存读取结果，本实例的写入直接刷新近端缓存；
+ * 其它实例的写入随通知推送频道的未读数广播到达，各实例收到后丢弃对应用户的近端缓存，广播丢失时在近端缓存过期后可见。
+ * 计数属于派生数据，Redis 异常时降级为数据库计数，写入失败则删除对应计数等待重建。
+ * <p>
+ * 计数不存在时的调整会留下脏标记；从数据库重建时先清除脏标记再计数，写回时发现脏标记说明计数期间有调整被忽略，
+ * 放弃写回，下次查询再重建，避免把过期的数据库计数写入缓存。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationUnreadCounterServiceImpl implements NotificationUnreadCounterService {
+
+    private static final String UNREAD_KEY_PREFIX = "cvs:notification:unread:";
+    private static final String DIRTY_SUFFIX = ":dirty";
+    private static final long DIRTY_TTL_SECONDS = 60L;
+
+    /**
+     * KEYS 为各用户的计数key，ARGV = 变化量、脏标记有效期（秒）。
+     * 仅调整已存在的计数，结果不小于0，保留原有效期；计数不存在时设置脏标记。返回最后一个用户调整后的值，不存在时返回 -1
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local result = -1\n" +
+            "for i = 1, #KEYS do\n" +
+            "  local current = redis.call('GET', KEYS[i])\n" +
+            "  if current then\n" +
+            "    result = tonumber(current) + tonumber(ARGV[1])\n" +
+            "    if result < 0 then result = 0 end\n" +
+            "    redis.call('SET', KEYS[i], result, 'KEEPTTL')\n" +
+            "  else\n" +
+            "    redis.call('SET', KEYS[i] .. '" + DIRTY_SUFFIX + "', 1, 'EX', ARGV[2])\n" +
+            "    result = -1\n" +
+            "  end\n" +
+            "end\n" +
+            "return result",
+            Long.class);
+
+    /**
+     * 从数据库重建后写回：KEYS = 计数key、脏标记；ARGV = 数据库计数、有效期（秒）。
+     * 存在脏标记时不写回返回 0，写入成功返回 1，已被其它线程重建返回 2
+     */
+    private static final DefaultRedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end\n" +
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'EX', ARGV[2]) then return 1 end\n" +
+            "return 2",
+            Long.class);
+
+    /**
+     * 全部已读后清零：KEYS = 计数key；ARGV = 本次标记已读的数量。
+     * 计数与标记数一致时置0，不一致说明期间有新通知或计数已漂移，删除计数等待重建
+     */
+    private static final DefaultRedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1])\n" +
+            "if not current then return -1 end\n" +
+            "if tonumber(current) == tonumber(ARGV[1]) then\n" +
+            "  redis.call('SET', KEYS[1], 0, 'KEEPTTL')\n" +
+            "  return 0\n" +
+            "end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "return -1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationMapper notificationMapper;
+
+    @Value("${notification.unread.near-cache-ttl-ms:3000}")
+    private long nearCacheTtlMs;
+
+    @Value("${notification.unread.near-cache-max-size:10000}")
+    private int nearCacheMaxSize;
+
+    /**
+     * Redis 计数有效期（秒），过期后从数据库重建
+     */
+    @Value("${notification.unread.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, CachedCount> nearCache = new ConcurrentHashMap<>();
+
+    @Override
+    public long getUnreadCount(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = nearCache.get(userId);
+        if (cached != null && cached.expireAt > now) {
+            return cached.count;
+        }
+        return refreshUnreadCount(userId);
+    }
+
+    @Override
+    public long refreshUnreadCount(Long userId) {
+        long count;
+        try {
+            count = loadFromRedis(userId);
+        } catch (Exception e) {
+            log.warn("读取未读通知计数失败，降级为数据库查询: userId={}, error={}", userId, e.getMessage());
+            count = countFromDatabase(userId);
+        }
+        putNearCache(userId, count);
+        return count;
+    }
+
+    @Override
+    public void increment(Long userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        runAfterCommit(Collections.singletonList(userId), () -> {
+            Long result = stringRedisTemplate.execute(INCREMENT_SCRIPT,
+                    Collections.singletonList(buildKey(userId)), String.valueOf(delta), String.valueOf(DIRTY_TTL_SECONDS));
+            if (result != null && result >= 0) {
+                putNearCache(userId, result);
+            } else {
+                nearCache.remove(userId);
+            }
+        });
+    }
+
+    @Override
+    public void incrementAll(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        runAfterCommit(ids, () -> {
+            stringRedisTemplate.execute(INCREMENT_SCRIPT, buildKeys(ids), "1", String.valueOf(DIRTY_TTL_SECONDS));
+            ids.forEach(nearCache::remove);
+        });
+    }
+
+    @Override
+    public void reset(Long userId, long markedCount) {
+        if (userId == null) {
+            return;
+        }
+        runAfterCommit(Collections.singletonList(userId), () -> {
+            Long result = stringRedisTemplate.execute(RESET_SCRIPT,
+                    Collections.singletonList(buildKey(userId)), String.valueOf(markedCount));
+            if (result != null && result == 0L) {
+                putNearCache(userId, 0L);
+            } else {
+                nearCache.remove(userId);
+            }
+        });
+    }
+
+    @Override
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        runAfterCommit(ids, () -> {
+            ids.forEach(nearCache::remove);
+            stringRedisTemplate.delete(buildKeys(ids));
+        });
+    }
+
+    @Override
+    public void evictNearCache(Collection<Long> userIds) {
+        if (userIds == null) {
+            return;
+        }
+        userIds.forEach(nearCache::remove);
+    }
+
+    /**
+     * 读取Redis计数，不存在时从数据库重建；并发重建时以先写入者为准，计数期间有调整被忽略时不写回
+     */
+    private long loadFromRedis(Long userId) {
+        String key = buildKey(userId);
+        String value = stringRedisTemplate.opsForValue().get(key);
+        if (value != null) {
+            return Long.parseLong(value);
+        }
+
+        stringRedisTemplate.delete(key + DIRTY_SUFFIX);
+        long count = countFromDatabase(userId);
+        Long result = stringRedisTemplate.execute(REBUILD_SCRIPT, List.of(key, key + DIRTY_SUFFIX),
+                String.valueOf(count), String.valueOf(ttlSeconds));
+        if (result == null || result != 2L) {
+            return count;
+        }
+        String current = stringRedisTemplate.opsForValue().get(key);
+        return current != null ? Long.parseLong(current) : count;
+    }
+
+    private String buildKey(Long userId) {
+        return UNREAD_KEY_PREFIX + userId;
+    }
+
+    private List<String> buildKeys(Collection<Long> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(buildKey(userId));
+        }
+        return keys;
+    }
+
+    private long countFromDatabase(Long userId) {
+        Long count = notificationMapper.countUnreadByUserId(userId);
+        return count != null ? count : 0L;
+    }
+
+    private void putNearCache(Long userId, long count) {
+        if (nearCache.size() >= nearCacheMaxSize && !nearCache.containsKey(userId)) {
+            long now = System.currentTimeMillis();
+            nearCache.values().removeIf(cached -> cached.expireAt <= now);
+            // 仍然已满时只淘汰一条，不清空整个缓存造成集中回源
+            Iterator<Long> iterator = nearCache.keySet().iterator();
+            if (nearCache.size() >= nearCacheMaxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        nearCache.put(userId, new CachedCount(count, System.currentTimeMillis() + nearCacheTtlMs));
+    }
+
+    /**
+     * 事务提交后执行计数调整；失败时删除相关计数，由下次查询从数据库重建
+     */
+    private void runAfterCommit(List<Long> userIds, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                userIds.forEach(nearCache::remove);
+                log.warn("同步未读通知计数失败，等待重建: userIds={}, error={}", userIds, e.getMessage());
+                try {
+                    stringRedisTemplate.delete(buildKeys(userIds));
+                } catch (Exception ignored) {
+                    // Redis 不可用时读取会降级为数据库查询
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    private static final class CachedCount {
+        private final long count;
+        private final long expireAt;
+
+        private CachedCount(long count, long expireAt) {
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.hngy.cvs.service.impl;
 
+import cn.hutool.crypto.digest.DigestUtil;
 import com.hngy.cvs.common.util.AssertUtils;
 import com.hngy.cvs.service.PdfService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDResources;
@@ -17,35 +21,92 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * PDF生成服务实现
+ * <p>
+ * 启动时把模板预处理一次（开启 NeedAppearances、为各字段写好引用固定字体名的 DA），保存为预处理后的字节；
+ * 每次渲染从内存加载这份模板得到独立副本（PDFBox 没有更轻的文档深拷贝方式），只需挂载字体、填值和扁平化。
+ * 已解析的字体放在有界池中复用（数量与渲染线程数相当），渲染期间独占一份，保存完成后归还；
+ * 字体以子集方式嵌入，证书只携带实际用到的字形。
+ */
 @Slf4j
 @Service
 public class PdfServiceImpl implements PdfService {
 
+    /**
+     * 渲染流程版本，渲染方式变化导致输出不同时递增，使已缓存的证书失效
+     */
+    private static final String RENDER_VERSION = "2";
+
+    /**
+     * 证书字体在表单默认资源和页资源中的名称
+     */
+    private static final COSName FONT_RESOURCE = COSName.getPDFName("CvsFont");
+    private static final COSName HELV = COSName.getPDFName("Helv");
+
+    /**
+     * 字段 DA：0 g = 黑色填充，15 = 字号
+     */
+    private static final String FIELD_DA = "/" + FONT_RESOURCE.getName() + " 15 Tf 0 g";
+
+    /**
+     * 数据键 -> 模板表单字段名
+     */
+    private static final Map<String, String> FIELD_NAMES = Map.of(
+            "name", "text_12iepk",
+            "username", "text_14sfkf",
+            "serial", "text_15uyeh",
+            "issueDate", "text_17devf"
+    );
+
     @Value("${certificate.template.path:assets/cert_template.pdf}")
     private String templatePath;
 
-    // 缓存模板和字体，避免重复加载
+    /**
+     * 已解析字体的最大份数，0 表示与CPU核数相同
+     */
+    @Value("${certificate.render.font-pool-size:0}")
+    private int fontPoolSize;
+
+    // 缓存预处理后的模板和字体，避免重复加载
     private byte[] templateCache;
     private byte[] fontCache;
+    private String templateVersion = "";
+
+    /**
+     * 空闲的已解析字体（TrueTypeFont 读取字形时不是线程安全的，同一时刻只由一个渲染使用）。
+     * 按需解析，总数不超过 {@link #fontPoolSize}，超出时等待其它渲染归还，
+     * 请求线程上的即时渲染不会让每个 Tomcat 线程各自常驻一份字体
+     */
+    private BlockingQueue<TrueTypeFont> fontPool;
+    private final AtomicInteger parsedFontCount = new AtomicInteger();
 
     /**
-     * 应用启动时预加载模板和字体到内存
+     * 应用启动时预加载模板和字体到内存，并预处理模板
      */
     @PostConstruct
     public void init() {
+        if (fontPoolSize <= 0) {
+            fontPoolSize = Runtime.getRuntime().availableProcessors();
+        }
+        fontPool = new ArrayBlockingQueue<>(fontPoolSize);
         try {
             // 预加载 PDF 模板
             String resourcePath = templatePath.replace("classpath:", "");
             ClassPathResource resource = new ClassPathResource(resourcePath);
+            byte[] rawTemplate;
             try (InputStream is = resource.getInputStream()) {
-                templateCache = is.readAllBytes();
-                log.info("✓ PDF模板预加载成功，大小: {} KB", templateCache.length / 1024);
+                rawTemplate = is.readAllBytes();
+                log.info("✓ PDF模板预加载成功，大小: {} KB", rawTemplate.length / 1024);
             }
 
             // 预加载字体文件
@@ -54,15 +115,96 @@ public class PdfServiceImpl implements PdfService {
                 fontCache = is.readAllBytes();
                 log.info("✓ 中文字体预加载成功，大小: {} KB", fontCache.length / 1024);
             }
+
+            templateVersion = RENDER_VERSION
+                    + DigestUtil.sha256Hex(rawTemplate).substring(0, 12)
+                    + DigestUtil.sha256Hex(fontCache).substring(0, 12);
+
+            templateCache = prepareTemplate(rawTemplate);
+            log.info("✓ PDF模板预处理完成，大小: {} KB", templateCache.length / 1024);
         } catch (IOException e) {
             log.error("预加载资源失败，PDF生成功能可能无法正常工作", e);
         }
     }
 
+    /**
+     * 预处理模板：开启 NeedAppearances，并为各字段设置引用 {@link #FONT_RESOURCE} 的 DA，
+     * 渲染时只需把字体挂到该名称下
+     */
+    private byte[] prepareTemplate(byte[] rawTemplate) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             PDDocument document = Loader.loadPDF(rawTemplate)) {
+            PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+            if (acroForm == null) {
+                log.error("PDF模板不包含表单字段");
+                return rawTemplate;
+            }
+
+            // PDFBox 3 推荐开启 NeedAppearances = true
+            acroForm.setNeedAppearances(true);
+            if (acroForm.getDefaultResources() == null) {
+                acroForm.setDefaultResources(new PDResources());
+            }
+
+            for (String fieldName : FIELD_NAMES.values()) {
+                PDField field = acroForm.getField(fieldName);
+                if (field instanceof PDTextField tf) {
+                    tf.getCOSObject().setString(COSName.DA, FIELD_DA);
+                } else {
+                    log.warn("PDF字段不存在或类型错误: {}", fieldName);
+                }
+            }
+
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * 取一份空闲字体，池中没有且未达上限时解析新的一份，否则等待归还
+     */
+    private TrueTypeFont acquireFont() throws InterruptedException {
+        TrueTypeFont font = fontPool.poll();
+        if (font != null) {
+            return font;
+        }
+        if (parsedFontCount.getAndUpdate(count -> count < fontPoolSize ? count + 1 : count) < fontPoolSize) {
+            try {
+                return parseFont();
+            } catch (UncheckedIOException e) {
+                parsedFontCount.decrementAndGet();
+                throw e;
+            }
+        }
+        return fontPool.take();
+    }
+
+    private TrueTypeFont parseFont() {
+        try {
+            return new TTFParser().parse(new RandomAccessReadBuffer(fontCache));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public byte[] generateCertificatePdf(Map<String, String> data) {
         long startTime = System.currentTimeMillis();
-        
+
+        TrueTypeFont ttf;
+        try {
+            ttf = acquireFont();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            AssertUtils.fail("证书生成被中断，请稍后重试");
+            return null;
+        } catch (UncheckedIOException e) {
+            log.error("解析证书字体失败", e);
+            AssertUtils.fail("证书生成失败，请稍后重试");
+            return null;
+        }
+
+        // 字体子集在保存时才写入，文档保存并关闭后才能归还字体
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
              PDDocument document = Loader.loadPDF(templateCache)) {
 
@@ -72,42 +214,29 @@ public class PdfServiceImpl implements PdfService {
                 AssertUtils.fail("PDF模板不包含表单字段");
             }
 
-            // PDFBox 3 推荐开启 NeedAppearances = true
-            acroForm.setNeedAppearances(true);
-
-            // 2. 从缓存加载中文字体（避免重复读取文件）
-            PDType0Font font;
-            try (InputStream fontStream = new ByteArrayInputStream(fontCache)) {
-                font = PDType0Font.load(document, fontStream, false);
-            }
+            // 2. 以子集方式嵌入已解析的中文字体，保存时只写入填充内容用到的字形
+            PDType0Font font = PDType0Font.load(document, ttf, true);
 
             PDResources dr = acroForm.getDefaultResources();
             if (dr == null) {
                 dr = new PDResources();
             }
-
-            // 获取字体 key（如 F1）
-            COSName fontKey = dr.add(font);
-            String fontName = fontKey.getName();
-
+            dr.put(FONT_RESOURCE, font);
             // 映射 /Helv 到自定义字体
-            dr.put(COSName.getPDFName("Helv"), font);
+            dr.put(HELV, font);
             acroForm.setDefaultResources(dr);
 
             // 3. 页资源同步字体（部分阅读器必需）
             for (PDPage page : document.getPages()) {
                 PDResources pr = page.getResources();
                 if (pr == null) pr = new PDResources();
-                pr.put(fontKey, font);
-                pr.put(COSName.getPDFName("Helv"), font);
+                pr.put(FONT_RESOURCE, font);
+                pr.put(HELV, font);
                 page.setResources(pr);
             }
 
-            // 4. 填充表单字段
-            fillField(acroForm, fontName, "text_12iepk", data.get("name"));
-            fillField(acroForm, fontName, "text_14sfkf", data.get("username"));
-            fillField(acroForm, fontName, "text_15uyeh", data.get("serial"));
-            fillField(acroForm, fontName, "text_17devf", data.get("issueDate"));
+            // 4. 填充表单字段（外观在此生成，所用字形同时加入子集）
+            FIELD_NAMES.forEach((key, fieldName) -> fillField(acroForm, fieldName, data.get(key)));
 
             // 5. Flatten 表单（PDFBox 3 会自动处理外观）
             acroForm.flatten();
@@ -125,13 +254,20 @@ public class PdfServiceImpl implements PdfService {
             log.error("生成PDF证书失败 [证书号: {}]", data.get("serial"), e);
             AssertUtils.fail("证书生成失败，请稍后重试");
             return null;
+        } finally {
+            fontPool.offer(ttf);
         }
     }
 
+    @Override
+    public String getTemplateVersion() {
+        return templateVersion;
+    }
+
     /**
-     * 填充单个 PDF Text 字段
+     * 填充单个 PDF Text 字段（字段 DA 已在模板预处理时设置）
      */
-    private void fillField(PDAcroForm acroForm, String fontName, String fieldName, String value) {
+    private void fillField(PDAcroForm acroForm, String fieldName, String value) {
         try {
             if (value == null || value.trim().isEmpty()) {
                 return;
@@ -143,11 +279,6 @@ public class PdfServiceImpl implements PdfService {
                 return;
             }
 
-            // 设置字段级 DA
-            // 0 g = 黑色填充，15 = 字号
-            String da = String.format("/%s 15 Tf 0 g", fontName);
-            tf.getCOSObject().setString(COSName.DA, da);
-
             // 设置值
             tf.setValue(value);
 
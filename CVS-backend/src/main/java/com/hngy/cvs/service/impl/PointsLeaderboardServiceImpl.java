@@ -0,0 +1,386 @@
+package com.hngy.cvs.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hngy.cvs.common.util.PageUtil;
+import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.dto.response.PointsRankingVO;
+import com.hngy.cvs.entity.Points;
+import com.hngy.cvs.entity.User;
+import com.hngy.cvs.entity.enums.UserRole;
+import com.hngy.cvs.mapper.PointsMapper;
+import com.hngy.cvs.mapper.RecordMapper;
+import com.hngy.cvs.mapper.UserMapper;
+import com.hngy.cvs.service.PointsLeaderboardService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 基于Redis有序集合的积分排行榜实现
+ * <p>
+ * member 为学生ID，score 为总积分。排行榜属于派生数据，Redis 异常只记录日志，不影响积分主流程；
+ * 数据漂移由定时全量重建兜底。排行榜未就绪或Redis不可用时查询方法返回 null，由调用方降级为SQL排名。
+ * <p>
+ * 重建期间存在重建标记，增量同步同时写入重建中的临时key，重建只以 {@code ZADD NX} 补齐快照中的学生，
+ * 不会覆盖重建期间的增量写入；替换正式key与删除标记在同一脚本中完成，替换前后的增量写入都不会丢失。
+ * 重建标记同时作为跨实例的重建锁。
+ * <p>
+ * 增量同步在各自事务提交后执行，同一学生的两次变动可能乱序写入；每个学生记录最后写入的积分版本（流水ID），
+ * 版本更低的写入直接丢弃，旧的总积分不会覆盖新的总积分。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsLeaderboardServiceImpl implements PointsLeaderboardService {
+
+    private static final String LEADERBOARD_KEY = "cvs:points:leaderboard";
+    private static final String READY_KEY = LEADERBOARD_KEY + ":ready";
+    private static final String REBUILD_KEY = LEADERBOARD_KEY + ":rebuild";
+    private static final String REBUILD_MARKER_KEY = LEADERBOARD_KEY + ":rebuilding";
+    private static final String VERSION_KEY = LEADERBOARD_KEY + ":version";
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 同步积分：KEYS = 排行榜、重建标记、重建临时key、版本；ARGV = 积分、学生ID、版本。
+     * 版本低于已写入版本时不写入，返回 0
+     */
+    private static final DefaultRedisScript<Long> SYNC_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('HGET', KEYS[4], ARGV[2])\n" +
+            "if current and tonumber(ARGV[3]) < tonumber(current) then return 0 end\n" +
+            "redis.call('HSET', KEYS[4], ARGV[2], ARGV[3])\n" +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('ZADD', KEYS[3], ARGV[1], ARGV[2]) end\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 移除用户：KEYS = 排行榜、重建标记、重建临时key、版本；ARGV = 学生ID
+     */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREM', KEYS[1], ARGV[1])\n" +
+            "redis.call('HDEL', KEYS[4], ARGV[1])\n" +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('ZREM', KEYS[3], ARGV[1]) end\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 完成重建：KEYS = 排行榜、重建临时key、重建标记、就绪标记；ARGV = 完成时间
+     */
+    private static final DefaultRedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('RENAME', KEYS[2], KEYS[1])\n" +
+            "else redis.call('DEL', KEYS[1]) end\n" +
+            "redis.call('DEL', KEYS[3])\n" +
+            "redis.call('SET', KEYS[4], ARGV[1])\n" +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserMapper userMapper;
+    private final PointsMapper pointsMapper;
+    private final RecordMapper recordMapper;
+
+    /**
+     * 重建标记有效期（分钟），重建实例崩溃时标记自动过期
+     */
+    @Value("${points.leaderboard.rebuild-timeout-minutes:10}")
+    private long rebuildTimeoutMinutes;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    /**
+     * 后台重建线程池，单线程且最多排队一个任务，重复的重建请求直接丢弃
+     */
+    private ThreadPoolExecutor rebuildExecutor;
+
+    @PostConstruct
+    public void init() {
+        rebuildExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "points-leaderboard-rebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public void syncUserPoints(Long userId, long totalPoints, long version) {
+        if (userId == null) {
+            return;
+        }
+        runAfterCommit(() -> stringRedisTemplate.execute(SYNC_SCRIPT,
+                List.of(LEADERBOARD_KEY, REBUILD_MARKER_KEY, REBUILD_KEY, VERSION_KEY),
+                String.valueOf(totalPoints), String.valueOf(userId), String.valueOf(version)));
+    }
+
+    @Override
+    public void removeUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        runAfterCommit(() -> stringRedisTemplate.execute(REMOVE_SCRIPT,
+                List.of(LEADERBOARD_KEY, REBUILD_MARKER_KEY, REBUILD_KEY, VERSION_KEY),
+                String.valueOf(userId)));
+    }
+
+    @Override
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.debug("积分排行榜正在重建，跳过本次请求");
+            return;
+        }
+        try {
+            // 先设置重建标记再读取数据库，之后提交的积分变动都会同时写入临时key
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(REBUILD_MARKER_KEY,
+                    String.valueOf(System.currentTimeMillis()), rebuildTimeoutMinutes, TimeUnit.MINUTES);
+            if (!Boolean.TRUE.equals(locked)) {
+                log.debug("其它实例正在重建积分排行榜，跳过本次请求");
+                return;
+            }
+            boolean swapped = false;
+            try {
+                stringRedisTemplate.delete(REBUILD_KEY);
+                doRebuild();
+                swapped = true;
+            } finally {
+                if (!swapped) {
+                    stringRedisTemplate.delete(List.of(REBUILD_MARKER_KEY, REBUILD_KEY));
+                }
+            }
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void doRebuild() {
+        long begin = System.currentTimeMillis();
+
+        // 1. 有效学生
+        List<Long> studentIds = userMapper.selectList(new LambdaQueryWrapper<User>()
+                        .select(User::getId)
+                        .eq(User::getRole, UserRole.STUDENT)
+                        .eq(User::getDeleted, 0))
+                .stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+
+        // 2. 积分表中的总积分
+        Map<Long, Long> pointsMap = new HashMap<>();
+        for (Points points : pointsMapper.selectList(new LambdaQueryWrapper<>())) {
+            if (points.getUserId() != null && points.getPoints() != null) {
+                pointsMap.put(points.getUserId(), points.getPoints().longValue());
+            }
+        }
+
+        // 3. 没有积分表记录的学生，以服务记录积分之和兜底
+        Map<Long, Long> recordPointsMap = new HashMap<>();
+        for (Map<String, Object> row : recordMapper.sumPointsGroupByUser()) {
+            Object userId = row.get("userId");
+            Object total = row.get("totalPoints");
+            if (userId != null) {
+                recordPointsMap.put(((Number) userId).longValue(), total != null ? ((Number) total).longValue() : 0L);
+            }
+        }
+
+        // 4. 写入临时key后原子替换，避免读到半成品；NX 保留重建期间增量写入的更新值
+        Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+        for (Long studentId : studentIds) {
+            long total = pointsMap.containsKey(studentId)
+                    ? pointsMap.get(studentId)
+                    : recordPointsMap.getOrDefault(studentId, 0L);
+            batch.add(new DefaultTypedTuple<>(String.valueOf(studentId), (double) total));
+            if (batch.size() >= REBUILD_BATCH_SIZE) {
+                stringRedisTemplate.opsForZSet().addIfAbsent(REBUILD_KEY, batch);
+                batch = new HashSet<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            stringRedisTemplate.opsForZSet().addIfAbsent(REBUILD_KEY, batch);
+        }
+
+        stringRedisTemplate.execute(SWAP_SCRIPT,
+                List.of(LEADERBOARD_KEY, REBUILD_KEY, REBUILD_MARKER_KEY, READY_KEY),
+                String.valueOf(System.currentTimeMillis()));
+
+        log.info("积分排行榜重建完成，学生数: {}，耗时: {}ms", studentIds.size(), System.currentTimeMillis() - begin);
+    }
+
+    @Override
+    public PageVO<PointsRankingVO> getRankingPage(int page, int size) {
+        if (!isReady()) {
+            return null;
+        }
+
+        long start = (long) (page - 1) * size;
+        Long total;
+        Set<ZSetOperations.TypedTuple<String>> tuples;
+        long firstRank = start + 1;
+        try {
+            ZSetOperations<String, String> zSetOps = stringRedisTemplate.opsForZSet();
+            total = zSetOps.zCard(LEADERBOARD_KEY);
+            if (total == null || total == 0 || start >= total) {
+                PageVO<PointsRankingVO> empty = PageUtil.empty(page, size);
+                empty.setTotal(total != null ? total : 0L);
+                return empty;
+            }
+            tuples = zSetOps.reverseRangeWithScores(LEADERBOARD_KEY, start, start + size - 1);
+            // 页首可能与上一页末尾并列，名次按严格高分人数计算
+            if (tuples != null && !tuples.isEmpty()) {
+                Double firstScore = tuples.iterator().next().getScore();
+                firstRank = countHigher(firstScore != null ? firstScore.longValue() : 0L) + 1;
+            }
+        } catch (Exception e) {
+            log.warn("读取积分排行榜失败: {}", e.getMessage());
+            return null;
+        }
+
+        List<ZSetOperations.TypedTuple<String>> entries =
+                tuples != null ? new ArrayList<>(tuples) : Collections.emptyList();
+
+        List<Long> userIds = entries.stream()
+                .map(tuple -> Long.valueOf(tuple.getValue()))
+                .collect(Collectors.toList());
+        Map<Long, User> userMap = userIds.isEmpty() ? Collections.emptyMap() :
+                userMapper.selectBatchIds(userIds).stream()
+                        .collect(Collectors.toMap(User::getId, user -> user));
+
+        // 与 getUserRanking 和SQL降级的 RANK() 一致，并列积分同名次：积分变化时名次为位置序号，否则沿用上一名次
+        List<PointsRankingVO> records = new ArrayList<>(entries.size());
+        long rank = firstRank;
+        Long previousPoints = null;
+        for (int i = 0; i < entries.size(); i++) {
+            ZSetOperations.TypedTuple<String> tuple = entries.get(i);
+            Long userId = userIds.get(i);
+            long totalPoints = tuple.getScore() != null ? tuple.getScore().longValue() : 0L;
+
+            if (previousPoints != null && totalPoints != previousPoints) {
+                rank = start + i + 1;
+            }
+            previousPoints = totalPoints;
+
+            PointsRankingVO ranking = new PointsRankingVO();
+            ranking.setUserId(userId);
+            ranking.setTotalPoints(totalPoints);
+            ranking.setRanking(rank);
+
+            User user = userMap.get(userId);
+            if (user != null) {
+                ranking.setUsername(user.getUsername());
+                ranking.setName(user.getName());
+            }
+            records.add(ranking);
+        }
+
+        PageVO<PointsRankingVO> result = new PageVO<>();
+        result.setTotal(total);
+        result.setPageNum(page);
+        result.setPageSize(size);
+        result.setRecords(records);
+        return result;
+    }
+
+    @Override
+    public Long getUserRanking(Long userId) {
+        if (!isReady()) {
+            return null;
+        }
+
+        try {
+            Double score = stringRedisTemplate.opsForZSet().score(LEADERBOARD_KEY, String.valueOf(userId));
+            if (score == null) {
+                return null;
+            }
+            return countHigher(score.longValue()) + 1;
+        } catch (Exception e) {
+            log.warn("读取积分排行榜失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 积分严格高于给定积分的人数，积分均为整数，即 [points + 1, +inf)
+     */
+    private long countHigher(long points) {
+        Long higher = stringRedisTemplate.opsForZSet().count(LEADERBOARD_KEY, points + 1, Double.POSITIVE_INFINITY);
+        return higher != null ? higher : 0L;
+    }
+
+    @Override
+    public boolean isReady() {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY))) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("Redis不可用，积分排行榜降级: {}", e.getMessage());
+            return false;
+        }
+
+        // 首次启动或Redis数据丢失，后台重建，本次请求先走降级路径
+        if (!rebuilding.get()) {
+            log.info("积分排行榜未就绪，后台开始重建");
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("后台重建积分排行榜失败: {}", e.getMessage(), e);
+                }
+            });
+        }
+        return false;
+    }
+
+    /**
+     * 存在事务时在提交后执行，避免回滚的积分变动污染排行榜
+     */
+    private void runAfterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("同步积分排行榜失败，等待下次重建修正: {}", e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
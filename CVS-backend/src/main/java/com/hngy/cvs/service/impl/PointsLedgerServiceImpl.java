@@ -0,0 +1,152 @@
+package com.hngy.cvs.service.impl;
+
+import com.hngy.cvs.common.util.AssertUtils;
+import com.hngy.cvs.common.util.BeanUtil;
+import com.hngy.cvs.dto.response.CursorPageVO;
+import com.hngy.cvs.dto.response.PointsLedgerVO;
+import com.hngy.cvs.entity.PointsLedger;
+import com.hngy.cvs.entity.PointsSnapshot;
+import com.hngy.cvs.mapper.PointsLedgerMapper;
+import com.hngy.cvs.mapper.PointsSnapshotMapper;
+import com.hngy.cvs.service.PointsLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 积分流水服务实现
+ * <p>
+ * 流水ID单调递增，既作为历史分页的游标，也作为快照水位：快照任务按ID区间把流水累加到快照表，
+ * 每个区间一条 INSERT ... SELECT，不把流水读到应用内存。只处理写入超过一段延迟的流水，
+ * 避免越过尚未提交的事务；快照按"原余额 + 区间变动"整体覆盖，多实例重复执行结果相同。
+ *
+ * @author CVS Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsLedgerServiceImpl implements PointsLedgerService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final PointsLedgerMapper pointsLedgerMapper;
+    private final PointsSnapshotMapper pointsSnapshotMapper;
+
+    @Value("${points.ledger.snapshot-lag-seconds:60}")
+    private long snapshotLagSeconds;
+
+    @Value("${points.ledger.snapshot-batch-size:10000}")
+    private int snapshotBatchSize;
+
+    @Value("${points.ledger.retention-days:0}")
+    private int retentionDays;
+
+    @Value("${points.ledger.compact-batch-size:5000}")
+    private int compactBatchSize;
+
+    @Override
+    public long append(Long userId, int changeAmount, int balanceAfter, String type, String reason) {
+        PointsLedger ledger = new PointsLedger();
+        ledger.setUserId(userId);
+        ledger.setChangeAmount(changeAmount);
+        ledger.setBalanceAfter(balanceAfter);
+        ledger.setType(type);
+        ledger.setReason(reason);
+        pointsLedgerMapper.insert(ledger);
+        return ledger.getId();
+    }
+
+    @Override
+    public CursorPageVO<PointsLedgerVO> getHistory(Long userId, Long cursor, int size) {
+        AssertUtils.notNull(userId, "用户ID不能为空");
+        AssertUtils.isTrue(size > 0, "每页大小必须大于0");
+        AssertUtils.isTrue(size <= MAX_PAGE_SIZE, "每页大小不能超过" + MAX_PAGE_SIZE);
+
+        // 多取一条判断是否还有下一页
+        List<PointsLedger> ledgers = pointsLedgerMapper.selectHistory(userId, cursor, size + 1);
+        boolean hasMore = ledgers.size() > size;
+        if (hasMore) {
+            ledgers = ledgers.subList(0, size);
+        }
+
+        CursorPageVO<PointsLedgerVO> page = new CursorPageVO<>();
+        page.setRecords(ledgers.stream()
+                .map(ledger -> BeanUtil.to(ledger, PointsLedgerVO.class))
+                .collect(Collectors.toList()));
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore ? ledgers.get(ledgers.size() - 1).getId() : null);
+        return page;
+    }
+
+    @Override
+    public int replayBalance(Long userId) {
+        AssertUtils.notNull(userId, "用户ID不能为空");
+        PointsSnapshot snapshot = pointsSnapshotMapper.selectById(userId);
+        long balance = snapshot != null ? snapshot.getBalance() : 0L;
+        long afterId = snapshot != null ? snapshot.getLastLedgerId() : 0L;
+        return Math.toIntExact(balance + pointsLedgerMapper.sumChangesAfter(userId, afterId));
+    }
+
+    @Override
+    public long latestLedgerId(Long userId) {
+        AssertUtils.notNull(userId, "用户ID不能为空");
+        PointsSnapshot snapshot = pointsSnapshotMapper.selectById(userId);
+        long snapshotId = snapshot != null ? snapshot.getLastLedgerId() : 0L;
+        return Math.max(snapshotId, pointsLedgerMapper.selectMaxIdByUserId(userId));
+    }
+
+    @Override
+    public boolean hasHistory(Long userId) {
+        AssertUtils.notNull(userId, "用户ID不能为空");
+        return pointsSnapshotMapper.selectById(userId) != null || pointsLedgerMapper.existsByUserId(userId);
+    }
+
+    @Override
+    public void snapshot() {
+        Long upperId = pointsLedgerMapper.selectMaxIdBefore(LocalDateTime.now().minusSeconds(snapshotLagSeconds));
+        if (upperId == null) {
+            return;
+        }
+        long fromId = pointsSnapshotMapper.selectWatermark();
+        if (fromId >= upperId) {
+            return;
+        }
+
+        long startId = fromId;
+        int merged = 0;
+        while (fromId < upperId) {
+            long toId = Math.min(fromId + snapshotBatchSize, upperId);
+            merged += pointsLedgerMapper.mergeIntoSnapshot(fromId, toId);
+            fromId = toId;
+        }
+        log.info("积分快照完成: 流水区间=({}, {}], 影响行数={}", startId, upperId, merged);
+    }
+
+    @Override
+    public void compact() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        Long cutoffId = pointsLedgerMapper.selectMaxIdBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (cutoffId == null) {
+            return;
+        }
+        // 只删除已计入快照的流水，回放结果不受影响
+        long maxId = Math.min(cutoffId, pointsSnapshotMapper.selectWatermark());
+
+        int total = 0;
+        int deleted;
+        do {
+            deleted = pointsLedgerMapper.deleteUpTo(maxId, compactBatchSize);
+            total += deleted;
+        } while (deleted == compactBatchSize);
+        if (total > 0) {
+            log.info("积分流水压缩完成: 删除截至ID {} 的流水 {} 条", maxId, total);
+        }
+    }
+}
@@ -4,16 +4,22 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportColumn;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.util.AssertUtils;
 import com.hngy.cvs.common.util.PageUtil;
 import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.request.PointsSearchDTO;
+import com.hngy.cvs.dto.response.CursorPageVO;
 import com.hngy.cvs.dto.response.PageVO;
+import com.hngy.cvs.dto.response.PointsLedgerVO;
 import com.hngy.cvs.dto.response.PointsRecordVO;
 import com.hngy.cvs.dto.response.PointsStatsVO;
 import com.hngy.cvs.dto.response.PointsRankingVO;
 import com.hngy.cvs.entity.Activity;
 import com.hngy.cvs.entity.Points;
+import com.hngy.cvs.entity.PointsLedger;
 import com.hngy.cvs.entity.User;
 import com.hngy.cvs.entity.RecordEntity;
 import com.hngy.cvs.entity.enums.UserRole;
@@ -21,14 +27,19 @@ import com.hngy.cvs.mapper.ActivityMapper;
 import com.hngy.cvs.mapper.PointsMapper;
 import com.hngy.cvs.mapper.RecordMapper;
 import com.hngy.cvs.mapper.UserMapper;
+import com.hngy.cvs.service.FlashSaleService;
+import com.hngy.cvs.service.PointsLeaderboardService;
+import com.hngy.cvs.service.PointsLedgerService;
 import com.hngy.cvs.service.PointsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +62,24 @@ public class PointsServiceImpl
     private final RecordMapper recordMapper;
     private final UserMapper userMapper;
     private final ActivityMapper activityMapper;
+    private final PointsLeaderboardService pointsLeaderboardService;
+    private final PointsLedgerService pointsLedgerService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 积分记录导出列
+     */
+    private static final List<ExportColumn<PointsRecordVO>> POINTS_RECORD_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("记录ID", 10, PointsRecordVO::getId),
+            ExportColumn.of("姓名", 12, PointsRecordVO::getName),
+            ExportColumn.of("学号", 16, PointsRecordVO::getUsername),
+            ExportColumn.of("活动名称", 30, PointsRecordVO::getActivityTitle),
+            ExportColumn.of("获得积分", 10, PointsRecordVO::getPoints),
+            ExportColumn.of("当前总积分", 12, PointsRecordVO::getTotalPoints),
+            ExportColumn.of("服务时长（分钟）", 16, PointsRecordVO::getDurationMinutes),
+            ExportColumn.of("评分", 8, PointsRecordVO::getRating),
+            ExportColumn.of("获得时间", 20, PointsRecordVO::getCreatedAt)
+    );
 
     @Override
     public PointsStatsVO getCurrentUserPointsStats(Long userId) {
@@ -68,22 +97,13 @@ public class PointsServiceImpl
         stats.setUserId(userId);
         stats.setUserName(user.getName());
 
-        // 获取服务记录积分
-        LambdaQueryWrapper<RecordEntity> recordWrapper = new LambdaQueryWrapper<>();
-        recordWrapper.eq(RecordEntity::getUserId, userId);
-        List<RecordEntity> records = recordMapper.selectList(recordWrapper);
-        long servicePoints = records.stream()
-                .mapToLong(record -> record.getPointsEarned() != null ? record.getPointsEarned() : 0)
-                .sum();
+        // 获取服务记录积分（数据库聚合，不加载记录明细）
+        long servicePoints = recordMapper.sumPointsByUser(userId);
         stats.setServicePoints(servicePoints);
 
         // 获取用户当前总积分（积分表存储的是用户总积分）
-        Points userPoints = this.getOne(
-                new LambdaQueryWrapper<Points>().eq(Points::getUserId, userId)
-        );
-        long totalPoints = userPoints != null && userPoints.getPoints() != null
-                ? userPoints.getPoints().longValue()
-                : servicePoints;
+        Integer balance = baseMapper.selectPointsByUserId(userId);
+        long totalPoints = balance != null ? balance.longValue() : servicePoints;
         stats.setTotalPoints(totalPoints);
 
         long adjustmentPoints = totalPoints - servicePoints;
@@ -101,13 +121,10 @@ public class PointsServiceImpl
         }
 
         // 获取服务记录统计
-        Long recordsCount = (long) records.size();
-        stats.setServiceRecordsCount(recordsCount);
+        stats.setServiceRecordsCount(recordMapper.countByUserId(userId));
 
         // 获取总服务时长（小时）
-        long totalMinutes = records.stream()
-                .mapToLong(record -> record.getDurationMinutes() != null ? record.getDurationMinutes() : 0)
-                .sum();
+        long totalMinutes = recordMapper.sumDurationByUser(userId);
         Double totalHours = totalMinutes / 60.0;
         stats.setTotalServiceHours(totalHours);
 
@@ -123,42 +140,17 @@ public class PointsServiceImpl
 
         log.debug("获取积分排行榜，页码: {}, 每页大小: {}", page, size);
 
-        // 获取所有学生用户
-        LambdaQueryWrapper<User> userWrapper = new LambdaQueryWrapper<>();
-        userWrapper.eq(User::getRole, UserRole.STUDENT)
-                   .eq(User::getDeleted, 0);
-        List<User> students = userMapper.selectList(userWrapper);
-
-        // 计算每个学生的总积分并排序
-        List<PointsRankingVO> rankings = new ArrayList<>();
-        for (User student : students) {
-            PointsRankingVO ranking = new PointsRankingVO();
-            ranking.setUserId(student.getId());
-            ranking.setUsername(student.getUsername());
-            ranking.setName(student.getName());
-
-            // 计算总积分
-            Long totalPoints = calculateUserTotalPoints(student.getId());
-            ranking.setTotalPoints(totalPoints);
-
-            rankings.add(ranking);
+        PageVO<PointsRankingVO> ranking = pointsLeaderboardService.getRankingPage(page, size);
+        if (ranking != null) {
+            return ranking;
         }
 
-        // 按积分降序排序并设置排名
-        rankings.sort((a, b) -> Long.compare(b.getTotalPoints(), a.getTotalPoints()));
-        for (int i = 0; i < rankings.size(); i++) {
-            rankings.get(i).setRanking((long) (i + 1));
-        }
-
-        // 手动分页
-        int start = (page - 1) * size;
-        int end = Math.min(start + size, rankings.size());
-        List<PointsRankingVO> pageData = rankings.subList(start, end);
-
-        // 构造分页结果
-        Page<PointsRankingVO> resultPage = new Page<>(page, size, rankings.size());
-        resultPage.setRecords(pageData);
-
+        // 排行榜未就绪或Redis不可用，降级为单条SQL排名
+        log.debug("积分排行榜不可用，使用SQL排名");
+        long offset = (long) (page - 1) * size;
+        List<PointsRankingVO> records = baseMapper.selectPointsRankingPage(offset, size);
+        Page<PointsRankingVO> resultPage = new Page<>(page, size, baseMapper.countRankedStudents());
+        resultPage.setRecords(records);
         return PageUtil.convert(resultPage);
     }
 
@@ -216,6 +208,13 @@ public class PointsServiceImpl
                         .stream()
                         .collect(Collectors.toMap(Activity::getId, activity -> activity));
 
+        // 当前页用户的总积分一次查出，避免逐条查询
+        Map<Long, Integer> balanceMap = userIds.isEmpty() ? Collections.emptyMap() :
+                this.list(new LambdaQueryWrapper<Points>().in(Points::getUserId, userIds))
+                        .stream()
+                        .filter(points -> points.getPoints() != null)
+                        .collect(Collectors.toMap(Points::getUserId, Points::getPoints));
+
         List<PointsRecordVO> voList = records.stream().map(record -> {
             PointsRecordVO vo = new PointsRecordVO();
             vo.setId(record.getId());
@@ -237,7 +236,8 @@ public class PointsServiceImpl
                 vo.setActivityTitle(activity.getTitle());
             }
 
-            vo.setTotalPoints(calculateUserTotalPoints(record.getUserId()));
+            Integer balance = balanceMap.get(record.getUserId());
+            vo.setTotalPoints(balance != null ? balance.longValue() : recordMapper.sumPointsByUser(record.getUserId()));
             return vo;
         }).collect(Collectors.toList());
 
@@ -250,7 +250,7 @@ public class PointsServiceImpl
 
     @Override
     @Transactional
-    public void awardPoints(Long userId, Integer points) {
+    public void awardPoints(Long userId, Integer points, String reason) {
         // 参数校验
         AssertUtils.notNull(userId, "用户ID不能为空");
         AssertUtils.notNull(points, "积分数量不能为空");
@@ -260,26 +260,13 @@ public class PointsServiceImpl
         AssertUtils.notNull(user, "用户不存在");
         AssertUtils.isFalse(user.getDeleted() == 1, "用户已被删除");
 
-        // 查询用户是否已有积分记录
-        Points existingPoints = this.getOne(
-            new LambdaQueryWrapper<Points>().eq(Points::getUserId, userId)
-        );
+        // 单条 upsert 累加积分，并发发放互不覆盖
+        baseMapper.addPoints(userId, points);
+        int totalPoints = currentPoints(userId);
+        long ledgerId = pointsLedgerService.append(userId, points, totalPoints, PointsLedger.TYPE_AWARD, reason);
+        syncLeaderboard(user, totalPoints, ledgerId);
 
-        if (existingPoints != null) {
-            // 更新现有积分
-            existingPoints.setPoints(existingPoints.getPoints() + points);
-            boolean success = this.updateById(existingPoints);
-            AssertUtils.isTrue(success, "积分更新失败");
-        } else {
-            // 创建新的积分记录
-            Points pointsRecord = new Points();
-            pointsRecord.setUserId(userId);
-            pointsRecord.setPoints(points);
-            boolean success = this.save(pointsRecord);
-            AssertUtils.isTrue(success, "积分发放失败");
-        }
-
-        log.info("成功为用户 {} 发放积分 {}", userId, points);
+        log.info("成功为用户 {} 发放积分 {}，原因: {}", userId, points, reason);
     }
 
     @Override
@@ -322,30 +309,37 @@ public class PointsServiceImpl
 
         log.debug("扣除用户 {} 积分 {}，原因: {}", userId, points, reason);
 
-        // 获取用户当前积分
-        Integer currentPoints = getUserTotalPoints(userId);
-        AssertUtils.isTrue(currentPoints >= points, "积分不足，当前积分: " + currentPoints + "，需要扣除: " + points);
+        // 条件更新同时完成余额校验和扣减，并发扣减不会透支；秒杀预占的积分已承诺给待落库的兑换，不可再用
+        long held = heldPoints(userId);
+        if (baseMapper.deductIfAvailable(userId, points, held) == 0) {
+            AssertUtils.fail("积分不足，当前可用积分: " + (currentPoints(userId) - held) + "，需要扣除: " + points);
+        }
+        int totalPoints = currentPoints(userId);
+        long ledgerId = pointsLedgerService.append(userId, -points, totalPoints, PointsLedger.TYPE_DEDUCT, reason);
+        syncLeaderboard(user, totalPoints, ledgerId);
 
-        // 查询用户积分记录
-        Points userPoints = this.getOne(
-            new LambdaQueryWrapper<Points>().eq(Points::getUserId, userId)
-        );
+        log.info("成功扣除用户 {} 积分 {}，原因: {}", userId, points, reason);
+    }
 
-        if (userPoints != null) {
-            // 更新现有积分
-            userPoints.setPoints(userPoints.getPoints() - points);
-            boolean success = this.updateById(userPoints);
-            AssertUtils.isTrue(success, "积分扣除失败");
-        } else {
-            // 创建新的积分记录（负数表示扣除）
-            Points pointsRecord = new Points();
-            pointsRecord.setUserId(userId);
-            pointsRecord.setPoints(-points);
-            boolean success = this.save(pointsRecord);
-            AssertUtils.isTrue(success, "积分扣除失败");
+    @Override
+    @Transactional
+    public boolean tryDeductPoints(Long userId, Integer points, String reason) {
+        AssertUtils.notNull(userId, "用户ID不能为空");
+        AssertUtils.isTrue(points != null && points > 0, "积分数量必须大于0");
+
+        if (baseMapper.deductIfSufficient(userId, points) == 0) {
+            log.debug("用户 {} 积分不足，扣除 {} 失败，原因: {}", userId, points, reason);
+            return false;
         }
 
+        int totalPoints = currentPoints(userId);
+        long ledgerId = pointsLedgerService.append(userId, -points, totalPoints, PointsLedger.TYPE_DEDUCT, reason);
+        User user = userMapper.selectById(userId);
+        if (user != null) {
+            syncLeaderboard(user, totalPoints, ledgerId);
+        }
         log.info("成功扣除用户 {} 积分 {}，原因: {}", userId, points, reason);
+        return true;
     }
 
     @Override
@@ -363,81 +357,86 @@ public class PointsServiceImpl
 
         log.debug("退还用户 {} 积分 {}，原因: {}", userId, points, reason);
 
-        // 查询用户积分记录
-        Points userPoints = this.getOne(
-            new LambdaQueryWrapper<Points>().eq(Points::getUserId, userId)
-        );
-
-        if (userPoints != null) {
-            // 更新现有积分
-            userPoints.setPoints(userPoints.getPoints() + points);
-            boolean success = this.updateById(userPoints);
-            AssertUtils.isTrue(success, "积分退还失败");
-        } else {
-            // 创建新的积分记录
-            Points pointsRecord = new Points();
-            pointsRecord.setUserId(userId);
-            pointsRecord.setPoints(points);
-            boolean success = this.save(pointsRecord);
-            AssertUtils.isTrue(success, "积分退还失败");
-        }
+        baseMapper.addPoints(userId, points);
+        int totalPoints = currentPoints(userId);
+        long ledgerId = pointsLedgerService.append(userId, points, totalPoints, PointsLedger.TYPE_REFUND, reason);
+        syncLeaderboard(user, totalPoints, ledgerId);
 
         log.info("成功退还用户 {} 积分 {}，原因: {}", userId, points, reason);
     }
 
-    /**
-     * 计算用户总积分
-     */
-    private Long calculateUserTotalPoints(Long userId) {
-        // 服务记录积分
-        Points userPoints = this.getOne(
-                new LambdaQueryWrapper<Points>().eq(Points::getUserId, userId)
-        );
-        if (userPoints != null && userPoints.getPoints() != null) {
-            return userPoints.getPoints().longValue();
-        }
+    @Override
+    public CursorPageVO<PointsLedgerVO> getPointsHistory(Long userId, Long cursor, int size) {
+        return pointsLedgerService.getHistory(userId, cursor, size);
+    }
+
+    @Override
+    @Transactional
+    public Integer rebuildBalance(Long userId) {
+        AssertUtils.notNull(userId, "用户ID不能为空");
+        User user = userMapper.selectById(userId);
+        AssertUtils.notNull(user, "用户不存在");
 
-        LambdaQueryWrapper<RecordEntity> recordWrapper = new LambdaQueryWrapper<>();
-        recordWrapper.eq(RecordEntity::getUserId, userId);
-        List<RecordEntity> records = recordMapper.selectList(recordWrapper);
-        return records.stream()
-                .mapToLong(record -> record.getPointsEarned() != null ? record.getPointsEarned() : 0)
-                .sum();
+        // 先锁定积分记录，回放期间其它积分变动等待，不会漏记或重复
+        Integer current = baseMapper.selectPointsForUpdate(userId);
+        // 没有快照和流水时回放结果为 0，多半是未执行期初余额迁移，拒绝重建以免清零积分
+        AssertUtils.isTrue(pointsLedgerService.hasHistory(userId),
+                "用户没有积分流水，无法按流水重建余额，请先执行期初余额迁移");
+        int balance = pointsLedgerService.replayBalance(userId);
+        if (current == null || current != balance) {
+            baseMapper.upsertPoints(userId, balance);
+            log.warn("用户 {} 积分与流水不一致，已按流水重建: {} -> {}", userId, current, balance);
+        }
+        syncLeaderboard(user, balance, pointsLedgerService.latestLedgerId(userId));
+        return balance;
     }
 
     /**
      * 计算用户排名
      */
     private Long calculateUserRanking(Long userId) {
-        // 获取所有学生用户
-        LambdaQueryWrapper<User> userWrapper = new LambdaQueryWrapper<>();
-        userWrapper.eq(User::getRole, UserRole.STUDENT)
-                   .eq(User::getDeleted, 0);
-        List<User> students = userMapper.selectList(userWrapper);
-
-        // 计算每个学生的总积分
-        List<Long> totalPointsList = new ArrayList<>();
-        Long currentUserPoints = null;
-        
-        for (User student : students) {
-            Long totalPoints = calculateUserTotalPoints(student.getId());
-            totalPointsList.add(totalPoints);
-            
-            if (student.getId().equals(userId)) {
-                currentUserPoints = totalPoints;
-            }
+        Long ranking = pointsLeaderboardService.getUserRanking(userId);
+        if (ranking != null) {
+            return ranking;
         }
+        // 排行榜不可用时降级为SQL排名
+        return baseMapper.selectUserRanking(userId);
+    }
 
-        if (currentUserPoints == null) {
-            return null;
+    /**
+     * 读取本事务内积分变动后的最新积分
+     */
+    private int currentPoints(Long userId) {
+        Integer points = baseMapper.selectPointsByUserId(userId);
+        return points != null ? points : 0;
+    }
+
+    /**
+     * 秒杀预占中尚未落库的积分；Redis 不可用时按 0 处理，秒杀落库时的条件扣减仍能保证不透支
+     */
+    private long heldPoints(Long userId) {
+        try {
+            Object held = stringRedisTemplate.opsForHash().get(FlashSaleService.HELD_POINTS_KEY, String.valueOf(userId));
+            return held != null ? Math.max(Long.parseLong(held.toString()), 0L) : 0L;
+        } catch (Exception e) {
+            log.warn("读取用户 {} 秒杀预占积分失败，按 0 处理: {}", userId, e.getMessage());
+            return 0L;
         }
+    }
 
-        // 计算排名（比当前用户积分高的人数 + 1）
-        Long finalCurrentUserPoints = currentUserPoints;
+    /**
+     * 学生积分变动后同步排行榜
+     */
+    private void syncLeaderboard(User user, int totalPoints, long ledgerId) {
+        if (UserRole.STUDENT.equals(user.getRole())) {
+            pointsLeaderboardService.syncUserPoints(user.getId(), totalPoints, ledgerId);
+        }
+    }
 
-        return totalPointsList.stream()
-                .mapToLong(points -> points)
-                .filter(points -> points > finalCurrentUserPoints)
-                .count() + 1;
+    @Override
+    public void exportAllPointsRecords(PointsSearchDTO searchParams, ExportFormat format,
+                                       OutputStream outputStream) throws IOException {
+        DataExporter.export(format, "积分记录", POINTS_RECORD_EXPORT_COLUMNS,
+                handler -> recordMapper.selectPointsRecordsForExport(searchParams, handler), outputStream);
     }
 }
@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportColumn;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.exception.BusinessException;
 import com.hngy.cvs.common.result.ResultCode;
 import com.hngy.cvs.common.util.AssertUtils;
@@ -29,6 +32,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -53,6 +58,21 @@ public class RecordServiceImpl
     private final ActivityMapper activityMapper;
     private final UserMapper userMapper;
 
+    /**
+     * 服务记录导出列
+     */
+    private static final List<ExportColumn<ServiceRecordVO>> SERVICE_RECORD_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("记录ID", 10, ServiceRecordVO::getId),
+            ExportColumn.of("学生姓名", 12, ServiceRecordVO::getUserName),
+            ExportColumn.of("活动名称", 30, ServiceRecordVO::getActivityTitle),
+            ExportColumn.of("服务时长（分钟）", 16, ServiceRecordVO::getDurationMinutes),
+            ExportColumn.of("获得积分", 10, ServiceRecordVO::getPointsEarned),
+            ExportColumn.of("评分", 8, ServiceRecordVO::getRating),
+            ExportColumn.of("服务描述", 30, ServiceRecordVO::getDescription),
+            ExportColumn.of("服务评价", 30, ServiceRecordVO::getEvaluation),
+            ExportColumn.of("创建时间", 20, ServiceRecordVO::getCreatedAt)
+    );
+
     @Override
     public ServiceRecordVO getServiceRecordById(Long id) {
         RecordEntity serviceRecord = this.getById(id);
@@ -358,4 +378,11 @@ public class RecordServiceImpl
                 .mapToLong(record -> record.getPointsEarned() != null ? record.getPointsEarned() : 0)
                 .sum();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void exportAllServiceRecords(ServiceRecordSearchDTO searchDTO, ExportFormat format,
+                                        OutputStream outputStream) throws IOException {
+        DataExporter.export(format, "服务记录", SERVICE_RECORD_EXPORT_COLUMNS,
+                handler -> baseMapper.selectServiceRecordsForExport(searchDTO, handler), outputStream);
+    }
+}
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hngy.cvs.common.util.AssertUtils;
 import com.hngy.cvs.common.util.PageUtil;
+import com.hngy.cvs.common.util.VoucherCodeGenerator;
 import com.hngy.cvs.dto.request.PageDTO;
 import com.hngy.cvs.dto.request.RedemptionQueryRequest;
 import com.hngy.cvs.dto.request.RedemptionRequest;
@@ -20,6 +21,7 @@ import com.hngy.cvs.entity.enums.UserRole;
 import com.hngy.cvs.mapper.ProductMapper;
 import com.hngy.cvs.mapper.RedemptionMapper;
 import com.hngy.cvs.mapper.UserMapper;
+import com.hngy.cvs.service.FlashSaleService;
 import com.hngy.cvs.service.PointsService;
 import com.hngy.cvs.service.RedemptionService;
 import lombok.RequiredArgsConstructor;
@@ -30,7 +32,6 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -47,6 +48,8 @@ public class RedemptionServiceImpl extends ServiceImpl<RedemptionMapper, Redempt
     private final ProductMapper productMapper;
     private final UserMapper userMapper;
     private final PointsService pointsService;
+    private final VoucherCodeGenerator voucherCodeGenerator;
+    private final FlashSaleService flashSaleService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -71,23 +74,27 @@ public class RedemptionServiceImpl extends ServiceImpl<RedemptionMapper, Redempt
         // 3. 检查商品状态
         AssertUtils.isTrue(ProductStatus.ONLINE.getCode().equals(product.getStatus()), "商品已下架");
 
+        // 秒杀商品在Redis中预占库存和积分，兑换记录由后台批量落库
+        if (flashSaleService.isActive(product.getId())) {
+            Redemption reserved = new Redemption();
+            reserved.setUserId(userId);
+            reserved.setProductId(product.getId());
+            reserved.setPointsSpent(product.getPointsRequired());
+            reserved.setVoucherCode(flashSaleService.reserve(userId, product));
+            reserved.setStatus(RedemptionStatus.PENDING.getCode());
+            reserved.setCreatedAt(LocalDateTime.now());
+            return buildRedemptionVO(reserved, user, product, null);
+        }
+
         // 4. 检查库存（加锁扣减）
         int stockUpdated = productMapper.decreaseStock(product.getId());
         AssertUtils.isTrue(stockUpdated > 0, "商品库存不足");
 
         try {
-            // 5. 检查用户积分
-            Integer userPoints = pointsService.getUserTotalPoints(userId);
-            if (userPoints < product.getPointsRequired()) {
-                // 回滚库存
-                productMapper.increaseStock(product.getId());
-                AssertUtils.fail("积分不足，当前积分: " + userPoints + "，需要积分: " + product.getPointsRequired());
-            }
-
-            // 6. 扣除积分
+            // 5. 扣除积分（条件更新，余额不足时抛出异常）
             pointsService.deductPoints(userId, product.getPointsRequired(), "兑换商品：" + product.getName());
 
-            // 7. 创建兑换记录
+            // 6. 创建兑换记录
             Redemption redemption = new Redemption();
             redemption.setUserId(userId);
             redemption.setProductId(product.getId());
@@ -101,7 +108,7 @@ public class RedemptionServiceImpl extends ServiceImpl<RedemptionMapper, Redempt
             log.info("用户 {} 成功兑换商品 {}，消耗积分 {}，凭证编号 {}", 
                     userId, product.getName(), product.getPointsRequired(), redemption.getVoucherCode());
 
-            // 8. 返回兑换结果
+            // 7. 返回兑换结果
             return buildRedemptionVO(redemption, user, product, null);
 
         } catch (Exception e) {
@@ -189,6 +196,7 @@ public class RedemptionServiceImpl extends ServiceImpl<RedemptionMapper, Redempt
         // 参数校验
         AssertUtils.notEmpty(voucherCode, "凭证编号不能为空");
         AssertUtils.notNull(staffId, "核销人员ID不能为空");
+        AssertUtils.isTrue(voucherCodeGenerator.isWellFormed(voucherCode), "凭证编号无效");
 
         log.debug("核销凭证 {}，核销人员 {}", voucherCode, staffId);
 
@@ -362,20 +370,8 @@ public class RedemptionServiceImpl extends ServiceImpl<RedemptionMapper, Redempt
 
     @Override
     public String generateVoucherCode() {
-        // 生成格式：MALL + 时间戳 + 4位随机数
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = String.format("%04d", new Random().nextInt(10000));
-        String voucherCode = "MALL" + timestamp + random;
-
-        // 检查唯一性，如果重复则重新生成
-        LambdaQueryWrapper<Redemption> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Redemption::getVoucherCode, voucherCode);
-        if (this.count(wrapper) > 0) {
-            // 递归重新生成
-            return generateVoucherCode();
-        }
-
-        return voucherCode;
+        // 生成格式：MALL + Snowflake ID + 校验位，节点内单调、节点间不重叠，无需查库去重
+        return voucherCodeGenerator.generate();
     }
 
     /**
@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportColumn;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.common.result.ResultCode;
 import com.hngy.cvs.common.util.AssertUtils;
 import com.hngy.cvs.common.util.BeanUtil;
@@ -21,16 +24,26 @@ import com.hngy.cvs.entity.enums.SignupStatus;
 import com.hngy.cvs.mapper.ActivityMapper;
 import com.hngy.cvs.mapper.SignupMapper;
 import com.hngy.cvs.mapper.UserMapper;
-import com.hngy.cvs.service.NotificationService;
+import com.hngy.cvs.entity.enums.NotificationType;
+import com.hngy.cvs.service.NotificationOutboxService;
 import com.hngy.cvs.service.SignupService;
+import com.hngy.cvs.service.WaitlistService;
+import com.hngy.cvs.service.model.NotificationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -48,7 +61,29 @@ public class SignupServiceImpl
     private final SignupMapper signupMapper;
     private final ActivityMapper activityMapper;
     private final UserMapper userMapper;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final WaitlistService waitlistService;
+
+    @Value("${signup.review.chunk-size:500}")
+    private int reviewChunkSize;
+
+    /**
+     * 报名列表导出列
+     */
+    private static final List<ExportColumn<SignupVO>> SIGNUP_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("报名ID", 10, SignupVO::getId),
+            ExportColumn.of("活动名称", 30, SignupVO::getActivityTitle),
+            ExportColumn.of("学生姓名", 12, SignupVO::getName),
+            ExportColumn.of("学号", 16, SignupVO::getUsername),
+            ExportColumn.of("报名状态", 10, vo -> vo.getStatus() != null ? vo.getStatus().getDescription() : null),
+            ExportColumn.of("报名理由", 30, SignupVO::getReason),
+            ExportColumn.of("拒绝原因", 30, SignupVO::getRejectReason),
+            ExportColumn.of("是否签到", 10, SignupVO::getSignedIn),
+            ExportColumn.of("签到时间", 20, SignupVO::getSignInTime),
+            ExportColumn.of("是否签退", 10, SignupVO::getSignedOut),
+            ExportColumn.of("签退时间", 20, SignupVO::getSignOutTime),
+            ExportColumn.of("报名时间", 20, SignupVO::getCreatedAt)
+    );
 
     @Override
     @Transactional
@@ -79,6 +114,8 @@ public class SignupServiceImpl
         );
         AssertUtils.isFalse(count > 0, ResultCode.ALREADY_SIGNED_UP);
 
+        // 原子占用名额，名额已满时条件更新不生效；插入失败时随事务回滚
+        AssertUtils.isTrue(activityMapper.reserveSeat(activity.getId()) == 1, ResultCode.ACTIVITY_FULL);
 
         // 创建报名记录
         Signup signup = BeanUtil.to(request, Signup.class);
@@ -92,13 +129,12 @@ public class SignupServiceImpl
 
         // 发送报名审核通知给教师
         // 需求: 2.1 - WHEN 学生提交活动报名申请, THE CVS系统 SHALL 向活动发起人发送待审核通知
-        try {
-            notificationService.sendRegistrationPendingNotification(
-                    activity.getId(), userId, activity.getOrganizerId());
-        } catch (Exception e) {
-            log.error("发送报名审核通知失败: activityId={}, studentId={}, teacherId={}", 
-                    activity.getId(), userId, activity.getOrganizerId(), e);
-        }
+        notificationOutboxService.enqueue(NotificationEvent.builder()
+                .type(NotificationType.REGISTRATION_PENDING)
+                .activityId(activity.getId())
+                .studentId(userId)
+                .teacherId(activity.getOrganizerId())
+                .build());
 
         // 转换为VO返回
         return BeanUtil.to(signup, SignupVO.class);
@@ -214,19 +250,13 @@ public class SignupServiceImpl
         // 检查报名状态
         AssertUtils.isTrue(signup.getStatus() == SignupStatus.PENDING, ResultCode.SIGNUP_STATUS_INVALID);
         
-        // 更新状态
-        signup.setStatus(SignupStatus.APPROVED);
-        this.updateById(signup);
+        // 条件更新状态：并发的拒绝或取消已生效时不覆盖
+        int updated = signupMapper.reviewPending(List.of(signupId), SignupStatus.APPROVED, null);
+        AssertUtils.isTrue(updated == 1, ResultCode.SIGNUP_STATUS_INVALID);
         
         // 发送报名审核通过通知给学生
         // 需求: 4.1 - WHEN 活动发起人审核通过报名申请, THE CVS系统 SHALL 向报名学生发送审核通过通知
-        try {
-            notificationService.sendRegistrationResultNotification(
-                    signup.getActivityId(), signup.getUserId(), true, null);
-        } catch (Exception e) {
-            log.error("发送报名审核通过通知失败: signupId={}, studentId={}", 
-                    signupId, signup.getUserId(), e);
-        }
+        enqueueRegistrationResult(signup, true, null);
         
         log.info("报名审核通过：signupId={}, operatorId={}", signupId, operatorId);
     }
@@ -245,20 +275,15 @@ public class SignupServiceImpl
         // 检查报名状态
         AssertUtils.isTrue(signup.getStatus() == SignupStatus.PENDING, ResultCode.SIGNUP_STATUS_INVALID);
 
-        // 更新状态和拒绝原因
-        signup.setStatus(SignupStatus.REJECTED);
-        signup.setRejectReason(rejectReason);
-        this.updateById(signup);
+        // 条件更新状态和拒绝原因，只有实际由待审核改为拒绝时才释放名额，并发重复拒绝不会重复释放
+        int updated = signupMapper.reviewPending(List.of(signupId), SignupStatus.REJECTED, rejectReason);
+        AssertUtils.isTrue(updated == 1, ResultCode.SIGNUP_STATUS_INVALID);
+        activityMapper.releaseSeats(signup.getActivityId(), 1);
+        waitlistService.promote(signup.getActivityId());
 
         // 发送报名审核拒绝通知给学生
         // 需求: 4.2 - WHEN 活动发起人拒绝报名申请, THE CVS系统 SHALL 向报名学生发送审核拒绝通知
-        try {
-            notificationService.sendRegistrationResultNotification(
-                    signup.getActivityId(), signup.getUserId(), false, rejectReason);
-        } catch (Exception e) {
-            log.error("发送报名审核拒绝通知失败: signupId={}, studentId={}", 
-                    signupId, signup.getUserId(), e);
-        }
+        enqueueRegistrationResult(signup, false, rejectReason);
 
         log.info("报名审核拒绝：signupId={}, operatorId={}, reason={}", signupId, operatorId, rejectReason);
     }
@@ -275,12 +300,47 @@ public class SignupServiceImpl
         updateSignupStatus(signupIds, operatorId, SignupStatus.REJECTED, rejectReason);
     }
 
+    @Override
+    @Transactional
+    public int approveAllPendingSignups(Long activityId, Long operatorId) {
+        Activity activity = activityMapper.selectById(activityId);
+        AssertUtils.notNull(activity, ResultCode.ACTIVITY_NOT_FOUND);
+        AssertUtils.isTrue(activity.getOrganizerId().equals(operatorId), ResultCode.INSUFFICIENT_PERMISSIONS);
+
+        List<Long> signupIds = signupMapper.selectPendingIdsByActivity(activityId);
+        if (signupIds.isEmpty()) {
+            return 0;
+        }
+        return reviewPendingSignups(signupIds, SignupStatus.APPROVED, null);
+    }
+
+    @Override
+    @Transactional
+    public int rejectAllPendingSignups(Long activityId, String rejectReason) {
+        List<Long> signupIds = signupMapper.selectPendingIdsByActivity(activityId);
+        if (signupIds.isEmpty()) {
+            return 0;
+        }
+        return reviewPendingSignups(signupIds, SignupStatus.REJECTED, rejectReason);
+    }
+
     private void updateSignupStatus(List<Long> signupIds, Long operatorId, SignupStatus newStatus, String rejectReason) {
-        List<Signup> signups = this.listByIds(signupIds);
-        AssertUtils.notEmpty(signups, ResultCode.SIGNUP_NOT_FOUND);
+        AssertUtils.notEmpty(signupIds, ResultCode.SIGNUP_NOT_FOUND);
+        List<Long> distinctIds = signupIds.stream().distinct().collect(Collectors.toList());
+
+        // 只查询权限校验需要的活动发起人，每个活动一次
+        List<Long> activityIds = this.list(new LambdaQueryWrapper<Signup>()
+                        .select(Signup::getActivityId)
+                        .in(Signup::getId, distinctIds)
+                        .groupBy(Signup::getActivityId))
+                .stream()
+                .map(Signup::getActivityId)
+                .collect(Collectors.toList());
+        AssertUtils.notEmpty(activityIds, ResultCode.SIGNUP_NOT_FOUND);
 
-        List<Long> activityIds = signups.stream().map(Signup::getActivityId).distinct().toList();
-        List<Activity> activities = activityMapper.selectBatchIds(activityIds);
+        List<Activity> activities = activityMapper.selectList(new LambdaQueryWrapper<Activity>()
+                .select(Activity::getId, Activity::getOrganizerId)
+                .in(Activity::getId, activityIds));
         AssertUtils.notEmpty(activities, ResultCode.ACTIVITY_NOT_FOUND);
 
         activities.forEach(activity ->
@@ -288,30 +348,74 @@ public class SignupServiceImpl
                         ResultCode.INSUFFICIENT_PERMISSIONS)
         );
 
-        List<Signup> updatedSignups = signups.stream()
-                .filter(s -> s.getStatus() == SignupStatus.PENDING)
-                .peek(s -> {
-                    s.setStatus(newStatus);
-                    if (newStatus == SignupStatus.REJECTED) {
-                        s.setRejectReason(rejectReason);
-                    }
-                })
-                .collect(Collectors.toList());
+        reviewPendingSignups(distinctIds, newStatus, rejectReason);
+    }
+
+    /**
+     * 按块批量审核：每块先锁定仍待审核的记录，再以一条 UPDATE 改写状态；
+     * 通知按活动合并为一个发件箱事件，投递时一次查询活动、分批多行插入通知
+     *
+     * @return 实际审核的报名数
+     */
+    private int reviewPendingSignups(List<Long> signupIds, SignupStatus newStatus, String rejectReason) {
+        int chunkSize = reviewChunkSize > 0 ? reviewChunkSize : 500;
+        Map<Long, List<Long>> studentIdsByActivity = new LinkedHashMap<>();
+        Set<Long> releasedActivityIds = new LinkedHashSet<>();
+        int reviewed = 0;
+
+        for (int from = 0; from < signupIds.size(); from += chunkSize) {
+            List<Long> chunk = signupIds.subList(from, Math.min(from + chunkSize, signupIds.size()));
+            List<Signup> pending = signupMapper.selectPendingForUpdate(chunk);
+            if (pending.isEmpty()) {
+                continue;
+            }
+            reviewed += signupMapper.reviewPending(
+                    pending.stream().map(Signup::getId).collect(Collectors.toList()), newStatus, rejectReason);
+            pending.forEach(signup -> studentIdsByActivity
+                    .computeIfAbsent(signup.getActivityId(), k -> new ArrayList<>())
+                    .add(signup.getUserId()));
+            if (newStatus == SignupStatus.REJECTED) {
+                // 拒绝的报名释放名额，每个活动一条 UPDATE
+                pending.stream()
+                        .collect(Collectors.groupingBy(Signup::getActivityId, Collectors.counting()))
+                        .forEach((activityId, released) -> {
+                            activityMapper.releaseSeats(activityId, released.intValue());
+                            releasedActivityIds.add(activityId);
+                        });
+            }
+        }
 
-        this.updateBatchById(signups);
+        // 名额释放后由候补队列依次补位
+        releasedActivityIds.forEach(waitlistService::promote);
 
         // 批量发送通知
         // 需求: 4.1, 4.2 - 批量审核结果通知
-        for (Signup signup : updatedSignups) {
-            try {
-                boolean approved = newStatus == SignupStatus.APPROVED;
-                notificationService.sendRegistrationResultNotification(
-                        signup.getActivityId(), signup.getUserId(), approved, rejectReason);
-            } catch (Exception e) {
-                log.error("发送批量审核通知失败: signupId={}, studentId={}, approved={}", 
-                        signup.getId(), signup.getUserId(), newStatus == SignupStatus.APPROVED, e);
+        boolean approved = newStatus == SignupStatus.APPROVED;
+        studentIdsByActivity.forEach((activityId, studentIds) -> {
+            for (int from = 0; from < studentIds.size(); from += chunkSize) {
+                notificationOutboxService.enqueue(NotificationEvent.builder()
+                        .type(approved ? NotificationType.REGISTRATION_APPROVED : NotificationType.REGISTRATION_REJECTED)
+                        .activityId(activityId)
+                        .studentIds(new ArrayList<>(studentIds.subList(from, Math.min(from + chunkSize, studentIds.size()))))
+                        .reason(rejectReason)
+                        .build());
             }
-        }
+        });
+
+        log.info("批量审核报名完成: 请求数={}, 实际审核数={}, 结果={}", signupIds.size(), reviewed, newStatus);
+        return reviewed;
+    }
+
+    /**
+     * 写入报名审核结果通知事件，事务提交后异步发送
+     */
+    private void enqueueRegistrationResult(Signup signup, boolean approved, String reason) {
+        notificationOutboxService.enqueue(NotificationEvent.builder()
+                .type(approved ? NotificationType.REGISTRATION_APPROVED : NotificationType.REGISTRATION_REJECTED)
+                .activityId(signup.getActivityId())
+                .studentId(signup.getUserId())
+                .reason(reason)
+                .build());
     }
 
 
@@ -375,8 +479,11 @@ public class SignupServiceImpl
                                ResultCode.ACTIVITY_ALREADY_STARTED);
         }
         
-        // 删除报名记录（物理删除）
-        this.removeById(signupId);
+        // 条件删除仍待审核的报名（物理删除），只有实际删除时才释放名额，并发审核或重复取消不会重复释放
+        int deleted = signupMapper.deletePendingById(signupId);
+        AssertUtils.isTrue(deleted == 1, ResultCode.CANNOT_CANCEL_SIGNUP);
+        activityMapper.releaseSeats(signup.getActivityId(), 1);
+        waitlistService.promote(signup.getActivityId());
         
         log.info("用户 {} 取消报名 {} 成功", userId, signupId);
     }
@@ -536,4 +643,11 @@ public class SignupServiceImpl
 
         return PageUtil.convert(result);
     }
+
+    @Override
+    public void exportSignupList(SignupSearchDTO searchDTO, Long teacherId, ExportFormat format,
+                                 OutputStream outputStream) throws IOException {
+        DataExporter.export(format, "报名记录", SIGNUP_EXPORT_COLUMNS,
+                handler -> signupMapper.selectSignupsForExport(teacherId, searchDTO, handler), outputStream);
+    }
 }
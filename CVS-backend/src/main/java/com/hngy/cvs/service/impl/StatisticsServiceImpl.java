@@ -1,6 +1,9 @@
 package com.hngy.cvs.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hngy.cvs.common.export.DataExporter;
+import com.hngy.cvs.common.export.ExportColumn;
+import com.hngy.cvs.common.export.ExportFormat;
 import com.hngy.cvs.dto.response.AdminDashboardStatsVO;
 import com.hngy.cvs.dto.response.ProductRankingVO;
 import com.hngy.cvs.dto.response.ProductVO;
@@ -22,15 +25,12 @@ import com.hngy.cvs.service.StatisticsService;
 import com.hngy.cvs.service.UserService;
 import com.hngy.cvs.service.ActivityService;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
@@ -50,6 +50,22 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final RedemptionMapper redemptionMapper;
     private final ProductMapper productMapper;
 
+    /**
+     * 兑换记录导出列
+     */
+    private static final List<ExportColumn<RedemptionVO>> REDEMPTION_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("兑换ID", 10, RedemptionVO::getId),
+            ExportColumn.of("学生姓名", 12, RedemptionVO::getUserName),
+            ExportColumn.of("学号", 16, RedemptionVO::getUserUsername),
+            ExportColumn.of("商品名称", 24, RedemptionVO::getProductName),
+            ExportColumn.of("消耗积分", 10, RedemptionVO::getPointsSpent),
+            ExportColumn.of("凭证编号", 24, RedemptionVO::getVoucherCode),
+            ExportColumn.of("兑换状态", 10, RedemptionVO::getStatusText),
+            ExportColumn.of("兑换时间", 20, RedemptionVO::getCreatedAt),
+            ExportColumn.of("核销时间", 20, RedemptionVO::getVerifiedAt),
+            ExportColumn.of("核销人员", 12, RedemptionVO::getVerifiedByName)
+    );
+
     @Override
     public AdminDashboardStatsVO getAdminDashboardStats() {
         return AdminDashboardStatsVO.builder()
@@ -198,64 +214,13 @@ public class StatisticsServiceImpl implements StatisticsService {
     }
 
     @Override
-    public byte[] exportRedemptions(LocalDate startDate, LocalDate endDate) {
+    public void exportRedemptions(LocalDate startDate, LocalDate endDate, ExportFormat format,
+                                  OutputStream outputStream) throws IOException {
         LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
         LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
 
-        // 查询兑换记录
-        List<RedemptionVO> redemptions = redemptionMapper.selectRedemptionsForExport(startDateTime, endDateTime);
-
-        // 创建Excel工作簿
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("兑换记录");
-
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"兑换ID", "学生姓名", "学号", "商品名称", "消耗积分", "凭证编号", "兑换状态", "兑换时间", "核销时间", "核销人员"};
-            
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // 填充数据行
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (int i = 0; i < redemptions.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                RedemptionVO redemption = redemptions.get(i);
-
-                row.createCell(0).setCellValue(redemption.getId());
-                row.createCell(1).setCellValue(redemption.getUserName());
-                row.createCell(2).setCellValue(redemption.getUserUsername());
-                row.createCell(3).setCellValue(redemption.getProductName());
-                row.createCell(4).setCellValue(redemption.getPointsSpent());
-                row.createCell(5).setCellValue(redemption.getVoucherCode());
-                row.createCell(6).setCellValue(redemption.getStatusText());
-                row.createCell(7).setCellValue(redemption.getCreatedAt().format(formatter));
-                row.createCell(8).setCellValue(redemption.getVerifiedAt() != null ? 
-                    redemption.getVerifiedAt().format(formatter) : "");
-                row.createCell(9).setCellValue(redemption.getVerifiedByName() != null ? 
-                    redemption.getVerifiedByName() : "");
-            }
-
-            // 自动调整列宽
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
-
-        } catch (IOException e) {
-            throw new RuntimeException("导出Excel文件失败", e);
-        }
+        DataExporter.export(format, "兑换记录", REDEMPTION_EXPORT_COLUMNS,
+                handler -> redemptionMapper.selectRedemptionsForExport(startDateTime, endDateTime, handler),
+                outputStream);
     }
 }
@@ -24,6 +24,7 @@ import com.hngy.cvs.entity.enums.UserRole;
 import com.hngy.cvs.mapper.PointsMapper;
 import com.hngy.cvs.mapper.UserMapper;
 import com.hngy.cvs.service.EmailService;
+import com.hngy.cvs.service.PointsLeaderboardService;
 import com.hngy.cvs.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -54,6 +55,7 @@ public class UserServiceImpl implements UserService {
     private final JwtUtil jwtUtil;
     private final EmailService emailService;
     private final StringRedisTemplate stringRedisTemplate;
+    private final PointsLeaderboardService pointsLeaderboardService;
 
     @Value("${app.frontend-base-url:http://localhost:5173}")
     private String frontendBaseUrl;
@@ -81,6 +83,7 @@ public class UserServiceImpl implements UserService {
             points.setUserId(user.getId());
             points.setPoints(0);
             pointsMapper.insert(points);
+            pointsLeaderboardService.syncUserPoints(user.getId(), 0, 0);
             log.info("初始化学生 {} 积分记录，初始积分为0", user.getUsername());
         }
 
@@ -232,6 +235,7 @@ public class UserServiceImpl implements UserService {
         AssertUtils.isFalse(user.getId().equals(currentUserId), ResultCode.INSUFFICIENT_PERMISSIONS);
 
         userMapper.deleteById(id);
+        pointsLeaderboardService.removeUser(id);
         log.info("删除用户: {}", user.getUsername());
     }
 
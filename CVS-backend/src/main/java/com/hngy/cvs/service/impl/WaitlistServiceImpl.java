@@ -0,0 +1,233 @@
+package com.hngy.cvs.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hngy.cvs.common.result.ResultCode;
+import com.hngy.cvs.common.util.AssertUtils;
+import com.hngy.cvs.dto.request.SignupCreateDTO;
+import com.hngy.cvs.dto.response.WaitlistVO;
+import com.hngy.cvs.entity.Activity;
+import com.hngy.cvs.entity.Signup;
+import com.hngy.cvs.entity.Waitlist;
+import com.hngy.cvs.entity.enums.ActivityStatus;
+import com.hngy.cvs.entity.enums.NotificationType;
+import com.hngy.cvs.entity.enums.SignupStatus;
+import com.hngy.cvs.mapper.ActivityMapper;
+import com.hngy.cvs.mapper.SignupMapper;
+import com.hngy.cvs.mapper.WaitlistMapper;
+import com.hngy.cvs.service.NotificationOutboxService;
+import com.hngy.cvs.service.WaitlistService;
+import com.hngy.cvs.service.model.NotificationEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 活动候补服务实现
+ * <p>
+ * 数据库是候补队列的唯一依据，按自增ID排队；Redis ZSET（分值为候补ID）只作为位次查询的镜像，
+ * 在事务提交后更新，缺失时回退到数据库统计。释放名额的事务中调用 {@link #promote(Long)}，
+ * 名额释放语句已锁定活动行，同一活动的转正串行执行，空出的名额不会被队列外的报名抢走；
+ * 加入候补时同样先锁定活动行再判断名额是否已满，不会在名额释放后滞留于队列中。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaitlistServiceImpl implements WaitlistService {
+
+    private static final String KEY_PREFIX = "cvs:waitlist:";
+
+    private final WaitlistMapper waitlistMapper;
+    private final ActivityMapper activityMapper;
+    private final SignupMapper signupMapper;
+    private final NotificationOutboxService notificationOutboxService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 单个活动最大候补人数，0 表示不限制
+     */
+    @Value("${signup.waitlist.max-size:500}")
+    private int maxSize;
+
+    @Override
+    @Transactional
+    public WaitlistVO join(SignupCreateDTO request, Long userId) {
+        // 锁定活动行再判断名额，释放名额并转正的事务提交前不会有人在空出的名额上加入候补
+        Activity activity = activityMapper.selectByIdForUpdate(request.getActivityId());
+        AssertUtils.notNull(activity, ResultCode.ACTIVITY_NOT_FOUND);
+        AssertUtils.isTrue(activity.getStatus() == ActivityStatus.PUBLISHED, ResultCode.ACTIVITY_NOT_PUBLISHED);
+        AssertUtils.isTrue(isOpenForSignup(activity), ResultCode.ACTIVITY_EXPIRED);
+
+        int reserved = activity.getReservedCount() != null ? activity.getReservedCount() : 0;
+        AssertUtils.isTrue(reserved >= activity.getMaxParticipants(), "活动仍有名额，请直接报名");
+
+        long signedUp = signupMapper.selectCount(new LambdaQueryWrapper<Signup>()
+                .eq(Signup::getActivityId, activity.getId())
+                .eq(Signup::getUserId, userId));
+        AssertUtils.isFalse(signedUp > 0, ResultCode.ALREADY_SIGNED_UP);
+
+        long waiting = waitlistMapper.selectCount(new LambdaQueryWrapper<Waitlist>()
+                .eq(Waitlist::getActivityId, activity.getId())
+                .eq(Waitlist::getUserId, userId));
+        AssertUtils.isFalse(waiting > 0, "已在该活动的候补队列中");
+
+        if (maxSize > 0) {
+            long queueSize = waitlistMapper.selectCount(new LambdaQueryWrapper<Waitlist>()
+                    .eq(Waitlist::getActivityId, activity.getId()));
+            AssertUtils.isTrue(queueSize < maxSize, "候补人数已满");
+        }
+
+        Waitlist waitlist = new Waitlist();
+        waitlist.setActivityId(activity.getId());
+        waitlist.setUserId(userId);
+        waitlist.setReason(request.getReason());
+        waitlistMapper.insert(waitlist);
+
+        Long activityId = activity.getId();
+        Long waitlistId = waitlist.getId();
+        runAfterCommit(() -> stringRedisTemplate.opsForZSet()
+                .add(buildKey(activityId), String.valueOf(userId), waitlistId));
+        log.info("用户 {} 加入活动 {} 候补", userId, activityId);
+
+        return toVO(waitlist, waitlistMapper.countAhead(activityId, waitlistId) + 1);
+    }
+
+    @Override
+    @Transactional
+    public void leave(Long activityId, Long userId) {
+        int deleted = waitlistMapper.delete(new LambdaQueryWrapper<Waitlist>()
+                .eq(Waitlist::getActivityId, activityId)
+                .eq(Waitlist::getUserId, userId));
+        AssertUtils.isTrue(deleted > 0, "未加入该活动的候补队列");
+
+        runAfterCommit(() -> stringRedisTemplate.opsForZSet().remove(buildKey(activityId), String.valueOf(userId)));
+        log.info("用户 {} 退出活动 {} 候补", userId, activityId);
+    }
+
+    @Override
+    public WaitlistVO getPosition(Long activityId, Long userId) {
+        Waitlist waitlist = waitlistMapper.selectOne(new LambdaQueryWrapper<Waitlist>()
+                .eq(Waitlist::getActivityId, activityId)
+                .eq(Waitlist::getUserId, userId));
+        AssertUtils.notNull(waitlist, "未加入该活动的候补队列");
+
+        Long rank = null;
+        try {
+            rank = stringRedisTemplate.opsForZSet().rank(buildKey(activityId), String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("读取候补位次失败，改为查询数据库: activityId={}, error={}", activityId, e.getMessage());
+        }
+        long position = rank != null ? rank + 1 : waitlistMapper.countAhead(activityId, waitlist.getId()) + 1;
+        return toVO(waitlist, position);
+    }
+
+    @Override
+    @Transactional
+    public int promote(Long activityId) {
+        Activity activity = activityMapper.selectById(activityId);
+        if (activity == null || activity.getStatus() != ActivityStatus.PUBLISHED || !isOpenForSignup(activity)) {
+            return 0;
+        }
+
+        List<Long> removedUserIds = new ArrayList<>();
+        int promoted = 0;
+        Waitlist head;
+        while ((head = waitlistMapper.selectHeadForUpdate(activityId)) != null) {
+            long signedUp = signupMapper.selectCount(new LambdaQueryWrapper<Signup>()
+                    .eq(Signup::getActivityId, activityId)
+                    .eq(Signup::getUserId, head.getUserId()));
+            // 已通过其它途径报名的候补直接出队，不占名额
+            if (signedUp == 0) {
+                if (activityMapper.reserveSeat(activityId) == 0) {
+                    break;
+                }
+                Signup signup = new Signup();
+                signup.setActivityId(activityId);
+                signup.setUserId(head.getUserId());
+                signup.setReason(head.getReason());
+                signup.setStatus(SignupStatus.PENDING);
+                signup.setSignedIn(false);
+                signup.setSignedOut(false);
+                signupMapper.insert(signup);
+
+                notificationOutboxService.enqueue(NotificationEvent.builder()
+                        .type(NotificationType.WAITLIST_PROMOTED)
+                        .activityId(activityId)
+                        .studentId(head.getUserId())
+                        .build());
+                notificationOutboxService.enqueue(NotificationEvent.builder()
+                        .type(NotificationType.REGISTRATION_PENDING)
+                        .activityId(activityId)
+                        .studentId(head.getUserId())
+                        .teacherId(activity.getOrganizerId())
+                        .build());
+                promoted++;
+            }
+            waitlistMapper.deleteById(head.getId());
+            removedUserIds.add(head.getUserId());
+        }
+
+        if (!removedUserIds.isEmpty()) {
+            String[] members = removedUserIds.stream().map(String::valueOf).toArray(String[]::new);
+            runAfterCommit(() -> stringRedisTemplate.opsForZSet().remove(buildKey(activityId), (Object[]) members));
+            log.info("活动 {} 候补转为报名: 转正数={}, 出队数={}", activityId, promoted, removedUserIds.size());
+        }
+        return promoted;
+    }
+
+    @Override
+    @Transactional
+    public void clear(Long activityId) {
+        waitlistMapper.delete(new LambdaQueryWrapper<Waitlist>().eq(Waitlist::getActivityId, activityId));
+        runAfterCommit(() -> stringRedisTemplate.delete(buildKey(activityId)));
+    }
+
+    private boolean isOpenForSignup(Activity activity) {
+        LocalDateTime now = LocalDateTime.now();
+        return activity.getStartTime().isAfter(now)
+                && (activity.getRegistrationDeadline() == null || activity.getRegistrationDeadline().isAfter(now));
+    }
+
+    /**
+     * Redis镜像在事务提交后更新，失败只记录日志，位次查询会回退到数据库
+     */
+    private void runAfterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新候补队列Redis镜像失败: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    private WaitlistVO toVO(Waitlist waitlist, long position) {
+        WaitlistVO vo = new WaitlistVO();
+        vo.setActivityId(waitlist.getActivityId());
+        vo.setPosition(position);
+        vo.setCreatedAt(waitlist.getCreatedAt());
+        return vo;
+    }
+
+    private String buildKey(Long activityId) {
+        return KEY_PREFIX + activityId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.hngy.cvs.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 已渲染的证书PDF
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CertificatePdf {
+
+    /**
+     * PDF内容
+     */
+    private byte[] content;
+
+    /**
+     * 内容摘要，由模板版本和填充字段计算，作为 ETag
+     */
+    private String contentHash;
+
+    /**
+     * 渲染时间（毫秒时间戳），作为 Last-Modified
+     */
+    private long lastModified;
+
+    /**
+     * 下载文件名
+     */
+    private String filename;
+}
@@ -0,0 +1,40 @@
+package com.hngy.cvs.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 秒杀兑换预占记录，预占成功后进入Redis待落库队列
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleReservation {
+
+    /**
+     * 凭证编号，落库时作为兑换记录的唯一键，用于重复处理时去重
+     */
+    private String voucherCode;
+
+    private Long userId;
+
+    private Long productId;
+
+    /**
+     * 预占积分
+     */
+    private Integer points;
+
+    /**
+     * 商品名称（用于积分扣除原因）
+     */
+    private String productName;
+
+    /**
+     * 预占时间（毫秒时间戳）
+     */
+    private Long reservedAt;
+}
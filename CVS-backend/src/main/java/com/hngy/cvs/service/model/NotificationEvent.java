@@ -0,0 +1,59 @@
+package com.hngy.cvs.service.model;
+
+import com.hngy.cvs.entity.enums.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 发件箱中的通知事件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationEvent {
+
+    /**
+     * 通知类型
+     */
+    private NotificationType type;
+
+    /**
+     * 活动ID
+     */
+    private Long activityId;
+
+    /**
+     * 学生ID
+     */
+    private Long studentId;
+
+    /**
+     * 学生ID列表（批量审核结果，同一活动的多名学生合并为一个事件）
+     */
+    private List<Long> studentIds;
+
+    /**
+     * 教师（活动发起人）ID
+     */
+    private Long teacherId;
+
+    /**
+     * 原因（签退原因、拒绝原因或兑换取消原因）
+     */
+    private String reason;
+
+    /**
+     * 商品名称（兑换取消）
+     */
+    private String productName;
+
+    /**
+     * 凭证编号（兑换取消）
+     */
+    private String voucherCode;
+}
@@ -0,0 +1,29 @@
+package com.hngy.cvs.service.model;
+
+import com.hngy.cvs.dto.response.NotificationVO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 通过Redis频道在各实例间广播的通知推送消息
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPushMessage {
+
+    /**
+     * 接收用户ID，只有持有其连接的实例会推送
+     */
+    private List<Long> userIds;
+
+    /**
+     * 新通知，仅未读数变化时为空
+     */
+    private NotificationVO notification;
+}
@@ -0,0 +1,52 @@
+package com.hngy.cvs.service.model;
+
+import com.hngy.cvs.entity.enums.SignActionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 动态签到码种子，老师端据此在本地按时间窗口计算当前签到码
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RotatingCodeSeed {
+
+    /**
+     * 所属活动ID
+     */
+    private Long activityId;
+
+    /**
+     * 签到或签退
+     */
+    private SignActionType type;
+
+    /**
+     * 活动密钥（Base32编码）
+     */
+    private String secret;
+
+    /**
+     * HMAC算法，如 HmacSHA256
+     */
+    private String algorithm;
+
+    /**
+     * 签到码位数
+     */
+    private int digits;
+
+    /**
+     * 时间窗口长度（秒）
+     */
+    private int stepSeconds;
+
+    /**
+     * 二维码内容前缀，拼接当前签到码后即为学生提交的token
+     */
+    private String tokenPrefix;
+}
@@ -0,0 +1,256 @@
+package com.hngy.cvs.service.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.hngy.cvs.entity.Activity;
+import com.hngy.cvs.entity.enums.ActivityStatus;
+import com.hngy.cvs.mapper.ActivityMapper;
+import com.hngy.cvs.service.NotificationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 活动生命周期调度器
+ * <p>
+ * 取代按秒轮询：每个已发布活动的开始/结束时刻注册为一个延时任务（调度线程池内部为按触发时间排序的优先队列），
+ * 到点后再以条件更新完成状态流转并发送通知，保证同一流转只生效一次。
+ * 活动发布、审核通过、修改、取消、删除时由活动服务同步调整；启动时补偿停机期间错过的流转，
+ * 并以低频对账兜底多实例或异常情况下的遗漏。
+ *
+ * 需求: 1.1, 1.2 - 活动开始和结束时间通知
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivityLifecycleScheduler {
+
+    private final ActivityMapper activityMapper;
+    private final NotificationService notificationService;
+
+    @Value("${activity.lifecycle.pool-size:2}")
+    private int poolSize;
+
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private final Map<Long, ScheduledFuture<?>> startTasks = new ConcurrentHashMap<>();
+    private final Map<Long, ScheduledFuture<?>> endTasks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("activity-lifecycle-");
+        taskScheduler.setRemoveOnCancelPolicy(true);
+        taskScheduler.initialize();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        taskScheduler.shutdown();
+    }
+
+    /**
+     * 应用启动完成后补偿错过的流转并加载待触发的时间点
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 低频对账（默认每10分钟），补偿其它实例修改或调度异常导致的遗漏
+     */
+    @Scheduled(cron = "${activity.lifecycle.reconcile-cron:0 0/10 * * * ?}")
+    public void reconcile() {
+        try {
+            List<Activity> activities = activityMapper.selectList(
+                    new LambdaQueryWrapper<Activity>()
+                            .in(Activity::getStatus, ActivityStatus.PUBLISHED, ActivityStatus.ONGOING)
+            );
+            for (Activity activity : activities) {
+                scheduleActivity(activity);
+            }
+            log.info("活动生命周期对账完成: 待流转活动数={}, 待触发开始={}, 待触发结束={}",
+                    activities.size(), startTasks.size(), endTasks.size());
+        } catch (Exception e) {
+            log.error("活动生命周期对账执行异常", e);
+        }
+    }
+
+    /**
+     * 活动发布或修改后（重新）注册其开始/结束时间点，在当前事务提交后生效
+     *
+     * @param activity 活动
+     */
+    public void schedule(Activity activity) {
+        if (activity == null || activity.getId() == null) {
+            return;
+        }
+        runAfterCommit(() -> {
+            if (activity.getStatus() == ActivityStatus.PUBLISHED || activity.getStatus() == ActivityStatus.ONGOING) {
+                scheduleActivity(activity);
+            } else {
+                cancelTasks(activity.getId());
+            }
+        });
+    }
+
+    /**
+     * 活动取消或删除后撤销其全部待触发时间点，在当前事务提交后生效
+     *
+     * @param activityId 活动ID
+     */
+    public void unschedule(Long activityId) {
+        if (activityId == null) {
+            return;
+        }
+        runAfterCommit(() -> cancelTasks(activityId));
+    }
+
+    private void scheduleActivity(Activity activity) {
+        Long activityId = activity.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        // 已过结束时间：直接结束（停机期间错过的开始通知不再补发）
+        if (activity.getEndTime() != null && !activity.getEndTime().isAfter(now)) {
+            cancelTasks(activityId);
+            fireEnd(activityId);
+            return;
+        }
+
+        if (activity.getStatus() == ActivityStatus.PUBLISHED && activity.getStartTime() != null) {
+            if (!activity.getStartTime().isAfter(now)) {
+                cancelTask(startTasks, activityId);
+                fireStart(activityId);
+            } else {
+                register(startTasks, activityId, activity.getStartTime(), () -> fireStart(activityId));
+            }
+        } else {
+            cancelTask(startTasks, activityId);
+        }
+
+        if (activity.getEndTime() != null) {
+            register(endTasks, activityId, activity.getEndTime(), () -> fireEnd(activityId));
+        }
+    }
+
+    private void register(Map<Long, ScheduledFuture<?>> tasks, Long activityId, LocalDateTime fireAt, Runnable action) {
+        ScheduledFuture<?> future = taskScheduler.schedule(action, fireAt.atZone(ZoneId.systemDefault()).toInstant());
+        ScheduledFuture<?> previous = tasks.put(activityId, future);
+        if (previous != null && previous != future) {
+            previous.cancel(false);
+        }
+    }
+
+    private void cancelTasks(Long activityId) {
+        cancelTask(startTasks, activityId);
+        cancelTask(endTasks, activityId);
+    }
+
+    private void cancelTask(Map<Long, ScheduledFuture<?>> tasks, Long activityId) {
+        ScheduledFuture<?> future = tasks.remove(activityId);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 活动开始：PUBLISHED -> ONGOING
+     */
+    private void fireStart(Long activityId) {
+        startTasks.remove(activityId);
+        try {
+            Activity activity = activityMapper.selectById(activityId);
+            if (activity == null || activity.getStatus() != ActivityStatus.PUBLISHED) {
+                return;
+            }
+            // 开始时间被推迟时重新注册
+            if (activity.getStartTime().isAfter(LocalDateTime.now())) {
+                scheduleActivity(activity);
+                return;
+            }
+
+            if (!transition(activityId, ActivityStatus.ONGOING, ActivityStatus.PUBLISHED)) {
+                return;
+            }
+            log.info("更新活动状态为进行中: activityId={}, title={}", activityId, activity.getTitle());
+
+            notificationService.sendActivityStartNotification(activityId);
+            notificationService.sendActivityOngoingNotification(activityId);
+            log.info("成功发送活动开始通知: activityId={}, title={}, startTime={}",
+                    activityId, activity.getTitle(), activity.getStartTime());
+        } catch (Exception e) {
+            log.error("处理活动开始失败: activityId={}, error={}", activityId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 活动结束：PUBLISHED/ONGOING -> COMPLETED
+     */
+    private void fireEnd(Long activityId) {
+        endTasks.remove(activityId);
+        try {
+            Activity activity = activityMapper.selectById(activityId);
+            if (activity == null
+                    || (activity.getStatus() != ActivityStatus.PUBLISHED && activity.getStatus() != ActivityStatus.ONGOING)) {
+                return;
+            }
+            // 结束时间被推迟时重新注册
+            if (activity.getEndTime().isAfter(LocalDateTime.now())) {
+                scheduleActivity(activity);
+                return;
+            }
+
+            if (!transition(activityId, ActivityStatus.COMPLETED, ActivityStatus.PUBLISHED, ActivityStatus.ONGOING)) {
+                return;
+            }
+            cancelTask(startTasks, activityId);
+
+            notificationService.sendActivityEndNotification(activityId);
+            log.info("成功发送活动结束通知并更新状态: activityId={}, title={}, endTime={}",
+                    activityId, activity.getTitle(), activity.getEndTime());
+        } catch (Exception e) {
+            log.error("处理活动结束失败: activityId={}, error={}", activityId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 条件更新活动状态，仅当当前状态属于 expected 时生效，避免重复流转
+     */
+    private boolean transition(Long activityId, ActivityStatus target, ActivityStatus... expected) {
+        Activity update = new Activity();
+        update.setStatus(target);
+        int rows = activityMapper.update(update, new LambdaUpdateWrapper<Activity>()
+                .eq(Activity::getId, activityId)
+                .in(Activity::getStatus, (Object[]) expected));
+        return rows > 0;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
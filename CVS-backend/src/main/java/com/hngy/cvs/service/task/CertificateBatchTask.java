@@ -0,0 +1,28 @@
+package com.hngy.cvs.service.task;
+
+import com.hngy.cvs.service.CertificateBatchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 证书批量生成补偿任务
+ * 恢复进程中断后心跳停止的任务，并执行提交后未能立即执行的排队任务
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CertificateBatchTask {
+
+    private final CertificateBatchService certificateBatchService;
+
+    @Scheduled(fixedDelayString = "${certificate.batch.poll-interval-ms:30000}")
+    public void dispatchPending() {
+        try {
+            certificateBatchService.dispatchPending();
+        } catch (Exception e) {
+            log.error("证书批量生成补偿任务执行异常", e);
+        }
+    }
+}
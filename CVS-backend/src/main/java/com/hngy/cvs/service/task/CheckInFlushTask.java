@@ -0,0 +1,37 @@
+package com.hngy.cvs.service.task;
+
+import com.hngy.cvs.service.CheckInBufferService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 签到批量落库任务
+ * 高频把Redis流中的签到批量写入数据库，低频认领崩溃实例遗留的记录
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckInFlushTask {
+
+    private final CheckInBufferService checkInBufferService;
+
+    @Scheduled(fixedDelayString = "${checkin.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        try {
+            checkInBufferService.flush();
+        } catch (Exception e) {
+            log.error("签到批量落库任务执行异常", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${checkin.write-behind.claim-interval-ms:30000}")
+    public void claimStale() {
+        try {
+            checkInBufferService.claimStale();
+        } catch (Exception e) {
+            log.error("签到遗留记录认领任务执行异常", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hngy.cvs.service.task;
+
+import com.hngy.cvs.service.FlashSaleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀兑换落库任务
+ * 高频批量落库Redis中的预占记录，低频以数据库库存校正Redis库存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashSaleTask {
+
+    private final FlashSaleService flashSaleService;
+
+    @Scheduled(fixedDelayString = "${flash-sale.persist-interval-ms:500}")
+    public void persistPending() {
+        try {
+            flashSaleService.persistPending();
+        } catch (Exception e) {
+            log.error("秒杀兑换落库任务执行异常", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flash-sale.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            flashSaleService.reconcile();
+        } catch (Exception e) {
+            log.error("秒杀库存对账任务执行异常", e);
+        }
+    }
+}
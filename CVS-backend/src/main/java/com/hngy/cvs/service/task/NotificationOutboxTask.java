@@ -0,0 +1,38 @@
+package com.hngy.cvs.service.task;
+
+import com.hngy.cvs.service.NotificationOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 通知发件箱补偿投递任务
+ * 投递提交后未能立即处理（线程池已满、投递失败、进程重启）的事件，并刷新积压指标；
+ * 每天清理超过保留期的已完成事件
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxTask {
+
+    private final NotificationOutboxService notificationOutboxService;
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:5000}")
+    public void dispatchPending() {
+        try {
+            notificationOutboxService.dispatchPending();
+        } catch (Exception e) {
+            log.error("通知发件箱补偿投递任务执行异常", e);
+        }
+    }
+
+    @Scheduled(cron = "${notification.outbox.purge-cron:0 30 3 * * ?}")
+    public void purgeFinished() {
+        try {
+            notificationOutboxService.purgeFinished();
+        } catch (Exception e) {
+            log.error("通知发件箱清理任务执行异常", e);
+        }
+    }
+}
@@ -2,12 +2,8 @@ package com.hngy.cvs.service.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.hngy.cvs.entity.Activity;
-import com.hngy.cvs.entity.Signup;
-import com.hngy.cvs.entity.enums.ActivityStatus;
-import com.hngy.cvs.entity.enums.SignupStatus;
 import com.hngy.cvs.mapper.ActivityMapper;
-import com.hngy.cvs.mapper.SignupMapper;
-import com.hngy.cvs.service.NotificationService;
+import com.hngy.cvs.service.SignupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,9 +14,8 @@ import java.util.List;
 
 /**
  * 通知系统定时任务调度器
- * 负责检查活动状态变化并发送相应通知
- * 
- * 需求: 1.1, 1.2 - 活动开始和结束时间通知
+ * 负责处理超时未审核的报名并发送相应通知
+ * 活动开始/结束的状态流转与通知由 {@link ActivityLifecycleScheduler} 按事件触发
  */
 @Slf4j
 @Component
@@ -28,67 +23,10 @@ import java.util.List;
 public class NotificationTask {
 
     private final ActivityMapper activityMapper;
-    private final NotificationService notificationService;
-    private final SignupMapper signupMapper;
+    private final SignupService signupService;
 
     private static final String AUTO_REJECT_REASON = "超时未审核";
 
-    /**
-     * 检查活动开始时间并发送通知（每秒执行一次）
-     * 需求: 1.1 - WHEN 活动开始时间到达, THE CVS系统 SHALL 向活动发起人发送活动开始通知
-     */
-    @Scheduled(cron = "* * * * * ?")
-    public void checkActivityStart() {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            // 检查过去5秒内开始的活动（只检查已经开始的活动）
-            LocalDateTime startTime = now.minusSeconds(5);
-            LocalDateTime endTime = now;
-
-            // 查询在指定时间范围内开始的已发布活动
-            List<Activity> activities = activityMapper.selectList(
-                    new LambdaQueryWrapper<Activity>()
-                            .eq(Activity::getStatus, ActivityStatus.PUBLISHED)
-                            .between(Activity::getStartTime, startTime, endTime)
-            );
-
-            // 只有找到活动时才输出日志
-            if (activities.isEmpty()) {
-                return;
-            }
-
-            int successCount = 0;
-            int failureCount = 0;
-
-            for (Activity activity : activities) {
-                try {
-                    notificationService.sendActivityStartNotification(activity.getId());
-
-                    if (activity.getStatus() == ActivityStatus.PUBLISHED) {
-                        activity.setStatus(ActivityStatus.ONGOING);
-                        activityMapper.updateById(activity);
-                        log.info("更新活动状态为进行中: activityId={}, title={}", activity.getId(), activity.getTitle());
-                    }
-
-                    notificationService.sendActivityOngoingNotification(activity.getId());
-                    successCount++;
-                    log.info("成功发送活动开始通知: activityId={}, title={}, startTime={}", 
-                            activity.getId(), activity.getTitle(), activity.getStartTime());
-                } catch (Exception e) {
-                    failureCount++;
-                    log.error("发送活动开始通知失败: activityId={}, title={}, error={}", 
-                            activity.getId(), activity.getTitle(), e.getMessage(), e);
-                }
-            }
-
-            log.info("活动开始/进行中通知检查完成: 总数={}, 成功={}, 失败={}", 
-                    activities.size(), successCount, failureCount);
-
-        } catch (Exception e) {
-            log.error("检查活动开始时间任务执行异常", e);
-        }
-    }
-
     /**
      * 自动拒绝已过报名截止时间仍未审核的报名（每分钟执行一次）
      */
@@ -99,6 +37,7 @@ public class NotificationTask {
 
             List<Activity> expiredActivities = activityMapper.selectList(
                     new LambdaQueryWrapper<Activity>()
+                            .select(Activity::getId)
                             .isNotNull(Activity::getRegistrationDeadline)
                             .le(Activity::getRegistrationDeadline, now)
             );
@@ -110,29 +49,11 @@ public class NotificationTask {
             int totalRejected = 0;
 
             for (Activity activity : expiredActivities) {
-                List<Signup> pendingSignups = signupMapper.selectList(
-                        new LambdaQueryWrapper<Signup>()
-                                .eq(Signup::getActivityId, activity.getId())
-                                .eq(Signup::getStatus, SignupStatus.PENDING)
-                );
-
-                if (pendingSignups.isEmpty()) {
-                    continue;
-                }
-
-                for (Signup signup : pendingSignups) {
-                    try {
-                        signup.setStatus(SignupStatus.REJECTED);
-                        signup.setRejectReason(AUTO_REJECT_REASON);
-                        signupMapper.updateById(signup);
-
-                        notificationService.sendRegistrationResultNotification(
-                                activity.getId(), signup.getUserId(), false, AUTO_REJECT_REASON
-                        );
-                        totalRejected++;
-                    } catch (Exception e) {
-                        log.error("自动拒绝报名失败: signupId={}, activityId={}, error={}", signup.getId(), activity.getId(), e.getMessage(), e);
-                    }
+                try {
+                    // 按块批量拒绝，同一事务内释放名额并由候补补位
+                    totalRejected += signupService.rejectAllPendingSignups(activity.getId(), AUTO_REJECT_REASON);
+                } catch (Exception e) {
+                    log.error("自动拒绝报名失败: activityId={}, error={}", activity.getId(), e.getMessage(), e);
                 }
             }
 
@@ -143,58 +64,4 @@ public class NotificationTask {
             log.error("自动拒绝超时报名任务执行异常", e);
         }
     }
-
-    /**
-     * 检查活动结束时间并发送通知（每秒执行一次）
-     * 需求: 1.2 - WHEN 活动结束时间到达, THE CVS系统 SHALL 向活动发起人发送活动结束通知
-     */
-    @Scheduled(cron = "* * * * * ?")
-    public void checkActivityEnd() {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            // 检查过去5秒内结束的活动（只检查已经结束的活动）
-            LocalDateTime startTime = now.minusSeconds(5);
-            LocalDateTime endTime = now;
-
-            // 查询在指定时间范围内结束的活动（已发布或进行中状态）
-            List<Activity> activities = activityMapper.selectList(
-                    new LambdaQueryWrapper<Activity>()
-                            .in(Activity::getStatus, ActivityStatus.PUBLISHED, ActivityStatus.ONGOING)
-                            .between(Activity::getEndTime, startTime, endTime)
-            );
-
-            // 只有找到活动时才输出日志
-            if (activities.isEmpty()) {
-                return;
-            }
-
-            int successCount = 0;
-            int failureCount = 0;
-
-            for (Activity activity : activities) {
-                try {
-                    // 发送活动结束通知
-                    notificationService.sendActivityEndNotification(activity.getId());
-                    
-                    // 更新活动状态为已完成
-                    activity.setStatus(ActivityStatus.COMPLETED);
-                    activityMapper.updateById(activity);
-                    
-                    successCount++;
-                    log.info("成功发送活动结束通知并更新状态: activityId={}, title={}, endTime={}", 
-                            activity.getId(), activity.getTitle(), activity.getEndTime());
-                } catch (Exception e) {
-                    failureCount++;
-                    log.error("发送活动结束通知失败: activityId={}, title={}, error={}", 
-                            activity.getId(), activity.getTitle(), e.getMessage(), e);
-                }
-            }
-
-            log.info("活动结束通知检查完成: 总数={}, 成功={}, 失败={}", 
-                    activities.size(), successCount, failureCount);
-
-        } catch (Exception e) {
-            log.error("检查活动结束时间任务执行异常", e);
-        }
-    }
 }
@@ -0,0 +1,41 @@
+package com.hngy.cvs.service.task;
+
+import com.hngy.cvs.service.PointsLeaderboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 积分排行榜重建任务
+ * 启动时预热排行榜，并定期全量重建以修正增量同步可能产生的漂移
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PointsLeaderboardTask {
+
+    private final PointsLeaderboardService pointsLeaderboardService;
+
+    /**
+     * 应用启动完成后预热排行榜
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildLeaderboard();
+    }
+
+    /**
+     * 定期全量重建排行榜（默认每小时一次）
+     */
+    @Scheduled(cron = "${points.leaderboard.rebuild-cron:0 0 * * * ?}")
+    public void rebuildLeaderboard() {
+        try {
+            pointsLeaderboardService.rebuild();
+        } catch (Exception e) {
+            log.error("重建积分排行榜失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.hngy.cvs.service.task;
+
+import com.hngy.cvs.service.PointsLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 积分快照任务
+ * 定期把新增流水累加到快照，随后删除超过保留期的已快照流水
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PointsLedgerSnapshotTask {
+
+    private final PointsLedgerService pointsLedgerService;
+
+    @Scheduled(cron = "${points.ledger.snapshot-cron:0 */5 * * * ?}")
+    public void snapshot() {
+        try {
+            pointsLedgerService.snapshot();
+            pointsLedgerService.compact();
+        } catch (Exception e) {
+            log.error("积分快照任务执行异常", e);
+        }
+    }
+}
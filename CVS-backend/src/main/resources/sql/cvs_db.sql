@@ -32,6 +32,7 @@ CREATE TABLE `activity_twb` (
   `end_time` datetime NOT NULL COMMENT '结束时间',
   `registration_deadline` datetime DEFAULT NULL COMMENT '活动报名截止时间',
   `max_participants` int NOT NULL COMMENT '最大参与人数',
+  `reserved_count` int NOT NULL DEFAULT '0' COMMENT '已占用名额（待审核和已通过的报名数）',
   `status` varchar(20) NOT NULL DEFAULT 'DRAFT' COMMENT '活动状态（DRAFT-草稿/PENDING_APPROVAL-待审核/PUBLISHED-已发布/ONGOING-进行中/COMPLETED-已完成/CANCELLED-已取消/REJECTED-审核拒绝）',
   `organizer_id` bigint NOT NULL COMMENT '组织者ID',
   `requirements` text COMMENT '参与要求',
@@ -40,6 +41,7 @@ CREATE TABLE `activity_twb` (
   `approver_id` bigint DEFAULT NULL COMMENT '审核人ID',
   `approved_at` datetime DEFAULT NULL COMMENT '审核时间',
   `reject_reason` text COMMENT '拒绝原因',
+  `rotating_nonce` varchar(32) DEFAULT NULL COMMENT '动态签到码密钥随机因子，首次获取种子时生成，老师重置后旧签到码立即失效',
   `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint NOT NULL DEFAULT '0' COMMENT '逻辑删除标志',
@@ -111,7 +113,7 @@ CREATE TABLE `points_twb` (
   `user_id` bigint NOT NULL COMMENT '用户ID',
   `points` int NOT NULL COMMENT '积分数量（正数为增加，负数为扣除）',
   PRIMARY KEY (`id`),
-  KEY `idx_user_id` (`user_id`),
+  UNIQUE KEY `uk_user_id` (`user_id`),
   CONSTRAINT `fk_points_user` FOREIGN KEY (`user_id`) REFERENCES `user_twb` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='积分记录表';
 
@@ -134,7 +136,7 @@ CREATE TABLE `cert_twb` (
   KEY `idx_status` (`status`),
   KEY `idx_approver_id` (`approver_id`),
   KEY `idx_created_at` (`created_at`),
-  KEY `idx_certificate_number` (`certificate_number`),
+  UNIQUE KEY `uk_certificate_number` (`certificate_number`),
   CONSTRAINT `fk_certificate_user` FOREIGN KEY (`user_id`) REFERENCES `user_twb` (`id`) ON DELETE CASCADE,
   CONSTRAINT `fk_certificate_approver` FOREIGN KEY (`approver_id`) REFERENCES `user_twb` (`id`) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='志愿证明表';
@@ -144,6 +146,8 @@ CREATE TABLE `notification_twb` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '通知ID',
   `user_id` bigint NOT NULL COMMENT '接收用户ID',
   `type` varchar(50) NOT NULL COMMENT '通知类型',
+  `activity_id` bigint DEFAULT NULL COMMENT '关联活动ID',
+  `dedup_key` varchar(100) DEFAULT NULL COMMENT '幂等键（类型:活动ID:用户ID，或 outbox:事件ID:用户ID），为空表示不去重',
   `title` varchar(200) NOT NULL COMMENT '通知标题',
   `content` text COMMENT '通知内容',
   `link_url` varchar(500) COMMENT '跳转链接',
@@ -155,6 +159,7 @@ CREATE TABLE `notification_twb` (
   KEY `idx_user_read` (`user_id`, `is_read`),
   KEY `idx_created_time` (`created_time`),
   KEY `idx_type` (`type`),
+  UNIQUE KEY `uk_dedup_key` (`dedup_key`),
   CONSTRAINT `fk_notification_user` FOREIGN KEY (`user_id`) REFERENCES `user_twb` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知表';
 
@@ -219,3 +224,76 @@ CREATE TABLE `redemption_twb` (
   CONSTRAINT `fk_redemption_product` FOREIGN KEY (`product_id`) REFERENCES `product_twb` (`id`) ON DELETE RESTRICT,
   CONSTRAINT `fk_redemption_verifier` FOREIGN KEY (`verified_by`) REFERENCES `user_twb` (`id`) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='兑换记录表';
+
+-- 11. 通知发件箱表
+CREATE TABLE `notification_outbox_twb` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `event_type` varchar(50) NOT NULL COMMENT '事件类型（对应通知类型）',
+  `payload` text NOT NULL COMMENT '事件内容（JSON）',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态：0-待投递，1-投递中，2-已投递，3-投递失败',
+  `retry_count` int NOT NULL DEFAULT '0' COMMENT '重试次数',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `processed_at` datetime DEFAULT NULL COMMENT '投递完成时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_created` (`status`, `created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知发件箱表';
+
+-- 12. 证书批量生成任务表
+CREATE TABLE `cert_batch_job_twb` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态：0-排队中，1-生成中，2-已完成，3-失败',
+  `certificate_ids` mediumtext NOT NULL COMMENT '证书ID列表（逗号分隔，创建任务时确定）',
+  `total_count` int NOT NULL DEFAULT '0' COMMENT '证书总数',
+  `processed_count` int NOT NULL DEFAULT '0' COMMENT '已处理数',
+  `failed_count` int NOT NULL DEFAULT '0' COMMENT '生成失败数',
+  `file_path` varchar(255) DEFAULT NULL COMMENT 'ZIP文件路径',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '失败原因',
+  `claim_token` varchar(64) DEFAULT NULL COMMENT '执行令牌（每次抢占生成，心跳和完成时校验）',
+  `created_by` bigint NOT NULL COMMENT '创建人ID',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间（生成中定时刷新，作为心跳）',
+  `finished_at` datetime DEFAULT NULL COMMENT '完成时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_updated` (`status`, `updated_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='证书批量生成任务表';
+
+-- 13. 积分流水表（只追加）
+CREATE TABLE `points_ledger_twb` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID（单调递增，作为游标和快照水位）',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `change_amount` int NOT NULL COMMENT '积分变动（正数为增加，负数为扣除）',
+  `balance_after` int NOT NULL COMMENT '变动后余额',
+  `type` varchar(20) NOT NULL COMMENT '变动类型：OPENING-期初余额，AWARD-发放，DEDUCT-扣除，REFUND-退还',
+  `reason` varchar(255) DEFAULT NULL COMMENT '变动原因',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_user_id_id` (`user_id`, `id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='积分流水表';
+
+-- 14. 积分快照表
+CREATE TABLE `points_snapshot_twb` (
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `balance` int NOT NULL DEFAULT '0' COMMENT '截至 last_ledger_id 的余额',
+  `last_ledger_id` bigint NOT NULL DEFAULT '0' COMMENT '已计入快照的最大流水ID',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`),
+  KEY `idx_last_ledger_id` (`last_ledger_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='积分快照表';
+
+-- 15. 活动候补表
+CREATE TABLE `waitlist_twb` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID（即候补顺序）',
+  `activity_id` bigint NOT NULL COMMENT '活动ID',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `reason` text COMMENT '报名理由',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '加入候补时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_activity_user` (`activity_id`, `user_id`),
+  KEY `idx_activity_id_id` (`activity_id`, `id`),
+  KEY `idx_user_id` (`user_id`),
+  CONSTRAINT `fk_waitlist_activity` FOREIGN KEY (`activity_id`) REFERENCES `activity_twb` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `fk_waitlist_user` FOREIGN KEY (`user_id`) REFERENCES `user_twb` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='活动候补表';
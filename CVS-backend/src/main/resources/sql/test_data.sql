@@ -7,8 +7,11 @@ TRUNCATE TABLE `redemption_twb`;
 TRUNCATE TABLE `product_twb`;
 TRUNCATE TABLE `category_twb`;
 TRUNCATE TABLE `cert_twb`;
+TRUNCATE TABLE `points_snapshot_twb`;
+TRUNCATE TABLE `points_ledger_twb`;
 TRUNCATE TABLE `points_twb`;
 TRUNCATE TABLE `record_twb`;
+TRUNCATE TABLE `waitlist_twb`;
 TRUNCATE TABLE `signup_twb`;
 TRUNCATE TABLE `activity_twb`;
 TRUNCATE TABLE `notification_twb`;
@@ -95,6 +98,11 @@ INSERT INTO `signup_twb` (`id`, `activity_id`, `user_id`, `status`, `reason`, `r
 (10, 3, 6, 'REJECTED', '希望参与图书馆志愿服务', '名额已满', 0, 0, NULL, NULL, DATE_SUB(NOW(), INTERVAL 5 DAY), DATE_SUB(NOW(), INTERVAL 4 DAY)),
 (11, 4, 8, 'REJECTED', '想参与交通安全宣传', '活动已取消', 0, 0, NULL, NULL, DATE_SUB(NOW(), INTERVAL 4 DAY), DATE_SUB(NOW(), INTERVAL 3 DAY));
 
+-- 按报名数据初始化活动已占用名额
+UPDATE `activity_twb` a SET `reserved_count` = (
+    SELECT COUNT(*) FROM `signup_twb` s WHERE s.`activity_id` = a.`id` AND s.`status` IN ('PENDING', 'APPROVED')
+);
+
 -- 插入服务记录数据（只有完成签到签退的才有服务记录）- 增加更多记录
 INSERT INTO `record_twb` (`id`, `user_id`, `activity_id`, `duration_minutes`, `description`, `evaluation`, `rating`, `points_earned`, `created_at`, `updated_at`) VALUES
 (1, 4, 1, 480, '参与了整天的环保活动，清理了大量垃圾，向市民宣传环保知识', '表现积极，工作认真负责，是优秀的志愿者', 5, 10, DATE_SUB(NOW(), INTERVAL 6 DAY), DATE_SUB(NOW(), INTERVAL 6 DAY)),
@@ -123,6 +131,14 @@ INSERT INTO `points_twb` (`id`, `user_id`, `points`) VALUES
 (4, 7, 180),  -- 刘小强：服务积分33(8+15+10) + 额外奖励150 - 兑换消耗3 = 180
 (5, 8, 150);  -- 陈小美：额外奖励150（用于测试兑换）
 
+-- 插入积分流水期初余额（与积分表一致，积分重建以此为起点）
+INSERT INTO `points_ledger_twb` (`user_id`, `change_amount`, `balance_after`, `type`, `reason`) VALUES
+(4, 320, 320, 'OPENING', '期初余额'),
+(5, 280, 280, 'OPENING', '期初余额'),
+(6, 250, 250, 'OPENING', '期初余额'),
+(7, 180, 180, 'OPENING', '期初余额'),
+(8, 150, 150, 'OPENING', '期初余额');
+
 -- 插入志愿证明数据
 INSERT INTO `cert_twb` (`id`, `user_id`, `purpose`, `start_date`, `end_date`, `status`, `reject_reason`, `approver_id`, `approved_at`, `certificate_number`, `created_at`, `updated_at`) VALUES
 -- 已批准的证明
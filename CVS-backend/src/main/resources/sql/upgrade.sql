@@ -0,0 +1,130 @@
+-- CVS 高校志愿服务数字化系统数据库升级脚本
+-- 用于已有数据的库：cvs_db.sql 会先删除数据库，只适用于全新安装。
+-- 执行方式：mysql -u root -p cvs_db < src/main/resources/sql/upgrade.sql
+-- 可重复执行：已存在的列、索引会跳过，去重和回填语句在数据已满足约束时不产生变化。
+-- 请在应用停止后执行，回填期间的报名变更不会计入已占用名额。
+
+-- 辅助过程：列不存在时添加
+DROP PROCEDURE IF EXISTS `cvs_add_column`;
+DELIMITER //
+CREATE PROCEDURE `cvs_add_column`(IN p_table VARCHAR(64), IN p_column VARCHAR(64), IN p_definition TEXT)
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = p_table AND COLUMN_NAME = p_column) THEN
+    SET @ddl = CONCAT('ALTER TABLE `', p_table, '` ADD COLUMN `', p_column, '` ', p_definition);
+    PREPARE stmt FROM @ddl;
+    EXECUTE stmt;
+    DEALLOCATE PREPARE stmt;
+  END IF;
+END //
+DELIMITER ;
+
+-- 辅助过程：索引不存在时添加
+DROP PROCEDURE IF EXISTS `cvs_add_index`;
+DELIMITER //
+CREATE PROCEDURE `cvs_add_index`(IN p_table VARCHAR(64), IN p_index VARCHAR(64), IN p_definition TEXT)
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM information_schema.STATISTICS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = p_table AND INDEX_NAME = p_index) THEN
+    SET @ddl = CONCAT('ALTER TABLE `', p_table, '` ADD ', p_definition);
+    PREPARE stmt FROM @ddl;
+    EXECUTE stmt;
+    DEALLOCATE PREPARE stmt;
+  END IF;
+END //
+DELIMITER ;
+
+-- 辅助过程：索引存在时删除
+DROP PROCEDURE IF EXISTS `cvs_drop_index`;
+DELIMITER //
+CREATE PROCEDURE `cvs_drop_index`(IN p_table VARCHAR(64), IN p_index VARCHAR(64))
+BEGIN
+  IF EXISTS (SELECT 1 FROM information_schema.STATISTICS
+             WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = p_table AND INDEX_NAME = p_index) THEN
+    SET @ddl = CONCAT('ALTER TABLE `', p_table, '` DROP INDEX `', p_index, '`');
+    PREPARE stmt FROM @ddl;
+    EXECUTE stmt;
+    DEALLOCATE PREPARE stmt;
+  END IF;
+END //
+DELIMITER ;
+
+-- 1. 积分记录表：每个用户一行（积分增减为单条 upsert / 条件扣减）
+-- 同一用户的多行合并到ID最小的一行，积分为各行之和
+UPDATE `points_twb` p
+JOIN (
+    SELECT `user_id`, MIN(`id`) AS `keep_id`, SUM(`points`) AS `total`
+    FROM `points_twb` GROUP BY `user_id` HAVING COUNT(*) > 1
+) d ON p.`id` = d.`keep_id`
+SET p.`points` = d.`total`;
+
+DELETE p FROM `points_twb` p
+JOIN (
+    SELECT `user_id`, MIN(`id`) AS `keep_id` FROM `points_twb` GROUP BY `user_id` HAVING COUNT(*) > 1
+) d ON p.`user_id` = d.`user_id` AND p.`id` <> d.`keep_id`;
+
+CALL `cvs_add_index`('points_twb', 'uk_user_id', 'UNIQUE KEY `uk_user_id` (`user_id`)');
+CALL `cvs_drop_index`('points_twb', 'idx_user_id');
+
+-- 2. 志愿证明表：证明编号唯一（编号按天由Redis序号分配）
+-- 重复编号保留ID最小的一条，其余在编号后追加 "-证明ID"
+UPDATE `cert_twb` c
+JOIN (
+    SELECT `certificate_number`, MIN(`id`) AS `keep_id`
+    FROM `cert_twb` WHERE `certificate_number` IS NOT NULL
+    GROUP BY `certificate_number` HAVING COUNT(*) > 1
+) d ON c.`certificate_number` = d.`certificate_number` AND c.`id` <> d.`keep_id`
+SET c.`certificate_number` = CONCAT(c.`certificate_number`, '-', c.`id`);
+
+CALL `cvs_add_index`('cert_twb', 'uk_certificate_number', 'UNIQUE KEY `uk_certificate_number` (`certificate_number`)');
+
+-- 3. 通知表：幂等键，已有通知保持为空（不去重）
+CALL `cvs_add_column`('notification_twb', 'dedup_key',
+    'varchar(100) DEFAULT NULL COMMENT ''幂等键（类型:活动ID:用户ID，或 outbox:事件ID:用户ID），为空表示不去重'' AFTER `activity_id`');
+CALL `cvs_add_index`('notification_twb', 'uk_dedup_key', 'UNIQUE KEY `uk_dedup_key` (`dedup_key`)');
+
+-- 4. 志愿活动表：已占用名额计数，按现有报名回填
+CALL `cvs_add_column`('activity_twb', 'reserved_count',
+    'int NOT NULL DEFAULT ''0'' COMMENT ''已占用名额（待审核和已通过的报名数）'' AFTER `max_participants`');
+
+UPDATE `activity_twb` a SET `reserved_count` = (
+    SELECT COUNT(*) FROM `signup_twb` s WHERE s.`activity_id` = a.`id` AND s.`status` IN ('PENDING', 'APPROVED')
+);
+
+-- 5. 志愿活动表：动态签到码密钥随机因子，首次获取种子时生成
+CALL `cvs_add_column`('activity_twb', 'rotating_nonce',
+    'varchar(32) DEFAULT NULL COMMENT ''动态签到码密钥随机因子，首次获取种子时生成，老师重置后旧签到码立即失效'' AFTER `reject_reason`');
+
+-- 6. 积分流水表（只追加）和积分快照表
+CREATE TABLE IF NOT EXISTS `points_ledger_twb` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID（单调递增，作为游标和快照水位）',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `change_amount` int NOT NULL COMMENT '积分变动（正数为增加，负数为扣除）',
+  `balance_after` int NOT NULL COMMENT '变动后余额',
+  `type` varchar(20) NOT NULL COMMENT '变动类型：OPENING-期初余额，AWARD-发放，DEDUCT-扣除，REFUND-退还',
+  `reason` varchar(255) DEFAULT NULL COMMENT '变动原因',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_user_id_id` (`user_id`, `id`),
+  KEY `idx_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='积分流水表';
+
+CREATE TABLE IF NOT EXISTS `points_snapshot_twb` (
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `balance` int NOT NULL DEFAULT '0' COMMENT '截至 last_ledger_id 的余额',
+  `last_ledger_id` bigint NOT NULL DEFAULT '0' COMMENT '已计入快照的最大流水ID',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`),
+  KEY `idx_last_ledger_id` (`last_ledger_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='积分快照表';
+
+-- 把当前余额写为期初流水，否则按流水重建余额会把积分清零；已有流水的用户跳过，重复执行不会重复写入
+-- 须在第1步合并积分记录之后执行
+INSERT INTO `points_ledger_twb` (`user_id`, `change_amount`, `balance_after`, `type`, `reason`)
+SELECT p.`user_id`, p.`points`, p.`points`, 'OPENING', '期初余额'
+FROM `points_twb` p
+WHERE NOT EXISTS (SELECT 1 FROM `points_ledger_twb` l WHERE l.`user_id` = p.`user_id`);
+
+DROP PROCEDURE IF EXISTS `cvs_add_column`;
+DROP PROCEDURE IF EXISTS `cvs_add_index`;
+DROP PROCEDURE IF EXISTS `cvs_drop_index`;